@@ -0,0 +1,142 @@
+package cl.duoc.ms_auth.verifier;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fuente de claves basada en el endpoint {@code /.well-known/jwks.json} de ms-auth.
+ * <p>
+ * Mantiene un verificador RSA por {@code kid}, refrescado en segundo plano. Si llega un token con un
+ * {@code kid} desconocido (rotación de claves) se fuerza un refresco, como máximo uno por
+ * {@code minRefreshGap}, para que tokens falsos no generen tráfico hacia ms-auth: el primer hilo que ve el
+ * {@code kid} desconocido reserva el refresco con un CAS sobre {@code lastRefreshNanos}; los demás no esperan la
+ * descarga y responden con las claves que ya había.
+ */
+public class JwksKeySource implements AutoCloseable {
+
+    private static final String NO_KID = "";
+    private static final Logger logger = LoggerFactory.getLogger(JwksKeySource.class);
+
+    private final URI jwksUri;
+    private final HttpClient http;
+    private final Duration refreshInterval;
+    private final Duration minRefreshGap;
+    private final ScheduledExecutorService scheduler;
+    private volatile Map<String, JWSVerifier> verifiers = Map.of();
+    private final AtomicLong lastRefreshNanos;
+
+    /**
+     * @param jwksUri         La URL del JWKS de ms-auth.
+     * @param http            El cliente HTTP a usar.
+     * @param refreshInterval Cada cuánto se refresca el JWKS en segundo plano.
+     * @param minRefreshGap   Tiempo mínimo entre refrescos forzados por {@code kid} desconocido.
+     */
+    public JwksKeySource(URI jwksUri, HttpClient http, Duration refreshInterval, Duration minRefreshGap) {
+        this.jwksUri = jwksUri;
+        this.http = http;
+        this.refreshInterval = refreshInterval;
+        this.minRefreshGap = minRefreshGap;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "jwks-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        this.lastRefreshNanos = new AtomicLong(System.nanoTime() - minRefreshGap.toNanos());
+    }
+
+    /**
+     * Carga el JWKS y programa el refresco periódico. Un fallo inicial no impide arrancar:
+     * el siguiente token con {@code kid} desconocido reintentará la carga.
+     */
+    public void start() {
+        refresh();
+        long period = refreshInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::refresh, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Obtiene el verificador para un {@code kid}. Los tokens sin {@code kid} se aceptan
+     * solo si el JWKS publica una única clave.
+     *
+     * @param kid El {@code kid} de la cabecera del token (puede ser null).
+     * @return el verificador, o null si la clave no existe.
+     */
+    public JWSVerifier verifierFor(String kid) {
+        String key = kid == null ? NO_KID : kid;
+        JWSVerifier v = verifiers.get(key);
+        if (v != null) return v;
+        long last = lastRefreshNanos.get();
+        long now = System.nanoTime();
+        // Solo el ganador del CAS descarga; con N tokens falsos concurrentes hay una sola petición a ms-auth
+        if (now - last >= minRefreshGap.toNanos() && lastRefreshNanos.compareAndSet(last, now)) {
+            fetch();
+            v = verifiers.get(key);
+        }
+        return v;
+    }
+
+    /**
+     * Descarga el JWKS y reemplaza los verificadores de forma atómica. También cuenta para {@code minRefreshGap}.
+     *
+     * @return true si el refresco fue exitoso.
+     */
+    public boolean refresh() {
+        lastRefreshNanos.set(System.nanoTime());
+        return fetch();
+    }
+
+    // Serializado: un refresco periódico y uno forzado no se pisan con un JWKS más antiguo
+    private synchronized boolean fetch() {
+        try {
+            var request = HttpRequest.newBuilder(jwksUri).timeout(Duration.ofSeconds(5)).GET().build();
+            var response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                logger.warn("JWKS respondió HTTP {} desde {}", response.statusCode(), jwksUri);
+                return false;
+            }
+            var set = JWKSet.parse(response.body());
+            Map<String, JWSVerifier> next = new HashMap<>();
+            RSAKey only = null;
+            int rsaKeys = 0;
+            for (JWK jwk : set.getKeys()) {
+                if (!(jwk instanceof RSAKey rsa)) continue;
+                rsaKeys++;
+                only = rsa;
+                if (rsa.getKeyID() != null) next.put(rsa.getKeyID(), new RSASSAVerifier(rsa));
+            }
+            if (rsaKeys == 1) next.put(NO_KID, new RSASSAVerifier(only));
+            verifiers = Map.copyOf(next);
+            logger.debug("JWKS actualizado desde {}: {} claves RSA.", jwksUri, rsaKeys);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (JOSEException | java.text.ParseException | java.io.IOException e) {
+            logger.warn("No se pudo refrescar el JWKS desde {}: {}", jwksUri, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
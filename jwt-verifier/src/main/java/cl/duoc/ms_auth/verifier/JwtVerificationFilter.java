@@ -0,0 +1,98 @@
+package cl.duoc.ms_auth.verifier;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.Optional;
+
+/**
+ * Filtro servlet que verifica el {@code Authorization: Bearer} con un {@link TokenVerifier}.
+ * <p>
+ * Si el token es válido, la petición continúa envuelta: {@code getUserPrincipal()} devuelve el usuario,
+ * {@code isUserInRole()} consulta los roles del token y el {@link VerifiedToken} queda en el atributo
+ * {@link #ATTRIBUTE}. Con {@code requireToken=true} las peticiones sin token válido reciben 401.
+ */
+public class JwtVerificationFilter implements Filter {
+
+    /** Nombre del atributo de la petición que contiene el {@link VerifiedToken}. */
+    public static final String ATTRIBUTE = VerifiedToken.class.getName();
+
+    private static final byte[] UNAUTHORIZED_BODY =
+            "{\"status\":401,\"error\":\"Unauthorized\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final TokenVerifier verifier;
+    private final boolean requireToken;
+
+    /**
+     * @param verifier     El verificador de tokens.
+     * @param requireToken Si es true, responde 401 cuando falta el token o no es válido.
+     */
+    public JwtVerificationFilter(TokenVerifier verifier, boolean requireToken) {
+        this.verifier = verifier;
+        this.requireToken = requireToken;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        var req = (HttpServletRequest) request;
+        String auth = req.getHeader("Authorization");
+        Optional<VerifiedToken> token = auth != null && auth.regionMatches(true, 0, "Bearer ", 0, 7)
+                ? verifier.verify(auth.substring(7).trim())
+                : Optional.empty();
+
+        if (token.isPresent()) {
+            req.setAttribute(ATTRIBUTE, token.get());
+            chain.doFilter(new AuthenticatedRequest(req, token.get()), response);
+        } else if (requireToken) {
+            var res = (HttpServletResponse) response;
+            res.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            res.setHeader("WWW-Authenticate", "Bearer");
+            res.setContentType("application/json");
+            res.setContentLength(UNAUTHORIZED_BODY.length);
+            res.getOutputStream().write(UNAUTHORIZED_BODY);
+        } else {
+            chain.doFilter(request, response);
+        }
+    }
+
+    private static final class AuthenticatedRequest extends HttpServletRequestWrapper {
+        private final VerifiedToken token;
+        private final Principal principal;
+
+        AuthenticatedRequest(HttpServletRequest request, VerifiedToken token) {
+            super(request);
+            this.token = token;
+            this.principal = token::principal;
+        }
+
+        @Override
+        public Principal getUserPrincipal() {
+            return principal;
+        }
+
+        @Override
+        public String getRemoteUser() {
+            return token.principal();
+        }
+
+        @Override
+        public boolean isUserInRole(String role) {
+            return token.hasRole(role);
+        }
+
+        @Override
+        public String getAuthType() {
+            return "Bearer";
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package cl.duoc.ms_auth.verifier;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caché LRU acotada dividida en segmentos, cada uno con su propio candado,
+ * para que los hilos de un servidor no compitan por un único mapa.
+ *
+ * @param <K> El tipo de las claves.
+ * @param <V> El tipo de los valores.
+ */
+final class StripedLruCache<K, V> {
+
+    private static final int SEGMENTS = 16;
+    private final Segment<K, V>[] segments;
+
+    @SuppressWarnings("unchecked")
+    StripedLruCache(int maxSize) {
+        int perSegment = Math.max(1, maxSize / SEGMENTS);
+        segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) segments[i] = new Segment<>(perSegment);
+    }
+
+    V get(K key) {
+        var segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    void put(K key, V value) {
+        var segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    void remove(K key) {
+        var segment = segmentFor(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    void clear() {
+        for (var segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & (SEGMENTS - 1)];
+    }
+
+    private static final class Segment<K, V> extends LinkedHashMap<K, V> {
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(Math.min(capacity, 1024), 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package cl.duoc.ms_auth.verifier;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.MACVerifier;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Verificador de tokens de ms-auth para servidores de recursos.
+ * <p>
+ * Reproduce las reglas de {@code JwtUtils} de ms-auth (RS256, {@code typ=JWT}, emisor y expiración) y
+ * agrega una caché LRU de tokens ya verificados: un token repetido no vuelve a pasar por RSA ni por el
+ * parseo JSON hasta su expiración. Las autoridades {@code ROLE_*} se construyen una vez por combinación de roles.
+ * <p>
+ * Acepta tanto el perfil de claims legado como el compacto ({@code auth.jwt.claims-profile=compact}); para el
+ * compacto, {@link Builder#compactRoles(List)} debe coincidir con {@code auth.jwt.compact.roles} de ms-auth.
+ * <p>
+ * Con {@link Builder#exchangeTokens(String, String)} acepta además los tokens de {@code /auth/token-exchange}:
+ * HS256 con la clave derivada para este servicio, perfil compacto y {@code aud} igual al nombre de este servicio.
+ */
+public class TokenVerifier implements AutoCloseable {
+
+    private static final int MAX_AUTHORITY_SETS = 1024;
+    private static final Logger logger = LoggerFactory.getLogger(TokenVerifier.class);
+
+    private final JwksKeySource keys;
+    private final String expectedIssuer;
+    private final Duration clockSkew;
+    private final StripedLruCache<String, VerifiedToken> verified;
+    private final List<String> compactRoles;
+    private final String exchangeAudience;
+    private final JWSVerifier exchangeVerifier;
+    private final Map<List<String>, Set<String>> authorities = new ConcurrentHashMap<>();
+
+    TokenVerifier(JwksKeySource keys, String expectedIssuer, Duration clockSkew, int cacheSize, List<String> compactRoles,
+                  String exchangeAudience, JWSVerifier exchangeVerifier) {
+        this.keys = keys;
+        this.compactRoles = List.copyOf(compactRoles);
+        this.exchangeAudience = exchangeAudience;
+        this.exchangeVerifier = exchangeVerifier;
+        this.expectedIssuer = expectedIssuer;
+        this.clockSkew = clockSkew;
+        this.verified = new StripedLruCache<>(cacheSize);
+    }
+
+    /**
+     * Crea un builder para configurar el verificador.
+     *
+     * @param jwksUri La URL del JWKS de ms-auth (por ejemplo {@code https://ms-auth:8080/.well-known/jwks.json}).
+     * @return un nuevo {@link Builder}.
+     */
+    public static Builder builder(String jwksUri) {
+        return new Builder(URI.create(jwksUri));
+    }
+
+    /**
+     * Verifica un token y devuelve sus datos.
+     *
+     * @param token El JWT compacto (sin el prefijo {@code Bearer }).
+     * @return el token verificado, o vacío si es inválido, expiró o no es de este emisor.
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        if (token == null || token.isEmpty()) return Optional.empty();
+        Instant now = Instant.now();
+
+        VerifiedToken cached = verified.get(token);
+        if (cached != null) {
+            if (now.isBefore(cached.expiresAt().plus(clockSkew))) return Optional.of(cached);
+            verified.remove(token);
+            return Optional.empty();
+        }
+
+        try {
+            SignedJWT jwt = SignedJWT.parse(token);
+            var header = jwt.getHeader();
+            // HS256 solo con la clave de intercambio configurada; nunca con la clave pública del JWKS
+            boolean exchange = JWSAlgorithm.HS256.equals(header.getAlgorithm());
+            JWSVerifier verifier;
+            if (exchange) {
+                verifier = exchangeVerifier;
+            } else if (JWSAlgorithm.RS256.equals(header.getAlgorithm())
+                    && Objects.equals(header.getType(), JOSEObjectType.JWT)) {
+                verifier = keys.verifierFor(header.getKeyID());
+            } else {
+                return Optional.empty();
+            }
+            if (verifier == null || !jwt.verify(verifier)) return Optional.empty();
+
+            JWTClaimsSet claims = jwt.getJWTClaimsSet();
+            if (expectedIssuer != null && !expectedIssuer.equals(claims.getIssuer())) return Optional.empty();
+            if (exchange && (claims.getAudience() == null || !claims.getAudience().contains(exchangeAudience))) {
+                return Optional.empty();
+            }
+            Date exp = claims.getExpirationTime();
+            if (exp == null || !now.isBefore(exp.toInstant().plus(clockSkew))) return Optional.empty();
+
+            var result = claims.getClaim("rl") != null
+                    ? fromCompact(claims, exp.toInstant())
+                    : fromLegacy(claims, exp.toInstant());
+            verified.put(token, result);
+            return Optional.of(result);
+        } catch (Exception e) {
+            logger.debug("Token rechazado: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private VerifiedToken fromLegacy(JWTClaimsSet claims, Instant exp) throws java.text.ParseException {
+        List<String> roles = claims.getStringListClaim("roles");
+        roles = roles == null ? List.of() : List.copyOf(roles);
+        return new VerifiedToken(
+                claims.getSubject(),
+                claims.getStringClaim("userId"),
+                roles,
+                claims.getStringClaim("labCode"),
+                exp,
+                authoritiesFor(roles));
+    }
+
+    private VerifiedToken fromCompact(JWTClaimsSet claims, Instant exp) throws java.text.ParseException {
+        long mask = claims.getLongClaim("rl");
+        List<String> roles = new ArrayList<>(4);
+        for (int bit = 0; bit < compactRoles.size() && bit < 63; bit++) {
+            if ((mask & (1L << bit)) != 0) roles.add(compactRoles.get(bit));
+        }
+        List<String> extra = claims.getStringListClaim("rn");
+        if (extra != null) roles.addAll(extra);
+        roles.sort(null);
+        roles = List.copyOf(roles);
+
+        ByteBuffer uid = ByteBuffer.wrap(Base64.getUrlDecoder().decode(claims.getSubject()));
+        if (uid.remaining() != 16) throw new IllegalArgumentException("sub compacto inválido");
+        return new VerifiedToken(
+                null,
+                new UUID(uid.getLong(), uid.getLong()).toString(),
+                roles,
+                claims.getStringClaim("lab"),
+                exp,
+                authoritiesFor(roles));
+    }
+
+    private Set<String> authoritiesFor(List<String> roles) {
+        Set<String> set = authorities.get(roles);
+        if (set != null) return set;
+        Set<String> built = new LinkedHashSet<>();
+        for (String r : roles) built.add("ROLE_" + r);
+        built = Collections.unmodifiableSet(built);
+        if (authorities.size() < MAX_AUTHORITY_SETS) authorities.putIfAbsent(roles, built);
+        return built;
+    }
+
+    /**
+     * Descarta los tokens verificados (por ejemplo, tras una rotación de claves de emergencia).
+     */
+    public void clearCache() {
+        verified.clear();
+    }
+
+    @Override
+    public void close() {
+        keys.close();
+    }
+
+    /**
+     * Builder de {@link TokenVerifier}.
+     */
+    public static final class Builder {
+        private final URI jwksUri;
+        private String issuer = "auth-ms";
+        private Duration refreshInterval = Duration.ofMinutes(5);
+        private Duration minRefreshGap = Duration.ofSeconds(30);
+        private Duration clockSkew = Duration.ofSeconds(30);
+        private int cacheSize = 10_000;
+        private HttpClient httpClient;
+        private List<String> compactRoles = List.of("ADMIN", "LAB_TECH");
+        private String exchangeAudience;
+        private String exchangeKey;
+
+        private Builder(URI jwksUri) {
+            this.jwksUri = jwksUri;
+        }
+
+        /** Emisor esperado ({@code auth.jwt.issuer} de ms-auth); null desactiva la comprobación. */
+        public Builder issuer(String issuer) { this.issuer = issuer; return this; }
+
+        /** Intervalo de refresco del JWKS en segundo plano. */
+        public Builder refreshInterval(Duration refreshInterval) { this.refreshInterval = refreshInterval; return this; }
+
+        /** Tiempo mínimo entre refrescos forzados por un {@code kid} desconocido. */
+        public Builder minRefreshGap(Duration minRefreshGap) { this.minRefreshGap = minRefreshGap; return this; }
+
+        /** Tolerancia de reloj para la expiración. */
+        public Builder clockSkew(Duration clockSkew) { this.clockSkew = clockSkew; return this; }
+
+        /** Máximo de tokens verificados en caché. */
+        public Builder cacheSize(int cacheSize) { this.cacheSize = cacheSize; return this; }
+
+        /** Cliente HTTP propio (TLS, proxy); por defecto uno estándar con timeout de conexión de 5s. */
+        public Builder httpClient(HttpClient httpClient) { this.httpClient = httpClient; return this; }
+
+        /** Orden de bits de roles del perfil compacto; debe coincidir con {@code auth.jwt.compact.roles} de ms-auth. */
+        public Builder compactRoles(List<String> compactRoles) { this.compactRoles = compactRoles; return this; }
+
+        /**
+         * Acepta los tokens de intercambio emitidos para este servicio.
+         *
+         * @param audience El nombre de este servicio, uno de {@code auth.exchange.audiences} de ms-auth.
+         * @param key      La clave de esta audiencia en base64, derivada con {@code scripts/exchange-key.sh} de ms-auth
+         *                 (no el secreto maestro {@code auth.jwt.exchange.hmac-secret}).
+         * @return este builder.
+         */
+        public Builder exchangeTokens(String audience, String key) {
+            this.exchangeAudience = audience;
+            this.exchangeKey = key;
+            return this;
+        }
+
+        /**
+         * Construye el verificador, carga el JWKS e inicia su refresco en segundo plano.
+         *
+         * @return el verificador listo para usar.
+         * @throws IllegalArgumentException si la clave de intercambio no es base64 o tiene menos de 256 bits.
+         */
+        public TokenVerifier build() {
+            JWSVerifier exchangeVerifier = null;
+            if (exchangeKey != null) {
+                try {
+                    exchangeVerifier = new MACVerifier(Base64.getDecoder().decode(exchangeKey.trim()));
+                } catch (JOSEException e) {
+                    throw new IllegalArgumentException("Clave de intercambio inválida: " + e.getMessage(), e);
+                }
+            }
+            HttpClient client = httpClient != null ? httpClient
+                    : HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+            var source = new JwksKeySource(jwksUri, client, refreshInterval, minRefreshGap);
+            source.start();
+            return new TokenVerifier(source, issuer, clockSkew, cacheSize, compactRoles, exchangeAudience, exchangeVerifier);
+        }
+    }
+}
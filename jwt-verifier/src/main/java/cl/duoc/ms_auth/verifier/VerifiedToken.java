@@ -0,0 +1,43 @@
+package cl.duoc.ms_auth.verifier;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Un record que representa un token de ms-auth ya verificado.
+ *
+ * @param subject El nombre de usuario (claim {@code sub}); null en el perfil de claims compacto.
+ * @param userId El ID externo del usuario (claim {@code userId}, o {@code sub} decodificado en el perfil compacto).
+ * @param roles Los roles del usuario, sin prefijo.
+ * @param labCode El código de laboratorio (puede ser null).
+ * @param expiresAt La expiración del token.
+ * @param authorities Los roles con prefijo {@code ROLE_}, precalculados y compartidos entre tokens con los mismos roles.
+ */
+public record VerifiedToken(
+        String subject,
+        String userId,
+        List<String> roles,
+        String labCode,
+        Instant expiresAt,
+        Set<String> authorities
+) {
+    /**
+     * Indica si el token incluye un rol.
+     *
+     * @param role El rol sin prefijo (por ejemplo {@code ADMIN}).
+     * @return true si el rol está presente.
+     */
+    public boolean hasRole(String role) {
+        return roles.contains(role);
+    }
+
+    /**
+     * Nombre del principal: el username, o el userId en el perfil de claims compacto.
+     *
+     * @return el identificador del usuario autenticado.
+     */
+    public String principal() {
+        return subject != null ? subject : userId;
+    }
+}
@@ -0,0 +1,134 @@
+package cl.duoc.ms_auth.verifier;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwksKeySourceTest {
+
+    private static final URI JWKS = URI.create("http://ms-auth/.well-known/jwks.json");
+    private static RSAKey k1;
+    private static RSAKey k2;
+
+    @BeforeAll
+    static void keys() throws Exception {
+        k1 = new RSAKeyGenerator(2048).keyID("k1").generate();
+        k2 = new RSAKeyGenerator(2048).keyID("k2").generate();
+    }
+
+    static String jwks(RSAKey... keys) {
+        List<com.nimbusds.jose.jwk.JWK> pub = new ArrayList<>();
+        for (RSAKey k : keys) pub.add(k.toPublicJWK());
+        return new JWKSet(pub).toString();
+    }
+
+    @Test
+    void looksUpVerifierByKid() {
+        try (var source = new JwksKeySource(JWKS, new StubHttpClient(jwks(k1, k2)), Duration.ofMinutes(5), Duration.ofHours(1))) {
+            assertThat(source.refresh()).isTrue();
+            assertThat(source.verifierFor("k1")).isNotNull();
+            assertThat(source.verifierFor("k2")).isNotNull().isNotSameAs(source.verifierFor("k1"));
+            assertThat(source.verifierFor("k3")).isNull();
+        }
+    }
+
+    @Test
+    void tokensWithoutKidOnlyWhenJwksHasASingleKey() {
+        var http = new StubHttpClient(jwks(k1));
+        try (var source = new JwksKeySource(JWKS, http, Duration.ofMinutes(5), Duration.ZERO)) {
+            source.refresh();
+            assertThat(source.verifierFor(null)).isNotNull();
+
+            http.respond(200, jwks(k1, k2));
+            source.refresh();
+            assertThat(source.verifierFor(null)).isNull();
+        }
+    }
+
+    @Test
+    void failedRefreshKeepsPreviousKeys() {
+        var http = new StubHttpClient(jwks(k1));
+        try (var source = new JwksKeySource(JWKS, http, Duration.ofMinutes(5), Duration.ofHours(1))) {
+            source.refresh();
+            http.respond(503, "");
+            assertThat(source.refresh()).isFalse();
+            assertThat(source.verifierFor("k1")).isNotNull();
+        }
+    }
+
+    @Test
+    void unknownKidForcesOneRefreshPerGap() {
+        var http = new StubHttpClient(jwks(k1));
+        try (var source = new JwksKeySource(JWKS, http, Duration.ofMinutes(5), Duration.ofHours(1))) {
+            // Rotación: el primer kid desconocido descarga el JWKS nuevo
+            http.respond(200, jwks(k1, k2));
+            assertThat(source.verifierFor("k2")).isNotNull();
+            assertThat(source.verifierFor("forged")).isNull();
+            assertThat(source.verifierFor("forged-2")).isNull();
+            assertThat(http.requests.get()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void scheduledRefreshCountsTowardsTheGap() {
+        var http = new StubHttpClient(jwks(k1));
+        try (var source = new JwksKeySource(JWKS, http, Duration.ofMinutes(5), Duration.ofHours(1))) {
+            source.refresh();
+            assertThat(source.verifierFor("forged")).isNull();
+            assertThat(http.requests.get()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void concurrentUnknownKidsShareASingleFetch() throws Exception {
+        var http = new StubHttpClient(jwks(k1));
+        http.delay(300);
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (var source = new JwksKeySource(JWKS, http, Duration.ofMinutes(5), Duration.ofHours(1))) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> calls = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                String kid = "forged-" + i;
+                calls.add(pool.submit(() -> {
+                    start.await();
+                    return source.verifierFor(kid);
+                }));
+            }
+            long t0 = System.nanoTime();
+            start.countDown();
+            for (Future<?> call : calls) assertThat(call.get()).isNull();
+
+            assertThat(http.requests.get()).isEqualTo(1);
+            // Solo el ganador esperó la descarga; el resto respondió sin bloquearse detrás de él
+            assertThat(Duration.ofNanos(System.nanoTime() - t0)).isLessThan(Duration.ofMillis(300L * 2));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void gapElapsedAllowsAnotherForcedRefresh() throws Exception {
+        var http = new StubHttpClient(jwks(k1));
+        try (var source = new JwksKeySource(JWKS, http, Duration.ofMinutes(5), Duration.ofMillis(500))) {
+            assertThat(source.verifierFor("forged")).isNull();
+            assertThat(source.verifierFor("forged")).isNull();
+            Thread.sleep(600);
+            assertThat(source.verifierFor("forged")).isNull();
+            assertThat(http.requests.get()).isEqualTo(2);
+        }
+    }
+}
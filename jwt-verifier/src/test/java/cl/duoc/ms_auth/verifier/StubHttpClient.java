@@ -0,0 +1,107 @@
+package cl.duoc.ms_auth.verifier;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link HttpClient} de prueba que responde siempre el JWKS configurado, con una latencia opcional, y cuenta las
+ * peticiones.
+ */
+class StubHttpClient extends HttpClient {
+
+    final AtomicInteger requests = new AtomicInteger();
+    private volatile String body;
+    private volatile int status = 200;
+    private volatile long delayMillis;
+
+    StubHttpClient(String body) {
+        this.body = body;
+    }
+
+    void respond(int status, String body) {
+        this.status = status;
+        this.body = body;
+    }
+
+    void delay(long millis) {
+        this.delayMillis = millis;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws InterruptedException {
+        requests.incrementAndGet();
+        if (delayMillis > 0) Thread.sleep(delayMillis);
+        return (HttpResponse<T>) new StubResponse(request, status, body);
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler,
+                                                            HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Optional<CookieHandler> cookieHandler() { return Optional.empty(); }
+
+    @Override
+    public Optional<Duration> connectTimeout() { return Optional.empty(); }
+
+    @Override
+    public Redirect followRedirects() { return Redirect.NEVER; }
+
+    @Override
+    public Optional<ProxySelector> proxy() { return Optional.empty(); }
+
+    @Override
+    public SSLContext sslContext() { return null; }
+
+    @Override
+    public SSLParameters sslParameters() { return null; }
+
+    @Override
+    public Optional<Authenticator> authenticator() { return Optional.empty(); }
+
+    @Override
+    public Version version() { return Version.HTTP_1_1; }
+
+    @Override
+    public Optional<Executor> executor() { return Optional.empty(); }
+
+    private record StubResponse(HttpRequest request, int statusCode, String body) implements HttpResponse<String> {
+        @Override
+        public Optional<HttpResponse<String>> previousResponse() { return Optional.empty(); }
+
+        @Override
+        public HttpHeaders headers() { return HttpHeaders.of(Map.of(), (a, b) -> true); }
+
+        @Override
+        public Optional<SSLSession> sslSession() { return Optional.empty(); }
+
+        @Override
+        public URI uri() { return request.uri(); }
+
+        @Override
+        public Version version() { return Version.HTTP_1_1; }
+    }
+}
@@ -0,0 +1,182 @@
+package cl.duoc.ms_auth.verifier;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jose.crypto.MACVerifier;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenVerifierTest {
+
+    private static final String ISSUER = "auth-ms";
+    private static final String AUDIENCE = "ms-labs";
+    private static final List<String> COMPACT_ROLES = List.of("ADMIN", "LAB_TECH");
+    private static RSAKey k1;
+    private static RSAKey k2;
+    private static byte[] exchangeKey;
+
+    private TokenVerifier verifier;
+
+    @BeforeAll
+    static void keys() throws Exception {
+        k1 = new RSAKeyGenerator(2048).keyID("k1").generate();
+        k2 = new RSAKeyGenerator(2048).keyID("k2").generate();
+        exchangeKey = new byte[32];
+        new SecureRandom().nextBytes(exchangeKey);
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        verifier = verifier(JwksKeySourceTest.jwks(k1, k2), new MACVerifier(exchangeKey));
+    }
+
+    @AfterEach
+    void tearDown() {
+        verifier.close();
+    }
+
+    @Test
+    void acceptsLegacyTokenSignedWithAnyPublishedKid() throws Exception {
+        for (RSAKey key : List.of(k1, k2)) {
+            var token = verifier.verify(rs256(key, key.getKeyID(), JOSEObjectType.JWT, legacyClaims())).orElseThrow();
+            assertThat(token.subject()).isEqualTo("tecnico");
+            assertThat(token.roles()).containsExactly("LAB_TECH");
+            assertThat(token.authorities()).containsExactly("ROLE_LAB_TECH");
+            assertThat(token.labCode()).isEqualTo("LAB-01");
+        }
+    }
+
+    @Test
+    void rejectsUnknownKidAndKidOfAnotherKey() throws Exception {
+        RSAKey other = new RSAKeyGenerator(2048).keyID("k1").generate();
+        assertThat(verifier.verify(rs256(k1, "k3", JOSEObjectType.JWT, legacyClaims()))).isEmpty();
+        assertThat(verifier.verify(rs256(other, "k1", JOSEObjectType.JWT, legacyClaims()))).isEmpty();
+    }
+
+    @Test
+    void tokenWithoutKidNeedsASingleKeyJwks() throws Exception {
+        String token = rs256(k1, null, JOSEObjectType.JWT, legacyClaims());
+        assertThat(verifier.verify(token)).isEmpty();
+
+        try (var single = verifier(JwksKeySourceTest.jwks(k1), null)) {
+            assertThat(single.verify(token)).isPresent();
+        }
+    }
+
+    @Test
+    void rs256RequiresTypJwt() throws Exception {
+        assertThat(verifier.verify(rs256(k1, "k1", null, legacyClaims()))).isEmpty();
+        assertThat(verifier.verify(rs256(k1, "k1", new JOSEObjectType("at+jwt"), legacyClaims()))).isEmpty();
+    }
+
+    @Test
+    void rejectsWrongIssuerAndExpiredTokens() throws Exception {
+        var wrongIssuer = new JWTClaimsSet.Builder(legacyClaims()).issuer("other").build();
+        var expired = new JWTClaimsSet.Builder(legacyClaims()).expirationTime(Date.from(Instant.now().minusSeconds(60))).build();
+        assertThat(verifier.verify(rs256(k1, "k1", JOSEObjectType.JWT, wrongIssuer))).isEmpty();
+        assertThat(verifier.verify(rs256(k1, "k1", JOSEObjectType.JWT, expired))).isEmpty();
+    }
+
+    @Test
+    void decodesCompactClaims() throws Exception {
+        UUID userId = UUID.randomUUID();
+        var claims = compactClaims(userId, 0b11, List.of("AUDITOR"), null);
+
+        var token = verifier.verify(rs256(k1, "k1", JOSEObjectType.JWT, claims)).orElseThrow();
+        assertThat(token.subject()).isNull();
+        assertThat(token.userId()).isEqualTo(userId.toString());
+        assertThat(token.principal()).isEqualTo(userId.toString());
+        assertThat(token.roles()).containsExactly("ADMIN", "AUDITOR", "LAB_TECH");
+        assertThat(token.labCode()).isEqualTo("LAB-01");
+    }
+
+    @Test
+    void acceptsExchangeTokenForThisAudience() throws Exception {
+        UUID userId = UUID.randomUUID();
+        var token = verifier.verify(hs256(exchangeKey, compactClaims(userId, 0b10, null, AUDIENCE))).orElseThrow();
+        assertThat(token.userId()).isEqualTo(userId.toString());
+        assertThat(token.roles()).containsExactly("LAB_TECH");
+    }
+
+    @Test
+    void rejectsExchangeTokenForOtherAudienceOrKey() throws Exception {
+        UUID userId = UUID.randomUUID();
+        byte[] otherKey = new byte[32];
+        new SecureRandom().nextBytes(otherKey);
+
+        assertThat(verifier.verify(hs256(exchangeKey, compactClaims(userId, 0b10, null, "ms-other")))).isEmpty();
+        assertThat(verifier.verify(hs256(exchangeKey, compactClaims(userId, 0b10, null, null)))).isEmpty();
+        assertThat(verifier.verify(hs256(otherKey, compactClaims(userId, 0b10, null, AUDIENCE)))).isEmpty();
+    }
+
+    @Test
+    void rejectsHs256WithoutExchangeKeyConfigured() throws Exception {
+        try (var rsaOnly = verifier(JwksKeySourceTest.jwks(k1, k2), null)) {
+            assertThat(rsaOnly.verify(hs256(exchangeKey, compactClaims(UUID.randomUUID(), 0b10, null, AUDIENCE)))).isEmpty();
+        }
+    }
+
+    private static TokenVerifier verifier(String jwks, MACVerifier exchange) {
+        var source = new JwksKeySource(URI.create("http://ms-auth/.well-known/jwks.json"), new StubHttpClient(jwks),
+                Duration.ofMinutes(5), Duration.ofHours(1));
+        source.refresh();
+        return new TokenVerifier(source, ISSUER, Duration.ofSeconds(30), 100, COMPACT_ROLES, AUDIENCE, exchange);
+    }
+
+    private static JWTClaimsSet legacyClaims() {
+        return new JWTClaimsSet.Builder()
+                .issuer(ISSUER)
+                .subject("tecnico")
+                .expirationTime(Date.from(Instant.now().plusSeconds(300)))
+                .claim("userId", UUID.randomUUID().toString())
+                .claim("roles", List.of("LAB_TECH"))
+                .claim("labCode", "LAB-01")
+                .build();
+    }
+
+    private static JWTClaimsSet compactClaims(UUID userId, long mask, List<String> extra, String audience) {
+        byte[] uid = ByteBuffer.allocate(16).putLong(userId.getMostSignificantBits()).putLong(userId.getLeastSignificantBits()).array();
+        return new JWTClaimsSet.Builder()
+                .issuer(ISSUER)
+                .subject(Base64.getUrlEncoder().withoutPadding().encodeToString(uid))
+                .audience(audience)
+                .expirationTime(Date.from(Instant.now().plusSeconds(30)))
+                .claim("rl", mask)
+                .claim("rn", extra)
+                .claim("lab", "LAB-01")
+                .build();
+    }
+
+    private static String rs256(RSAKey key, String kid, JOSEObjectType typ, JWTClaimsSet claims) throws Exception {
+        var jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(kid).type(typ).build(), claims);
+        jwt.sign(new RSASSASigner(key));
+        return jwt.serialize();
+    }
+
+    private static String hs256(byte[] key, JWTClaimsSet claims) throws Exception {
+        var jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.HS256), claims);
+        jwt.sign(new MACSigner(key));
+        return jwt.serialize();
+    }
+}
@@ -0,0 +1,16 @@
+#!/usr/bin/env sh
+# Deriva la clave HS256 de una audiencia de /auth/token-exchange, igual que KeyProvider#exchangeKey:
+# HKDF-SHA256 sin salt sobre el secreto maestro, info "ms-auth token-exchange <audiencia>", 32 bytes.
+# Cada servicio interno recibe solo su clave (TokenVerifier.exchangeTokens de jwt-verifier), nunca el secreto maestro.
+#
+#   AUTH_EXCHANGE_SECRET=<auth.jwt.exchange.hmac-secret> scripts/exchange-key.sh ms-labs
+#
+# Requiere OpenSSL 3 (openssl kdf).
+set -eu
+
+AUDIENCE=${1:?Uso: $0 <audiencia>}
+SECRET=${AUTH_EXCHANGE_SECRET:?Definir AUTH_EXCHANGE_SECRET con el secreto maestro en base64}
+
+HEX=$(printf '%s' "$SECRET" | base64 -d | od -An -tx1 | tr -d ' \n')
+openssl kdf -keylen 32 -kdfopt digest:SHA256 -kdfopt hexkey:"$HEX" \
+    -kdfopt info:"ms-auth token-exchange $AUDIENCE" -binary HKDF | base64
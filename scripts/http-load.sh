@@ -0,0 +1,54 @@
+#!/usr/bin/env sh
+# Prueba de carga HTTP de ms-auth con h2load (nghttp2): mide los mismos endpoints por HTTP/1.1 y por HTTP/2,
+# con y sin gzip, para comparar una instancia con el perfil base contra otra con el perfil "server".
+#
+#   scripts/http-load.sh https://localhost:8080            # instancia con SPRING_PROFILES_ACTIVE=docker,prod
+#   scripts/http-load.sh https://localhost:8080 server     # misma instancia reiniciada con docker,prod,server
+#
+# Variables: LOGIN_USER / LOGIN_PASSWORD (usuario ADMIN, para GET /users y el login), REQUESTS (20000),
+# CLIENTS (64 conexiones), STREAMS (10 streams por conexión en HTTP/2; HTTP/1.1 usa 1).
+# Sin TLS (http://) HTTP/2 va como h2c con prior knowledge. Las líneas "req/s" y "traffic" de h2load
+# muestran throughput y bytes transferidos (el efecto de la compresión).
+set -eu
+
+BASE=${1:?Uso: $0 <url-base> [etiqueta]}
+LABEL=${2:-base}
+REQUESTS=${REQUESTS:-20000}
+CLIENTS=${CLIENTS:-64}
+STREAMS=${STREAMS:-10}
+
+command -v h2load >/dev/null || { echo "Falta h2load (paquete nghttp2-client)"; exit 1; }
+
+TOKEN=""
+if [ -n "${LOGIN_USER:-}" ]; then
+    LOGIN_BODY=$(mktemp)
+    trap 'rm -f "$LOGIN_BODY"' EXIT
+    printf '{"username":"%s","password":"%s"}' "$LOGIN_USER" "${LOGIN_PASSWORD:?Definir LOGIN_PASSWORD}" > "$LOGIN_BODY"
+    TOKEN=$(curl -k -s -H 'Content-Type: application/json' --data-binary "@$LOGIN_BODY" "$BASE/auth/login" \
+        | sed -n 's/.*"token":"\([^"]*\)".*/\1/p')
+    [ -n "$TOKEN" ] || { echo "No se pudo obtener un token con LOGIN_USER"; exit 1; }
+fi
+
+# run <nombre> <h2load args...>: una corrida por HTTP/1.1 y otra por HTTP/2
+run() {
+    name=$1
+    shift
+    for proto in h1 h2; do
+        if [ "$proto" = h1 ]; then flags="--h1 -m 1"; else flags="-m $STREAMS"; fi
+        echo "== [$LABEL] $name $proto"
+        # shellcheck disable=SC2086
+        h2load -n "$REQUESTS" -c "$CLIENTS" $flags "$@" | grep -E "^finished in|^traffic:|^requests:|^status codes:"
+    done
+}
+
+run "jwks" "$BASE/.well-known/jwks.json"
+run "jwks gzip" -H 'Accept-Encoding: gzip' "$BASE/.well-known/jwks.json"
+
+if [ -n "$TOKEN" ]; then
+    run "users" -H "Authorization: Bearer $TOKEN" "$BASE/users"
+    run "users gzip" -H "Authorization: Bearer $TOKEN" -H 'Accept-Encoding: gzip' "$BASE/users"
+    # Login: CPU de BCrypt; muestra el efecto del pool de login y del conector, no de la compresión
+    REQUESTS=$((REQUESTS / 20)) run "login" -d "$LOGIN_BODY" -H 'Content-Type: application/json' "$BASE/auth/login"
+else
+    echo "(sin LOGIN_USER: se omiten GET /users y POST /auth/login)"
+fi
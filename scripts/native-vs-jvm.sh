@@ -0,0 +1,101 @@
+#!/usr/bin/env sh
+# Compara la imagen JVM (Dockerfile) con la nativa (Dockerfile.native): arranque en frío, RSS y
+# throughput de POST /auth/login en régimen estable.
+#
+#   scripts/native-vs-jvm.sh build                 construye ms-auth:jvm y ms-auth:native
+#   scripts/native-vs-jvm.sh startup [corridas]    arranque en frío (por defecto 5 corridas por imagen)
+#   scripts/native-vs-jvm.sh load                  throughput de login y RSS después de la carga (requiere hey)
+#   scripts/native-vs-jvm.sh trace                 corre el jar con el agente de GraalVM (java de GraalVM en PATH)
+#
+# Variables: LOGIN_USER / LOGIN_PASSWORD (usuario real para la carga), DURATION (30s), CONCURRENCY (32),
+# WARMUP (15s, no se mide), SPRING_PROFILES (docker,prod). Ambas imágenes usan el mismo wallet y la misma
+# base, así que correr las dos en la misma máquina y en el mismo momento.
+#
+# "Arranque" es el tiempo desde docker start hasta que /actuator/health responde (cualquier código HTTP);
+# el log "Aplicación lista a N ms del inicio de la JVM" de StartupTimeline da el mismo dato desde adentro.
+# RSS es la suma de VmRSS de los procesos del contenedor.
+set -eu
+
+cd "$(dirname "$0")/.."
+
+PORT=18080
+PROFILES=${SPRING_PROFILES:-docker,prod}
+DURATION=${DURATION:-30s}
+WARMUP=${WARMUP:-15s}
+CONCURRENCY=${CONCURRENCY:-32}
+URL="https://localhost:$PORT"
+
+now_ms() { date +%s%3N; }
+
+rss_kb() {
+    docker exec "$1" sh -c 'cat /proc/[0-9]*/status 2>/dev/null' | awk '/^VmRSS:/ { s += $2 } END { print s }'
+}
+
+start() {
+    docker run -d --rm --name "ms-auth-$1" -p "$PORT:8080" -e SPRING_PROFILES_ACTIVE="$PROFILES" "ms-auth:$1" >/dev/null
+}
+
+stop() {
+    docker stop "ms-auth-$1" >/dev/null 2>&1 || true
+}
+
+wait_ready() {
+    while [ "$(curl -k -s -o /dev/null -w '%{http_code}' "$URL/actuator/health" || true)" = "000" ]; do
+        sleep 0.05
+    done
+}
+
+cmd_build() {
+    docker build -t ms-auth:jvm -f Dockerfile .
+    docker build -t ms-auth:native -f Dockerfile.native .
+}
+
+cmd_startup() {
+    runs=${1:-5}
+    for image in jvm native; do
+        i=1
+        while [ "$i" -le "$runs" ]; do
+            t0=$(now_ms)
+            start "$image"
+            wait_ready
+            t1=$(now_ms)
+            echo "$image corrida $i: listo en $((t1 - t0)) ms, RSS $(($(rss_kb "ms-auth-$image") / 1024)) MB"
+            docker logs "ms-auth-$image" 2>&1 | grep -m1 "Aplicación lista" || true
+            stop "$image"
+            i=$((i + 1))
+        done
+    done
+}
+
+cmd_load() {
+    : "${LOGIN_USER:?Definir LOGIN_USER}"
+    : "${LOGIN_PASSWORD:?Definir LOGIN_PASSWORD}"
+    command -v hey >/dev/null || { echo "Falta hey (https://github.com/rakyll/hey)"; exit 1; }
+    body=$(printf '{"username":"%s","password":"%s"}' "$LOGIN_USER" "$LOGIN_PASSWORD")
+    for image in jvm native; do
+        start "$image"
+        wait_ready
+        hey -z "$WARMUP" -c "$CONCURRENCY" -m POST -T application/json -d "$body" "$URL/auth/login" >/dev/null
+        echo "== $image ($DURATION, $CONCURRENCY conexiones)"
+        hey -z "$DURATION" -c "$CONCURRENCY" -m POST -T application/json -d "$body" "$URL/auth/login" \
+            | grep -E "Requests/sec|Average|99%|\[[0-9]{3}\]"
+        echo "RSS después de la carga: $(($(rss_kb "ms-auth-$image") / 1024)) MB"
+        stop "$image"
+    done
+}
+
+cmd_trace() {
+    # Ejercitar login, JWKS, introspect y CRUD de usuarios contra una base real y detener con Ctrl+C;
+    # la configuración capturada se fusiona en src/main/resources/META-INF/native-image.
+    jar=$(ls target/ms-auth-*.jar | grep -v plain | head -1)
+    java -agentlib:native-image-agent=config-merge-dir=src/main/resources/META-INF/native-image/cl.duoc/ms-auth \
+        -Dspring.profiles.active="$PROFILES" -jar "$jar"
+}
+
+case "${1:-}" in
+    build) cmd_build ;;
+    startup) shift; cmd_startup "$@" ;;
+    load) cmd_load ;;
+    trace) cmd_trace ;;
+    *) sed -n '2,9p' "$0"; exit 1 ;;
+esac
@@ -1,9 +1,12 @@
 package cl.duoc.ms_auth;
 
+import cl.duoc.ms_auth.config.NativeRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class MS_AuthApplication {
 
 	public static void main(String[] args) {
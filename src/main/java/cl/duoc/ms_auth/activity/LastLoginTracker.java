@@ -0,0 +1,102 @@
+package cl.duoc.ms_auth.activity;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registra el último login de cada usuario en {@code USERS.LAST_LOGIN_AT} agrupando escrituras.
+ * <p>
+ * Cada login exitoso solo actualiza un mapa en memoria con el instante más reciente por usuario. Cada
+ * {@code auth.users.last-login.flush-interval-ms} el mapa se escribe en un único {@code UPDATE} por lotes JDBC, de modo
+ * que N logins del mismo usuario en una ventana producen una sola escritura. El {@code UPDATE} no toca
+ * {@code VERSION} ni {@code UPDATED_AT}, así que no compite con las ediciones de administradores.
+ * <p>
+ * Si la escritura falla, los valores vuelven al mapa (sin pisar logins más recientes) y se reintentan en el siguiente
+ * ciclo. Al apagar la aplicación se escriben los pendientes. Tras una caída, se pierden como máximo los logins de una
+ * ventana, lo que basta para expirar cuentas inactivas.
+ */
+@Component
+public class LastLoginTracker {
+
+    // Nunca retrocede: con varias réplicas, un lote atrasado no pisa un login posterior
+    private static final String UPDATE_SQL =
+            "UPDATE USERS SET LAST_LOGIN_AT = ? WHERE ID = ? AND (LAST_LOGIN_AT IS NULL OR LAST_LOGIN_AT < ?)";
+
+    private final JdbcTemplate jdbc;
+    private final ConcurrentMap<Long, Instant> pending;
+    private static final Logger logger = LoggerFactory.getLogger(LastLoginTracker.class);
+
+    @Autowired
+    public LastLoginTracker(JdbcTemplate jdbc, MeterRegistry registry) {
+        this(jdbc, registry, new ConcurrentHashMap<>());
+    }
+
+    LastLoginTracker(JdbcTemplate jdbc, MeterRegistry registry, ConcurrentMap<Long, Instant> pending) {
+        this.jdbc = jdbc;
+        this.pending = pending;
+        Gauge.builder("auth.users.last-login.pending", pending, Map::size)
+                .description("Usuarios con último login pendiente de escribir").register(registry);
+    }
+
+    /**
+     * Registra un login exitoso.
+     *
+     * @param userId El ID del usuario.
+     * @param at     El instante del login.
+     */
+    public void record(Long userId, Instant at) {
+        pending.merge(userId, at, LastLoginTracker::latest);
+    }
+
+    /**
+     * Escribe los últimos logins acumulados en un lote.
+     */
+    @Scheduled(fixedDelayString = "${auth.users.last-login.flush-interval-ms:5000}",
+               initialDelayString = "${auth.users.last-login.flush-interval-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) return;
+        List<Map.Entry<Long, Instant>> batch = new ArrayList<>(pending.size());
+        for (Map.Entry<Long, Instant> e : pending.entrySet()) {
+            // remove(key, value): si llegó un login más nuevo mientras tanto, queda para el siguiente ciclo
+            if (pending.remove(e.getKey(), e.getValue())) batch.add(Map.entry(e.getKey(), e.getValue()));
+        }
+        if (batch.isEmpty()) return;
+        try {
+            jdbc.batchUpdate(UPDATE_SQL, batch, batch.size(), (ps, e) -> {
+                Timestamp at = Timestamp.from(e.getValue());
+                ps.setTimestamp(1, at);
+                ps.setLong(2, e.getKey());
+                ps.setTimestamp(3, at);
+            });
+            logger.debug("LAST_LOGIN_AT actualizado para {} usuarios.", batch.size());
+        } catch (DataAccessException ex) {
+            for (Map.Entry<Long, Instant> e : batch) pending.merge(e.getKey(), e.getValue(), LastLoginTracker::latest);
+            logger.warn("No se pudo actualizar LAST_LOGIN_AT de {} usuarios, se reintenta: {}", batch.size(), ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+
+    private static Instant latest(Instant a, Instant b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
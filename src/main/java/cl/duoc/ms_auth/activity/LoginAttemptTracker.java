@@ -0,0 +1,161 @@
+package cl.duoc.ms_auth.activity;
+
+import cl.duoc.ms_auth.cache.CacheInvalidationBus;
+import cl.duoc.ms_auth.cache.CacheRegions;
+import cl.duoc.ms_auth.entidades.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Bloqueo temporal de cuentas tras varios logins fallidos.
+ * <p>
+ * Los intentos fallidos se cuentan en memoria por usuario ({@link ConcurrentHashMap#compute}, que solo bloquea el
+ * bin de la clave): un login fallido no escribe en la base de datos. Al llegar a {@code auth.login.lockout.max-failures}
+ * fallos dentro de {@code auth.login.lockout.window}, la cuenta se bloquea por {@code auth.login.lockout.duration} y
+ * solo entonces se escribe {@code USERS.LOCKED_UNTIL}, para que las demás réplicas también la rechacen. Como la
+ * escritura va por JDBC, después del commit se desaloja el usuario de la caché L2 local y se publica
+ * {@link CacheRegions#USERS} para que las demás réplicas lo desalojen de la suya y lean el bloqueo.
+ * <p>
+ * Los contadores son por réplica: con N réplicas un atacante puede probar como máximo N veces el límite antes de que
+ * {@code LOCKED_UNTIL} bloquee la cuenta en todas.
+ */
+@Component
+public class LoginAttemptTracker {
+
+    private static final String LOCK_SQL = "UPDATE USERS SET LOCKED_UNTIL = ? WHERE ID = ?";
+
+    private record Attempts(int failures, long windowStart, long lockedUntil) {}
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate writeTx;
+    private final EntityManagerFactory emf;
+    private final CacheInvalidationBus invalidationBus;
+    private final LongSupplier clock;
+    private final int maxFailures;
+    private final long windowMillis;
+    private final long lockMillis;
+    private final Map<Long, Attempts> attempts = new ConcurrentHashMap<>();
+    private final Counter lockouts;
+    private static final Logger logger = LoggerFactory.getLogger(LoginAttemptTracker.class);
+
+    @Autowired
+    public LoginAttemptTracker(JdbcTemplate jdbc, PlatformTransactionManager txManager, EntityManagerFactory emf,
+                               CacheInvalidationBus invalidationBus, MeterRegistry registry,
+                               @Value("${auth.login.lockout.max-failures:5}") int maxFailures,
+                               @Value("${auth.login.lockout.window:15m}") Duration window,
+                               @Value("${auth.login.lockout.duration:15m}") Duration duration) {
+        this(jdbc, txManager, emf, invalidationBus, registry, maxFailures, window, duration, System::currentTimeMillis);
+    }
+
+    // clock: reloj en milisegundos, reemplazable en las pruebas
+    LoginAttemptTracker(JdbcTemplate jdbc, PlatformTransactionManager txManager, EntityManagerFactory emf,
+                        CacheInvalidationBus invalidationBus, MeterRegistry registry,
+                        int maxFailures, Duration window, Duration duration, LongSupplier clock) {
+        this.jdbc = jdbc;
+        this.emf = emf;
+        this.invalidationBus = invalidationBus;
+        this.clock = clock;
+        // El login corre en una transacción de solo lectura (posiblemente en la réplica): el bloqueo va en una propia
+        this.writeTx = new TransactionTemplate(txManager);
+        this.writeTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxFailures = maxFailures;
+        this.windowMillis = window.toMillis();
+        this.lockMillis = duration.toMillis();
+        this.lockouts = Counter.builder("auth.login.lockouts").description("Cuentas bloqueadas por logins fallidos")
+                .register(registry);
+    }
+
+    /**
+     * Indica si la cuenta está bloqueada, según esta réplica o según {@code LOCKED_UNTIL}.
+     *
+     * @param userId           El ID del usuario.
+     * @param storedLockedUntil El valor de {@code LOCKED_UNTIL} leído con el usuario, o null.
+     * @return el instante hasta el que está bloqueada, o null si no lo está.
+     */
+    public Instant lockedUntil(Long userId, LocalDateTime storedLockedUntil) {
+        long now = clock.getAsLong();
+        Attempts a = attempts.get(userId);
+        if (a != null && a.lockedUntil() > now) return Instant.ofEpochMilli(a.lockedUntil());
+        if (storedLockedUntil != null) {
+            Instant stored = storedLockedUntil.atZone(ZoneId.systemDefault()).toInstant();
+            if (stored.toEpochMilli() > now) return stored;
+        }
+        return null;
+    }
+
+    /**
+     * Registra un login fallido por contraseña incorrecta.
+     *
+     * @param userId El ID del usuario.
+     * @return el instante de fin del bloqueo si este fallo bloqueó la cuenta, o null.
+     */
+    public Instant recordFailure(Long userId) {
+        long now = clock.getAsLong();
+        Attempts next = attempts.compute(userId, (id, a) -> {
+            if (a == null || now - a.windowStart() >= windowMillis || (a.lockedUntil() != 0 && a.lockedUntil() <= now)) {
+                a = new Attempts(0, now, 0);
+            }
+            int failures = a.failures() + 1;
+            long lockedUntil = failures < maxFailures ? 0 : a.lockedUntil() != 0 ? a.lockedUntil() : now + lockMillis;
+            return new Attempts(failures, a.windowStart(), lockedUntil);
+        });
+        if (next.failures() != maxFailures) return null;
+
+        // Cambio de estado: único momento en que se escribe
+        Instant until = Instant.ofEpochMilli(next.lockedUntil());
+        lockouts.increment();
+        try {
+            writeTx.executeWithoutResult(status -> {
+                jdbc.update(LOCK_SQL, Timestamp.from(until), userId);
+                invalidationBus.publish(CacheRegions.USERS, userId);
+            });
+            // Ya confirmado: un lector concurrente no puede volver a cachear el valor anterior de LOCKED_UNTIL
+            emf.getCache().evict(User.class, userId);
+        } catch (DataAccessException e) {
+            // El bloqueo sigue vigente en esta réplica
+            logger.warn("No se pudo persistir el bloqueo del usuario con ID {}: {}", userId, e.getMessage());
+        }
+        logger.warn("Usuario con ID {} bloqueado hasta {} tras {} logins fallidos.", userId, until, maxFailures);
+        return until;
+    }
+
+    /**
+     * Reinicia el contador tras un login exitoso.
+     *
+     * @param userId El ID del usuario.
+     */
+    public void recordSuccess(Long userId) {
+        attempts.remove(userId);
+    }
+
+    /**
+     * Descarta los contadores con ventana y bloqueo vencidos, para que el mapa no crezca sin límite.
+     */
+    @Scheduled(fixedDelayString = "${auth.login.lockout.purge-interval-ms:60000}",
+               initialDelayString = "${auth.login.lockout.purge-interval-ms:60000}")
+    public void purge() {
+        long now = clock.getAsLong();
+        attempts.values().removeIf(a -> now - a.windowStart() >= windowMillis && a.lockedUntil() <= now);
+    }
+}
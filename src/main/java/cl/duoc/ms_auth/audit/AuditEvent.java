@@ -0,0 +1,16 @@
+package cl.duoc.ms_auth.audit;
+
+import java.time.Instant;
+
+/**
+ * Un evento de auditoría.
+ *
+ * @param time     El instante del evento.
+ * @param type     El tipo de evento.
+ * @param actor    Quién lo originó (el username del login o el administrador autenticado).
+ * @param subject  Sobre quién se aplicó (ID externo o interno del usuario), si corresponde.
+ * @param detail   Detalle breve (por ejemplo, la razón de un login fallido).
+ * @param clientIp La IP del cliente HTTP, si se conoce.
+ */
+public record AuditEvent(Instant time, AuditEventType type, String actor, String subject, String detail,
+                         String clientIp) {}
@@ -0,0 +1,12 @@
+package cl.duoc.ms_auth.audit;
+
+/**
+ * Tipos de evento registrados en {@code AUTH_AUDIT}.
+ */
+public enum AuditEventType {
+    LOGIN_SUCCESS,
+    LOGIN_FAILURE,
+    USER_CREATED,
+    USER_UPDATED,
+    USER_DELETED
+}
@@ -0,0 +1,96 @@
+package cl.duoc.ms_auth.audit;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cola acotada sin locks, de varios productores y un solo consumidor, para los eventos de auditoría.
+ * <p>
+ * Cada celda lleva un número de secuencia (esquema de D. Vyukov): un productor reserva una posición con un CAS sobre
+ * {@code tail} y publica el evento avanzando la secuencia de la celda; el consumidor solo lee celdas cuya secuencia
+ * indica que están publicadas. Con la cola llena {@link #offer} devuelve false de inmediato, sin bloquear.
+ */
+final class AuditRingBuffer {
+
+    private static final VarHandle SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final AuditEvent[] events;
+    private final long[] sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head; // solo lo escribe el consumidor
+
+    /**
+     * @param capacity La capacidad; se redondea a la siguiente potencia de 2.
+     */
+    AuditRingBuffer(int capacity) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.events = new AuditEvent[size];
+        this.sequences = new long[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) sequences[i] = i;
+    }
+
+    int capacity() {
+        return events.length;
+    }
+
+    /**
+     * Encola un evento.
+     *
+     * @param event El evento.
+     * @return la cantidad de eventos en cola tras encolarlo, o -1 si la cola está llena.
+     */
+    int offer(AuditEvent event) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) pos & mask;
+            long seq = (long) SEQUENCE.getAcquire(sequences, index);
+            long diff = seq - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    events[index] = event;
+                    SEQUENCE.setRelease(sequences, index, pos + 1);
+                    return (int) (pos + 1 - head);
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return -1; // la celda aún no se consume: cola llena
+            } else {
+                pos = tail.get(); // otro productor tomó la posición
+            }
+        }
+    }
+
+    /**
+     * Mueve hasta {@code max} eventos publicados a la lista. Solo debe llamarlo el hilo consumidor.
+     *
+     * @param out La lista de destino.
+     * @param max El máximo de eventos a mover.
+     * @return la cantidad de eventos movidos.
+     */
+    int drainTo(List<AuditEvent> out, int max) {
+        long h = head;
+        int n = 0;
+        while (n < max) {
+            int index = (int) h & mask;
+            if ((long) SEQUENCE.getAcquire(sequences, index) != h + 1) break;
+            out.add(events[index]);
+            events[index] = null;
+            SEQUENCE.setRelease(sequences, index, h + events.length);
+            h++;
+            n++;
+        }
+        head = h;
+        return n;
+    }
+
+    /**
+     * Cantidad aproximada de eventos en cola (para métricas).
+     */
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+}
@@ -0,0 +1,235 @@
+package cl.duoc.ms_auth.audit;
+
+import cl.duoc.ms_auth.cache.CacheInvalidationBus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Registro de auditoría asíncrono: logins, logins fallidos y cambios de usuarios hechos por administradores.
+ * <p>
+ * {@link #record} no hace I/O: encola el evento en un {@link AuditRingBuffer} y vuelve. Un hilo escritor
+ * ({@code audit-writer}) vacía la cola en lotes con un {@code INSERT} por lotes JDBC a {@code AUTH_AUDIT}.
+ * Un lote se escribe al completar {@code auth.audit.batch-size} eventos o cuando su evento más antiguo cumple
+ * {@code auth.audit.flush-interval-ms}, lo que acota la latencia de escritura.
+ * <p>
+ * Si Oracle falla, el lote se agrega a un archivo local ({@code auth.audit.fallback-file}, una línea TSV por
+ * evento) y durante {@code auth.audit.db-retry-interval-ms} los lotes van directo al archivo, para no esperar el
+ * timeout de conexión en cada lote. Con la cola llena el evento se descarta y se cuenta en
+ * {@code auth.audit.events{result=dropped}}: la auditoría nunca frena el login.
+ * <p>
+ * Métricas: {@code auth.audit.queue.size}, {@code auth.audit.events{result=enqueued|dropped}},
+ * {@code auth.audit.written{sink=db|file}}, {@code auth.audit.lost} y {@code auth.audit.flush{sink}}.
+ */
+@Component
+public class AuditTrail {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO AUTH_AUDIT (EVENT_TIME, EVENT_TYPE, ACTOR, SUBJECT, DETAIL, CLIENT_IP, NODE_ID) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbc;
+    private final String nodeId;
+    private final AuditRingBuffer ring;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long dbRetryIntervalNanos;
+    private final Path fallbackFile;
+    private final Counter enqueued;
+    private final Counter dropped;
+    private final Counter writtenDb;
+    private final Counter writtenFile;
+    private final Counter lost;
+    private final Timer flushDb;
+    private final Timer flushFile;
+    private final AtomicLong lastDropWarning = new AtomicLong();
+    private volatile boolean running;
+    private volatile Thread writer;
+    private long dbRetryAt;
+    private static final Logger logger = LoggerFactory.getLogger(AuditTrail.class);
+
+    public AuditTrail(JdbcTemplate jdbc, CacheInvalidationBus bus, MeterRegistry registry,
+                      @Value("${auth.audit.buffer-size:8192}") int bufferSize,
+                      @Value("${auth.audit.batch-size:200}") int batchSize,
+                      @Value("${auth.audit.flush-interval-ms:200}") long flushIntervalMs,
+                      @Value("${auth.audit.db-retry-interval-ms:30000}") long dbRetryIntervalMs,
+                      @Value("${auth.audit.fallback-file:logs/auth-audit.tsv}") String fallbackFile) {
+        this.jdbc = jdbc;
+        this.nodeId = bus.nodeId();
+        this.ring = new AuditRingBuffer(bufferSize);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.dbRetryIntervalNanos = TimeUnit.MILLISECONDS.toNanos(dbRetryIntervalMs);
+        this.fallbackFile = Path.of(fallbackFile);
+
+        Gauge.builder("auth.audit.queue.size", ring, AuditRingBuffer::size)
+                .description("Eventos de auditoría en cola").register(registry);
+        this.enqueued = Counter.builder("auth.audit.events").tag("result", "enqueued").register(registry);
+        this.dropped = Counter.builder("auth.audit.events").tag("result", "dropped").register(registry);
+        this.writtenDb = Counter.builder("auth.audit.written").tag("sink", "db").register(registry);
+        this.writtenFile = Counter.builder("auth.audit.written").tag("sink", "file").register(registry);
+        this.lost = Counter.builder("auth.audit.lost").description("Eventos que no se pudieron escribir").register(registry);
+        this.flushDb = Timer.builder("auth.audit.flush").tag("sink", "db").register(registry);
+        this.flushFile = Timer.builder("auth.audit.flush").tag("sink", "file").register(registry);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        Thread t = new Thread(this::writeLoop, "audit-writer");
+        t.setDaemon(true);
+        writer = t;
+        t.start();
+        logger.info("Auditoría asíncrona activa (cola de {} eventos, lotes de {}).", ring.capacity(), batchSize);
+    }
+
+    /**
+     * Detiene el escritor después de escribir los eventos pendientes.
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        Thread t = writer;
+        if (t == null) return;
+        LockSupport.unpark(t);
+        t.join(TimeUnit.SECONDS.toMillis(10));
+        if (ring.size() > 0) logger.warn("Auditoría detenida con {} eventos sin escribir.", ring.size());
+    }
+
+    /**
+     * Registra un evento sin bloquear. La IP del cliente se toma de la petición HTTP en curso, si la hay.
+     *
+     * @param type    El tipo de evento.
+     * @param actor   Quién lo originó.
+     * @param subject Sobre quién se aplicó, o null.
+     * @param detail  Detalle breve, o null.
+     */
+    public void record(AuditEventType type, String actor, String subject, String detail) {
+        var event = new AuditEvent(Instant.now(), type, actor, subject, detail, currentClientIp());
+        int queued = ring.offer(event);
+        if (queued < 0) {
+            dropped.increment();
+            long now = System.nanoTime();
+            long last = lastDropWarning.get();
+            if (now - last > TimeUnit.SECONDS.toNanos(10) && lastDropWarning.compareAndSet(last, now)) {
+                logger.warn("Cola de auditoría llena ({} eventos): se descartan eventos.", ring.capacity());
+            }
+            return;
+        }
+        enqueued.increment();
+        // Lote completo: despierta al escritor sin esperar el intervalo
+        if (queued == batchSize) LockSupport.unpark(writer);
+    }
+
+    private void writeLoop() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        long oldestAt = 0;
+        while (true) {
+            boolean stopping = !running;
+            if (batch.size() < batchSize) {
+                int before = batch.size();
+                ring.drainTo(batch, batchSize - before);
+                if (before == 0 && !batch.isEmpty()) oldestAt = System.nanoTime();
+            }
+            long waited = System.nanoTime() - oldestAt;
+            if (!batch.isEmpty() && (batch.size() >= batchSize || waited >= flushIntervalNanos || stopping)) {
+                flush(batch);
+                batch.clear();
+                continue;
+            }
+            if (stopping) return;
+            LockSupport.parkNanos(this, batch.isEmpty() ? flushIntervalNanos : flushIntervalNanos - waited);
+        }
+    }
+
+    private void flush(List<AuditEvent> batch) {
+        long start = System.nanoTime();
+        if (start - dbRetryAt >= 0) {
+            try {
+                jdbc.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, e) -> {
+                    ps.setTimestamp(1, Timestamp.from(e.time()));
+                    ps.setString(2, e.type().name());
+                    ps.setString(3, truncate(e.actor(), 200));
+                    ps.setString(4, truncate(e.subject(), 200));
+                    ps.setString(5, truncate(e.detail(), 400));
+                    ps.setString(6, truncate(e.clientIp(), 45));
+                    ps.setString(7, nodeId);
+                });
+                writtenDb.increment(batch.size());
+                flushDb.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return;
+            } catch (DataAccessException e) {
+                dbRetryAt = System.nanoTime() + dbRetryIntervalNanos;
+                logger.warn("No se pudo escribir la auditoría en AUTH_AUDIT, se usa {}: {}", fallbackFile, e.getMessage());
+            }
+        }
+        start = System.nanoTime();
+        try {
+            appendToFile(batch);
+            writtenFile.increment(batch.size());
+            flushFile.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } catch (IOException | RuntimeException e) {
+            lost.increment(batch.size());
+            logger.error("Se perdieron {} eventos de auditoría: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    private void appendToFile(List<AuditEvent> batch) throws IOException {
+        StringBuilder sb = new StringBuilder(batch.size() * 128);
+        for (AuditEvent e : batch) {
+            sb.append(e.time()).append('\t').append(e.type()).append('\t')
+                    .append(tsv(e.actor())).append('\t').append(tsv(e.subject())).append('\t')
+                    .append(tsv(e.detail())).append('\t').append(tsv(e.clientIp())).append('\t')
+                    .append(nodeId).append('\n');
+        }
+        Path parent = fallbackFile.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        try (OutputStream out = Files.newOutputStream(fallbackFile,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE)) {
+            out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String tsv(String value) {
+        if (value == null) return "";
+        return value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private static String truncate(String value, int max) {
+        return value == null || value.length() <= max ? value : value.substring(0, max);
+    }
+
+    private static String currentClientIp() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attrs) {
+            HttpServletRequest request = attrs.getRequest();
+            return request.getRemoteAddr();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,78 @@
+package cl.duoc.ms_auth.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Base común de los transportes: mantiene el registro de listeners por región y
+ * entrega los eventos locales después del commit de la transacción en curso.
+ */
+public abstract class AbstractCacheInvalidationBus implements CacheInvalidationBus {
+
+    private final String nodeId;
+    private final Map<String, List<Consumer<InvalidationEvent>>> listeners = new ConcurrentHashMap<>();
+    private static final Logger logger = LoggerFactory.getLogger(AbstractCacheInvalidationBus.class);
+
+    protected AbstractCacheInvalidationBus(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void subscribe(String region, Consumer<InvalidationEvent> listener) {
+        listeners.computeIfAbsent(region, r -> new CopyOnWriteArrayList<>()).add(listener);
+        logger.debug("Listener de invalidación registrado para la región: {}", region);
+    }
+
+    @Override
+    public void publish(String region, Object key) {
+        var event = new InvalidationEvent(region, key == null ? null : key.toString(), nodeId);
+        send(event);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(event);
+                }
+            });
+        } else {
+            dispatch(event);
+        }
+    }
+
+    /**
+     * Envía el evento a las demás réplicas.
+     *
+     * @param event El evento a transmitir.
+     */
+    protected abstract void send(InvalidationEvent event);
+
+    /**
+     * Entrega un evento a los listeners de su región. Los errores de un listener no afectan a los demás.
+     *
+     * @param event El evento a entregar.
+     */
+    protected void dispatch(InvalidationEvent event) {
+        var regionListeners = listeners.get(event.region());
+        if (regionListeners == null) return;
+        for (var listener : regionListeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                logger.warn("Error aplicando invalidación {}:{}: {}", event.region(), event.key(), e.getMessage());
+            }
+        }
+    }
+}
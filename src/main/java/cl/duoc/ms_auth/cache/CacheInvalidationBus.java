@@ -0,0 +1,35 @@
+package cl.duoc.ms_auth.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Canal de invalidación de cachés entre las réplicas de ms-auth.
+ * Las mutaciones publican eventos y cada réplica los aplica a sus cachés en proceso
+ * dentro de un retardo acotado que depende del transporte.
+ */
+public interface CacheInvalidationBus {
+
+    /**
+     * Publica la invalidación de una clave. Si hay una transacción activa, la entrega local
+     * ocurre después del commit.
+     *
+     * @param region La región de caché (ver {@link CacheRegions}).
+     * @param key    La clave a invalidar, o null para la región completa.
+     */
+    void publish(String region, Object key);
+
+    /**
+     * Registra un listener que recibe los eventos de una región, tanto locales como remotos.
+     *
+     * @param region   La región de interés.
+     * @param listener El callback a ejecutar por cada evento.
+     */
+    void subscribe(String region, Consumer<InvalidationEvent> listener);
+
+    /**
+     * Identificador de esta réplica dentro del clúster.
+     *
+     * @return el ID de nodo usado como origen de los eventos.
+     */
+    String nodeId();
+}
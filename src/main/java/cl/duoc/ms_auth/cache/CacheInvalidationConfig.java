@@ -0,0 +1,80 @@
+package cl.duoc.ms_auth.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Clase de configuración del bus de invalidación de cachés.
+ * El transporte se elige con {@code auth.cache.invalidation.transport} ({@code oracle} por defecto o {@code local}).
+ */
+@Configuration
+@EnableScheduling
+public class CacheInvalidationConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationConfig.class);
+
+    /**
+     * Define el bus basado en la tabla {@code CACHE_INVALIDATIONS} de Oracle.
+     *
+     * @param jdbc             El {@link JdbcTemplate} de la aplicación.
+     * @param nodeId           El ID de nodo configurado; si está vacío se genera uno.
+     * @param lookbackSeconds  Ventana de eventos revisada en cada consulta.
+     * @param retentionMinutes Retención de eventos antes de purgarlos.
+     * @param txTimeout        El timeout por defecto de las transacciones; debe ser menor que la ventana.
+     * @return el bus de invalidación.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "auth.cache.invalidation.transport", havingValue = "oracle", matchIfMissing = true)
+    public CacheInvalidationBus oracleCacheInvalidationBus(
+            JdbcTemplate jdbc,
+            @Value("${auth.cache.invalidation.node-id:}") String nodeId,
+            @Value("${auth.cache.invalidation.lookback-seconds:30}") long lookbackSeconds,
+            @Value("${auth.cache.invalidation.retention-minutes:60}") long retentionMinutes,
+            @Value("${spring.transaction.default-timeout:}") Duration txTimeout) {
+        if (txTimeout == null || txTimeout.toSeconds() >= lookbackSeconds) {
+            // Una transacción que confirma fuera de la ventana publica eventos que ninguna réplica verá
+            logger.warn("spring.transaction.default-timeout ({}) no es menor que la ventana de invalidaciones ({}s).",
+                    txTimeout == null ? "sin límite" : txTimeout, lookbackSeconds);
+        }
+        String node = resolveNodeId(nodeId);
+        logger.info("Bus de invalidación Oracle activo para el nodo: {}", node);
+        return new OracleCacheInvalidationBus(jdbc, node, lookbackSeconds, retentionMinutes);
+    }
+
+    /**
+     * Define el bus en proceso para despliegues de una sola réplica.
+     *
+     * @param nodeId El ID de nodo configurado; si está vacío se genera uno.
+     * @return el bus de invalidación.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "auth.cache.invalidation.transport", havingValue = "local")
+    public CacheInvalidationBus localCacheInvalidationBus(@Value("${auth.cache.invalidation.node-id:}") String nodeId) {
+        String node = resolveNodeId(nodeId);
+        logger.info("Bus de invalidación local activo para el nodo: {}", node);
+        return new LocalCacheInvalidationBus(node);
+    }
+
+    private static String resolveNodeId(String configured) {
+        if (configured != null && !configured.isBlank()) return configured;
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        // El sufijo aleatorio distingue reinicios del mismo host.
+        String id = host + "-" + UUID.randomUUID().toString().substring(0, 8);
+        return id.length() > 64 ? id.substring(id.length() - 64) : id;
+    }
+}
@@ -0,0 +1,25 @@
+package cl.duoc.ms_auth.cache;
+
+import java.util.List;
+
+/**
+ * Nombres de las regiones de caché que se invalidan a nivel de clúster.
+ * Son compartidos por quienes publican y quienes escuchan eventos en el {@link CacheInvalidationBus}.
+ */
+public final class CacheRegions {
+
+    /** Datos de usuarios (entidad, estado ACTIVE, índices derivados). La clave es el ID interno. */
+    public static final String USERS = "users";
+
+    /** Catálogo de roles. La clave es el ID del rol. */
+    public static final String ROLES = "roles";
+
+    /** Estado asociado a tokens emitidos para un usuario. La clave es el externalId. */
+    public static final String TOKENS = "tokens";
+
+    /** Todas las regiones, para invalidarlas en bloque. */
+    public static final List<String> ALL = List.of(USERS, ROLES, TOKENS);
+
+    private CacheRegions() {
+    }
+}
@@ -0,0 +1,23 @@
+package cl.duoc.ms_auth.cache;
+
+/**
+ * Un record que representa un evento compacto de invalidación de caché.
+ *
+ * @param region La región de caché afectada (ver {@link CacheRegions}).
+ * @param key    La clave a invalidar dentro de la región, o null para invalidar la región completa.
+ * @param origin El identificador de la réplica que publicó el evento.
+ */
+public record InvalidationEvent(
+        String region,
+        String key,
+        String origin
+) {
+    /**
+     * Indica si el evento invalida la región completa.
+     *
+     * @return true si el evento no tiene clave.
+     */
+    public boolean isRegionWide() {
+        return key == null;
+    }
+}
@@ -0,0 +1,16 @@
+package cl.duoc.ms_auth.cache;
+
+/**
+ * Transporte para despliegues de una sola réplica: los eventos solo se entregan en proceso.
+ */
+public class LocalCacheInvalidationBus extends AbstractCacheInvalidationBus {
+
+    public LocalCacheInvalidationBus(String nodeId) {
+        super(nodeId);
+    }
+
+    @Override
+    protected void send(InvalidationEvent event) {
+        // Sin otras réplicas a las que avisar.
+    }
+}
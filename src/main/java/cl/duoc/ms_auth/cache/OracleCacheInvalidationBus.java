@@ -0,0 +1,141 @@
+package cl.duoc.ms_auth.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Transporte por defecto basado en la tabla {@code CACHE_INVALIDATIONS} de Oracle.
+ * Cada publicación inserta una fila (dentro de la transacción de la mutación, si existe) y
+ * cada réplica consulta periódicamente las filas recientes de otros nodos.
+ * <p>
+ * La consulta usa una ventana de tiempo ({@code lookback}) en lugar del último ID visto, porque
+ * con transacciones concurrentes un ID menor puede hacerse visible después de uno mayor.
+ * Los IDs ya aplicados se recuerdan para no repetir la entrega.
+ * <p>
+ * Un evento queda fuera de la ventana si su transacción confirma más de {@code lookback} después del INSERT
+ * (lo evita {@code spring.transaction.default-timeout}, menor que la ventana) o si esta réplica pasa más de
+ * {@code lookback} sin consultar con éxito (base caída, pool agotado). En el segundo caso, la primera consulta
+ * exitosa invalida todas las regiones completas, porque no se sabe qué eventos se perdieron.
+ */
+public class OracleCacheInvalidationBus extends AbstractCacheInvalidationBus {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO CACHE_INVALIDATIONS (REGION, CACHE_KEY, ORIGIN) VALUES (?, ?, ?)";
+    private static final String POLL_SQL =
+            "SELECT ID, REGION, CACHE_KEY, ORIGIN FROM CACHE_INVALIDATIONS " +
+            "WHERE CREATED_AT > SYSTIMESTAMP - NUMTODSINTERVAL(?, 'SECOND') AND ORIGIN <> ? ORDER BY ID";
+    private static final String PURGE_SQL =
+            "DELETE FROM CACHE_INVALIDATIONS WHERE CREATED_AT < SYSTIMESTAMP - NUMTODSINTERVAL(?, 'MINUTE')";
+    private static final int SEEN_CAPACITY = 10_000;
+    private static final long FAILURE_LOG_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+    // Origen de las invalidaciones por ventana perdida: distinto de nodeId() para que los listeners que ignoran
+    // los eventos propios (caché L2) también las apliquen
+    static final String GAP_ORIGIN = "poll-gap";
+
+    private final JdbcTemplate jdbc;
+    private final long lookbackSeconds;
+    private final long retentionMinutes;
+    private final LongSupplier nanoClock;
+    private long lastPollNanos;      // inicio de la última consulta exitosa (solo lo usa el hilo del scheduler)
+    private long lastFailureLogNanos;
+    private int failuresSinceLog;
+    private final Map<Long, Boolean> seen = new LinkedHashMap<>(256, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > SEEN_CAPACITY;
+        }
+    };
+    private static final Logger logger = LoggerFactory.getLogger(OracleCacheInvalidationBus.class);
+
+    /**
+     * @param jdbc             Acceso JDBC al esquema de ms-auth.
+     * @param nodeId           Identificador de esta réplica.
+     * @param lookbackSeconds  Ventana de eventos revisada en cada consulta.
+     * @param retentionMinutes Antigüedad a partir de la cual se purgan los eventos.
+     */
+    public OracleCacheInvalidationBus(JdbcTemplate jdbc, String nodeId, long lookbackSeconds, long retentionMinutes) {
+        this(jdbc, nodeId, lookbackSeconds, retentionMinutes, System::nanoTime);
+    }
+
+    // nanoClock: reloj monótono, reemplazable en las pruebas
+    OracleCacheInvalidationBus(JdbcTemplate jdbc, String nodeId, long lookbackSeconds, long retentionMinutes,
+                               LongSupplier nanoClock) {
+        super(nodeId);
+        this.jdbc = jdbc;
+        this.lookbackSeconds = lookbackSeconds;
+        this.retentionMinutes = retentionMinutes;
+        this.nanoClock = nanoClock;
+        // Al arrancar las cachés están vacías: no hay nada anterior que invalidar
+        this.lastPollNanos = nanoClock.getAsLong();
+        this.lastFailureLogNanos = lastPollNanos - FAILURE_LOG_INTERVAL_NANOS;
+    }
+
+    @Override
+    protected void send(InvalidationEvent event) {
+        try {
+            jdbc.update(INSERT_SQL, event.region(), event.key(), event.origin());
+        } catch (DataAccessException e) {
+            // Las demás réplicas convergen por expiración de sus cachés.
+            logger.warn("No se pudo publicar la invalidación {}:{}: {}", event.region(), event.key(), e.getMessage());
+        }
+    }
+
+    /**
+     * Consulta y aplica los eventos publicados por otras réplicas.
+     * El intervalo de consulta define el retardo máximo de propagación.
+     */
+    @Scheduled(fixedDelayString = "${auth.cache.invalidation.poll-interval-ms:1000}",
+               initialDelayString = "${auth.cache.invalidation.poll-interval-ms:1000}")
+    public void poll() {
+        long start = nanoClock.getAsLong();
+        try {
+            jdbc.query(POLL_SQL, rs -> {
+                long id = rs.getLong("ID");
+                if (seen.put(id, Boolean.TRUE) == null) {
+                    dispatch(new InvalidationEvent(rs.getString("REGION"), rs.getString("CACHE_KEY"), rs.getString("ORIGIN")));
+                }
+            }, lookbackSeconds, nodeId());
+        } catch (DataAccessException e) {
+            failuresSinceLog++;
+            if (start - lastFailureLogNanos >= FAILURE_LOG_INTERVAL_NANOS) {
+                logger.warn("No se pudieron consultar invalidaciones ({} fallos desde el último aviso): {}",
+                        failuresSinceLog, e.getMessage());
+                lastFailureLogNanos = start;
+                failuresSinceLog = 0;
+            } else {
+                logger.debug("No se pudieron consultar invalidaciones: {}", e.getMessage());
+            }
+            return;
+        }
+
+        long gapNanos = start - lastPollNanos;
+        lastPollNanos = start;
+        if (gapNanos > TimeUnit.SECONDS.toNanos(lookbackSeconds)) {
+            logger.warn("Sin consultar invalidaciones durante {}s (ventana de {}s): se invalidan todas las regiones.",
+                    TimeUnit.NANOSECONDS.toSeconds(gapNanos), lookbackSeconds);
+            for (String region : CacheRegions.ALL) dispatch(new InvalidationEvent(region, null, GAP_ORIGIN));
+        }
+    }
+
+    /**
+     * Elimina los eventos que ya superaron el período de retención.
+     */
+    @Scheduled(fixedDelayString = "${auth.cache.invalidation.purge-interval-ms:600000}",
+               initialDelayString = "${auth.cache.invalidation.purge-interval-ms:600000}")
+    public void purge() {
+        try {
+            int removed = jdbc.update(PURGE_SQL, retentionMinutes);
+            logger.debug("Invalidaciones purgadas: {}", removed);
+        } catch (DataAccessException e) {
+            logger.debug("No se pudieron purgar invalidaciones: {}", e.getMessage());
+        }
+    }
+}
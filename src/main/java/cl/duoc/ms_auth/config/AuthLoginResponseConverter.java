@@ -0,0 +1,249 @@
+package cl.duoc.ms_auth.config;
+
+import cl.duoc.ms_auth.dtos.AuthLoginResponse;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Conversor HTTP de solo escritura para {@link AuthLoginResponse}.
+ * <p>
+ * Escribe el JSON directamente a un {@code byte[]} reutilizado por hilo (como el {@code BufferRecycler} de Jackson),
+ * sin introspección ni {@code String} intermedios, y fija {@code Content-Length}.
+ * La salida es idéntica a la de Jackson con la configuración de Spring Boot: mismo orden de campos
+ * (el de los componentes del record), {@code expiresAt} en ISO-8601 y {@code labCode} como {@code null}
+ * cuando no aplica. Ver {@code LoginResponseWriterBenchmark}.
+ */
+public class AuthLoginResponseConverter extends AbstractHttpMessageConverter<AuthLoginResponse> {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final int MAX_RETAINED_BUFFER = 16 * 1024;
+    private static final ThreadLocal<JsonBytes> BUFFERS = ThreadLocal.withInitial(() -> new JsonBytes(2048));
+
+    public AuthLoginResponseConverter() {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return AuthLoginResponse.class == clazz;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected AuthLoginResponse readInternal(Class<? extends AuthLoginResponse> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("AuthLoginResponse es solo de escritura", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(AuthLoginResponse response, HttpOutputMessage outputMessage) throws IOException {
+        JsonBytes json = serialize(response);
+        outputMessage.getHeaders().setContentLength(json.length);
+        outputMessage.getBody().write(json.buf, 0, json.length);
+    }
+
+    /**
+     * Serializa la respuesta a JSON UTF-8 y la escribe en un stream.
+     *
+     * @param r   La respuesta de login.
+     * @param out El stream de destino.
+     * @return la cantidad de bytes escritos.
+     * @throws IOException si falla la escritura.
+     */
+    public int writeTo(AuthLoginResponse r, OutputStream out) throws IOException {
+        JsonBytes json = serialize(r);
+        out.write(json.buf, 0, json.length);
+        return json.length;
+    }
+
+    private static JsonBytes serialize(AuthLoginResponse r) {
+        JsonBytes out = BUFFERS.get();
+        if (out.buf.length > MAX_RETAINED_BUFFER) {
+            out = new JsonBytes(2048);
+            BUFFERS.set(out);
+        }
+        out.length = 0;
+        out.ascii("{\"token\":").string(r.token());
+        out.ascii(",\"expiresAt\":").instant(r.expiresAt());
+        out.ascii(",\"userId\":").string(r.userId());
+        out.ascii(",\"username\":").string(r.username());
+        out.ascii(",\"roles\":").strings(r.roles());
+        out.ascii(",\"labCode\":").string(r.labCode());
+        out.ascii("}");
+        return out;
+    }
+
+    /**
+     * Buffer de bytes creciente con escritura de valores JSON (escape según RFC 8259, UTF-8 sin escapar no-ASCII,
+     * como Jackson por defecto).
+     */
+    @SuppressWarnings("deprecation") // String#getBytes(int, int, byte[], int): copia de bytes bajos sin codificador
+    private static final class JsonBytes {
+        private byte[] buf;
+        private int length;
+
+        JsonBytes(int capacity) {
+            this.buf = new byte[capacity];
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, length + extra));
+            }
+        }
+
+        JsonBytes ascii(String s) {
+            int n = s.length();
+            ensure(n);
+            for (int i = 0; i < n; i++) buf[length++] = (byte) s.charAt(i);
+            return this;
+        }
+
+        /**
+         * Escribe el instante en el formato de {@code DateTimeFormatter.ISO_INSTANT} (el de Jackson) sin crear
+         * objetos intermedios: fracción omitida si es cero, o en grupos de 3, 6 o 9 dígitos.
+         */
+        JsonBytes instant(Instant instant) {
+            if (instant == null) return ascii("null");
+            long epochSecond = instant.getEpochSecond();
+            long epochDay = Math.floorDiv(epochSecond, 86_400);
+            if (epochDay < 0 || epochDay > 2_932_896) { // fuera de 1970..9999
+                return ascii("\"").ascii(instant.toString()).ascii("\"");
+            }
+            int secOfDay = (int) Math.floorMod(epochSecond, 86_400);
+            // Algoritmo civil_from_days (H. Hinnant) para la fecha proleptica gregoriana
+            long z = epochDay + 719_468;
+            long era = z / 146_097;
+            long doe = z - era * 146_097;
+            long yoe = (doe - doe / 1460 + doe / 36_524 - doe / 146_096) / 365;
+            long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+            long mp = (5 * doy + 2) / 153;
+            int day = (int) (doy - (153 * mp + 2) / 5 + 1);
+            int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+            int year = (int) (yoe + era * 400 + (month <= 2 ? 1 : 0));
+
+            ensure(32);
+            buf[length++] = '"';
+            digits(year, 4);
+            buf[length++] = '-';
+            digits(month, 2);
+            buf[length++] = '-';
+            digits(day, 2);
+            buf[length++] = 'T';
+            digits(secOfDay / 3600, 2);
+            buf[length++] = ':';
+            digits(secOfDay / 60 % 60, 2);
+            buf[length++] = ':';
+            digits(secOfDay % 60, 2);
+            int nano = instant.getNano();
+            if (nano != 0) {
+                buf[length++] = '.';
+                if (nano % 1_000_000 == 0) digits(nano / 1_000_000, 3);
+                else if (nano % 1_000 == 0) digits(nano / 1_000, 6);
+                else digits(nano, 9);
+            }
+            buf[length++] = 'Z';
+            buf[length++] = '"';
+            return this;
+        }
+
+        private void digits(int value, int width) {
+            for (int i = length + width - 1; i >= length; i--) {
+                buf[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            length += width;
+        }
+
+        JsonBytes strings(List<String> values) {
+            if (values == null) return ascii("null");
+            ascii("[");
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) ascii(",");
+                string(values.get(i));
+            }
+            return ascii("]");
+        }
+
+        JsonBytes string(String s) {
+            if (s == null) return ascii("null");
+            int n = s.length();
+            int safe = 0;
+            while (safe < n) {
+                char c = s.charAt(safe);
+                if (c < 0x20 || c >= 0x80 || c == '"' || c == '\\') break;
+                safe++;
+            }
+            ensure(n + 2);
+            buf[length++] = '"';
+            // Tramo ASCII sin escapes (todo el token JWT): copia directa de los bytes bajos
+            s.getBytes(0, safe, buf, length);
+            length += safe;
+            if (safe < n) {
+                // peor caso del resto: escape de 6 bytes por char
+                ensure((n - safe) * 6 + 1);
+                escaped(s, safe, n);
+            }
+            buf[length++] = '"';
+            return this;
+        }
+
+        private void escaped(String s, int from, int n) {
+            byte[] b = buf;
+            int p = length;
+            for (int i = from; i < n; i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    if (c >= 0x20 && c != '"' && c != '\\') {
+                        b[p++] = (byte) c;
+                    } else {
+                        b[p++] = '\\';
+                        switch (c) {
+                            case '"' -> b[p++] = '"';
+                            case '\\' -> b[p++] = '\\';
+                            case '\n' -> b[p++] = 'n';
+                            case '\r' -> b[p++] = 'r';
+                            case '\t' -> b[p++] = 't';
+                            case '\b' -> b[p++] = 'b';
+                            case '\f' -> b[p++] = 'f';
+                            default -> {
+                                b[p++] = 'u';
+                                b[p++] = '0';
+                                b[p++] = '0';
+                                b[p++] = HEX[c >> 4];
+                                b[p++] = HEX[c & 0xF];
+                            }
+                        }
+                    }
+                } else if (c < 0x800) {
+                    b[p++] = (byte) (0xC0 | (c >> 6));
+                    b[p++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    b[p++] = (byte) (0xF0 | (cp >> 18));
+                    b[p++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    b[p++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    b[p++] = (byte) (0x80 | (cp & 0x3F));
+                } else {
+                    b[p++] = (byte) (0xE0 | (c >> 12));
+                    b[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    b[p++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            length = p;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package cl.duoc.ms_auth.config;
+
+import java.util.List;
+
+/**
+ * Un record que representa una página obtenida por paginación keyset (por cursor).
+ * A diferencia de {@link PageResponse} no calcula totales ni usa OFFSET: la siguiente página se pide
+ * con {@code after=nextAfter}, y el costo de cada página no crece con su posición.
+ *
+ * @param <T> El tipo del contenido de la página.
+ * @param content La lista de elementos en la página actual.
+ * @param size El tamaño de página solicitado.
+ * @param nextAfter El cursor para la siguiente página, o null si esta es la última.
+ */
+public record KeysetPageResponse<T>(
+        List<T> content,
+        int size,
+        Long nextAfter
+) {}
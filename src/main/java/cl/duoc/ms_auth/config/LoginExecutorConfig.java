@@ -0,0 +1,64 @@
+package cl.duoc.ms_auth.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Pool acotado donde corre {@code POST /auth/login} (búsqueda del usuario, BCrypt y firma RS256).
+ * <p>
+ * El controlador devuelve un {@code CompletableFuture}: el hilo de Tomcat se libera apenas se encola el login, y el
+ * trabajo de CPU queda limitado a {@code auth.login.executor.threads} hilos (por defecto, uno por núcleo) en vez de
+ * repartirse entre cientos de hilos de Tomcat compitiendo por la CPU. Con la cola llena el login se rechaza con 503.
+ * Las métricas del pool se publican como {@code executor.*} con {@code name=loginExecutor}.
+ * <p>
+ * El bean no es candidato por defecto: solo se inyecta con {@code @Qualifier("loginExecutor")}. Así Spring Boot sigue
+ * creando {@code applicationTaskExecutor} para {@code @Async} y el MVC asíncrono, en vez de retirarse al ver otro
+ * {@code Executor} y dejar ese trabajo en el pool de login.
+ */
+@Configuration
+public class LoginExecutorConfig {
+
+    /**
+     * Crea el pool de login.
+     *
+     * @param threads       Hilos del pool; 0 o negativo usa la cantidad de núcleos.
+     * @param queueCapacity Logins en espera antes de rechazar.
+     * @return el ejecutor de login.
+     */
+    @Bean(name = "loginExecutor", defaultCandidate = false)
+    public ThreadPoolTaskExecutor loginExecutor(
+            @Value("${auth.login.executor.threads:0}") int threads,
+            @Value("${auth.login.executor.queue-capacity:256}") int queueCapacity) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("login-");
+        executor.setTaskDecorator(requestContextPropagation());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    // La auditoría toma la IP del cliente de RequestContextHolder, que es por hilo
+    private static TaskDecorator requestContextPropagation() {
+        return task -> {
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            return () -> {
+                RequestAttributes previous = RequestContextHolder.getRequestAttributes();
+                RequestContextHolder.setRequestAttributes(attributes);
+                try {
+                    task.run();
+                } finally {
+                    RequestContextHolder.setRequestAttributes(previous);
+                }
+            };
+        };
+    }
+}
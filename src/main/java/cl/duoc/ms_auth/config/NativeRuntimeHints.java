@@ -0,0 +1,62 @@
+package cl.duoc.ms_auth.config;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+/**
+ * Hints de alcanzabilidad para la imagen nativa (perfil Maven {@code native}) que Spring AOT no puede deducir.
+ * <p>
+ * Entidades, convertidores JPA, DTOs de controladores y proyecciones de Spring Data los registra el propio
+ * procesamiento AOT; Caffeine y Hibernate vienen en el repositorio de metadatos de GraalVM. Lo que queda son
+ * clases que se cargan por nombre:
+ * <ul>
+ *   <li>ojdbc8 19.3, que no trae metadatos propios (Oracle los incluye desde la 21): extensión del driver thin,
+ *       servicios de red ANO y mensajes de error.</li>
+ *   <li>Wallet ({@code oraclepki}): el proveedor JCA y las SPI que registra por nombre para leer
+ *       {@code cwallet.sso} / {@code ewallet.p12} y armar el contexto TLS. {@code osdt_core} / {@code osdt_cert}
+ *       se usan desde ahí con referencias directas.</li>
+ *   <li>{@code reference.conf} de Caffeine JCache, que lee el {@code CachingProvider} al crear el gestor.</li>
+ * </ul>
+ * Nimbus JOSE y BouncyCastle no necesitan hints: el PEM se parsea con clases de BouncyCastle referenciadas
+ * directamente y la firma usa los servicios JCA del JDK ({@code SHA256withRSA}), que native-image incluye.
+ * Para rutas no cubiertas aquí (p. ej. la carga dinámica de algoritmos de {@code osdt_core}) hay que correr el
+ * agente de trazas contra una base real; ver {@code scripts/native-vs-jvm.sh trace}.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final String[] ORACLE_JDBC = {
+            "oracle.jdbc.OracleDriver",
+            "oracle.jdbc.driver.OracleDriver",
+            "oracle.jdbc.driver.T4CDriverExtension",
+            "oracle.net.ano.AuthenticationService",
+            "oracle.net.ano.EncryptionService",
+            "oracle.net.ano.DataIntegrityService",
+            "oracle.net.ano.SupervisorService"
+    };
+
+    private static final String[] ORACLE_PKI = {
+            "oracle.security.pki.OraclePKIProvider",
+            "oracle.security.pki.OracleKeyStoreSpi",
+            "oracle.security.pki.OracleSSOKeyStoreSpi",
+            "oracle.security.pki.ssl.OracleSSLX509KeyManagerFactory14",
+            "oracle.security.pki.ssl.OracleSSLX509TrustManagerFactory14"
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (String type : ORACLE_JDBC) {
+            hints.reflection().registerType(TypeReference.of(type), MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        }
+        for (String type : ORACLE_PKI) {
+            hints.reflection().registerType(TypeReference.of(type), MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        }
+        hints.resources()
+                .registerPattern("oracle/jdbc/defaultConnectionProperties.properties")
+                .registerPattern("reference.conf")
+                .registerResourceBundle("oracle.jdbc.driver.Messages")
+                .registerResourceBundle("oracle.net.mesg.Message")
+                .registerResourceBundle("oracle.security.pki.resources.OraclePKIMsg");
+    }
+}
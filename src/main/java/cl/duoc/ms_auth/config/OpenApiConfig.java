@@ -9,6 +9,7 @@ import io.swagger.v3.oas.models.servers.Server;
 import io.swagger.v3.oas.models.Components;
 import io.swagger.v3.oas.models.security.SecurityRequirement;
 import io.swagger.v3.oas.models.security.SecurityScheme;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -16,8 +17,10 @@ import java.util.List;
 /**
  * Clase de configuración para OpenAPI (Swagger).
  * Define la información general de la API, los servidores y la configuración de seguridad.
+ * No se carga cuando springdoc está deshabilitado (perfil {@code prod}).
  */
 @Configuration
+@ConditionalOnProperty(name = "springdoc.api-docs.enabled", havingValue = "true", matchIfMissing = true)
 public class OpenApiConfig {
     /**
      * Configura y crea el bean OpenAPI para la documentación de la API de AgroRent.
@@ -0,0 +1,88 @@
+package cl.duoc.ms_auth.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Clase de configuración del enrutamiento lectura/escritura.
+ * Se activa solo si {@code auth.datasource.replica.url} está definido (por ejemplo, un standby Oracle ADG).
+ * <p>
+ * Las transacciones {@code @Transactional(readOnly = true)} marcan la conexión como solo lectura antes de usarla;
+ * el {@link LazyConnectionDataSourceProxy} difiere la obtención de la conexión física hasta ese momento y
+ * la toma del pool de la réplica. El resto de las transacciones usa el pool primario.
+ */
+@Configuration
+@ConditionalOnProperty(name = "auth.datasource.replica.url")
+public class ReadReplicaDataSourceConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadReplicaDataSourceConfig.class);
+
+    /**
+     * Pool primario (escrituras), construido desde {@code spring.datasource.*}.
+     *
+     * @param props Las propiedades estándar del datasource.
+     * @return el pool HikariCP primario.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties props) {
+        HikariDataSource ds = props.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        ds.setPoolName("ms-auth-primary");
+        return ds;
+    }
+
+    /**
+     * Pool de la réplica (lecturas). Usa las credenciales primarias si no se indican otras
+     * y acepta ajustes de HikariCP en {@code auth.datasource.replica.hikari.*}.
+     *
+     * @param props    Las propiedades estándar del datasource.
+     * @param url      La URL JDBC de la réplica.
+     * @param username El usuario de la réplica (opcional).
+     * @param password La contraseña de la réplica (opcional).
+     * @return el pool HikariCP de la réplica.
+     */
+    @Bean
+    @ConfigurationProperties("auth.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            DataSourceProperties props,
+            @Value("${auth.datasource.replica.url}") String url,
+            @Value("${auth.datasource.replica.username:}") String username,
+            @Value("${auth.datasource.replica.password:}") String password) {
+        HikariDataSource ds = props.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        ds.setJdbcUrl(url);
+        if (!username.isBlank()) ds.setUsername(username);
+        if (!password.isBlank()) ds.setPassword(password);
+        ds.setReadOnly(true);
+        ds.setPoolName("ms-auth-replica");
+        return ds;
+    }
+
+    /**
+     * DataSource expuesto a JPA y JDBC que enruta según el modo de la transacción.
+     *
+     * @param primary El pool primario.
+     * @param replica El pool de la réplica.
+     * @return el proxy que enruta lecturas y escrituras.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica) {
+        logger.info("Enrutamiento lectura/escritura activo: transacciones de solo lectura irán a la réplica.");
+        var proxy = new LazyConnectionDataSourceProxy(primary);
+        proxy.setReadOnlyDataSource(replica);
+        return proxy;
+    }
+}
@@ -0,0 +1,135 @@
+package cl.duoc.ms_auth.config;
+
+import cl.duoc.ms_auth.cache.CacheInvalidationBus;
+import cl.duoc.ms_auth.cache.CacheRegions;
+import cl.duoc.ms_auth.entidades.Role;
+import cl.duoc.ms_auth.entidades.User;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/**
+ * Clase de configuración de la caché de segundo nivel de Hibernate (JCache sobre Caffeine).
+ * <p>
+ * Cachea {@link Role} (solo lectura), {@link User} (lectura/escritura), la colección {@code User.roles}
+ * y la consulta {@code RoleRepository.findByName}. Tamaños y TTL se configuran con {@code auth.cache.l2.*};
+ * los aciertos y fallos por región se publican en Actuator ({@code hibernate.second.level.cache.requests}).
+ * Se desactiva con {@code auth.cache.l2.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "auth.cache.l2.enabled", havingValue = "true", matchIfMissing = true)
+public class SecondLevelCacheConfig {
+
+    /** Región de la entidad {@link User}. */
+    public static final String USER_REGION = "users";
+    /** Región de la colección {@code User.roles}. */
+    public static final String USER_ROLES_REGION = "users.roles";
+    /** Región de la entidad {@link Role}. */
+    public static final String ROLE_REGION = "roles";
+
+    private static final String QUERY_REGION = "default-query-results-region";
+    private static final String TIMESTAMPS_REGION = "default-update-timestamps-region";
+    private static final Logger logger = LoggerFactory.getLogger(SecondLevelCacheConfig.class);
+
+    /**
+     * Crea el {@link CacheManager} JCache con las regiones ya dimensionadas.
+     *
+     * @param userMaxSize Máximo de usuarios (y de colecciones de roles) en caché.
+     * @param userTtl     TTL de usuarios; acota la desactualización si se pierde una invalidación.
+     * @param roleMaxSize Máximo de roles en caché.
+     * @param roleTtl     TTL de roles.
+     * @param queryMaxSize Máximo de resultados de consultas cacheadas.
+     * @return el gestor de cachés usado por Hibernate.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateJCacheManager(
+            @Value("${auth.cache.l2.users.max-size:10000}") long userMaxSize,
+            @Value("${auth.cache.l2.users.ttl:10m}") Duration userTtl,
+            @Value("${auth.cache.l2.roles.max-size:100}") long roleMaxSize,
+            @Value("${auth.cache.l2.roles.ttl:1h}") Duration roleTtl,
+            @Value("${auth.cache.l2.queries.max-size:1000}") long queryMaxSize) {
+        var provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager manager = provider.getCacheManager(
+                provider.getDefaultURI(), SecondLevelCacheConfig.class.getClassLoader());
+        create(manager, USER_REGION, userMaxSize, userTtl);
+        create(manager, USER_ROLES_REGION, userMaxSize, userTtl);
+        create(manager, ROLE_REGION, roleMaxSize, roleTtl);
+        create(manager, QUERY_REGION, queryMaxSize, roleTtl);
+        // Los timestamps deben sobrevivir a los resultados de consultas: sin expiración.
+        create(manager, TIMESTAMPS_REGION, 0, null);
+        logger.info("Caché L2 configurada: users={} ({}), roles={} ({}).", userMaxSize, userTtl, roleMaxSize, roleTtl);
+        return manager;
+    }
+
+    private static void create(CacheManager manager, String region, long maxSize, Duration ttl) {
+        var cfg = new CaffeineConfiguration<Object, Object>();
+        if (maxSize > 0) cfg.setMaximumSize(OptionalLong.of(maxSize));
+        if (ttl != null) cfg.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        cfg.setStatisticsEnabled(true);
+        if (manager.getCache(region) == null) manager.createCache(region, cfg);
+    }
+
+    /**
+     * Activa la caché L2, la caché de consultas y las estadísticas en Hibernate.
+     *
+     * @param cacheManager El gestor JCache con las regiones creadas.
+     * @return el customizer de propiedades de Hibernate.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager cacheManager) {
+        return props -> {
+            props.put("hibernate.cache.use_second_level_cache", "true");
+            props.put("hibernate.cache.use_query_cache", "true");
+            props.put("hibernate.cache.region.factory_class", "jcache");
+            props.put("hibernate.javax.cache.cache_manager", cacheManager);
+            props.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+            props.put("hibernate.generate_statistics", "true");
+        };
+    }
+
+    /**
+     * Suscribe la caché L2 al bus de invalidación: los cambios hechos por otras réplicas
+     * desalojan la entrada del usuario (y sus roles) en esta.
+     *
+     * @param emf El {@link EntityManagerFactory} de la aplicación.
+     * @param bus El bus de invalidación entre réplicas.
+     * @return el runner que registra los listeners al arrancar.
+     */
+    @Bean
+    public ApplicationRunner secondLevelCacheInvalidation(EntityManagerFactory emf, CacheInvalidationBus bus) {
+        return args -> {
+            var cache = emf.unwrap(SessionFactory.class).getCache();
+            bus.subscribe(CacheRegions.USERS, event -> {
+                if (bus.nodeId().equals(event.origin())) return; // Hibernate ya mantiene coherente esta réplica
+                if (event.isRegionWide()) {
+                    cache.evictEntityData(User.class);
+                    cache.evictCollectionData(User.class.getName() + ".roles");
+                } else {
+                    Long id = Long.valueOf(event.key());
+                    cache.evictEntityData(User.class, id);
+                    cache.evictCollectionData(User.class.getName() + ".roles", id);
+                }
+            });
+            bus.subscribe(CacheRegions.ROLES, event -> {
+                if (bus.nodeId().equals(event.origin())) return;
+                cache.evictEntityData(Role.class);
+                cache.evictQueryRegions();
+            });
+            logger.debug("Caché L2 suscrita al bus de invalidación.");
+        };
+    }
+}
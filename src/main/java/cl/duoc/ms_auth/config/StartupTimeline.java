@@ -0,0 +1,52 @@
+package cl.duoc.ms_auth.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mide el arranque visto desde afuera: desde el inicio de la JVM hasta que la aplicación está lista y hasta el
+ * primer login exitoso (lo que de verdad espera el autoescalado). Se publica en el log y en
+ * {@code auth.startup.ready} / {@code auth.startup.first-login}.
+ */
+@Component
+public class StartupTimeline {
+
+    private final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private final AtomicLong readyMillis = new AtomicLong(-1);
+    private final AtomicLong firstLoginMillis = new AtomicLong(-1);
+    private static final Logger logger = LoggerFactory.getLogger(StartupTimeline.class);
+
+    public StartupTimeline(MeterRegistry registry) {
+        TimeGauge.builder("auth.startup.ready", readyMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Tiempo desde el inicio de la JVM hasta ApplicationReadyEvent").register(registry);
+        TimeGauge.builder("auth.startup.first-login", firstLoginMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Tiempo desde el inicio de la JVM hasta el primer login exitoso").register(registry);
+    }
+
+    @EventListener
+    void onReady(ApplicationReadyEvent event) {
+        readyMillis.set(System.currentTimeMillis() - jvmStartMillis);
+        logger.info("Aplicación lista a {} ms del inicio de la JVM (contexto: {} ms).", readyMillis.get(),
+                event.getTimeTaken() == null ? -1 : event.getTimeTaken().toMillis());
+    }
+
+    /**
+     * Marca un login exitoso; solo el primero queda registrado.
+     */
+    public void loginSucceeded() {
+        if (firstLoginMillis.get() >= 0) return;
+        long elapsed = System.currentTimeMillis() - jvmStartMillis;
+        if (firstLoginMillis.compareAndSet(-1, elapsed)) {
+            logger.info("Primer login exitoso a {} ms del inicio de la JVM.", elapsed);
+        }
+    }
+}
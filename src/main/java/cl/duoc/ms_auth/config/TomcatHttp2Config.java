@@ -0,0 +1,43 @@
+package cl.duoc.ms_auth.config;
+
+import org.apache.coyote.UpgradeProtocol;
+import org.apache.coyote.http2.Http2Protocol;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Límites de HTTP/2 en Tomcat que Spring Boot no expone como propiedades.
+ * <p>
+ * Con {@code server.http2.enabled=true} (perfil {@code server}) Boot agrega {@link Http2Protocol} al conector: h2 por
+ * ALPN con TLS o h2c sin TLS. Aquí se ajustan los streams concurrentes por conexión y el keep-alive de conexiones
+ * HTTP/2 ociosas ({@code server.tomcat.keep-alive-timeout} solo aplica a HTTP/1.1). Sin HTTP/2 no hace nada;
+ * no es condicional para que funcione igual en los builds AOT, donde las condiciones quedan fijas.
+ */
+@Configuration
+public class TomcatHttp2Config implements WebServerFactoryCustomizer<TomcatServletWebServerFactory> {
+
+    private final int maxConcurrentStreams;
+    private final Duration keepAliveTimeout;
+
+    public TomcatHttp2Config(@Value("${auth.http2.max-concurrent-streams:100}") int maxConcurrentStreams,
+                             @Value("${auth.http2.keep-alive-timeout:20s}") Duration keepAliveTimeout) {
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        this.keepAliveTimeout = keepAliveTimeout;
+    }
+
+    @Override
+    public void customize(TomcatServletWebServerFactory factory) {
+        factory.addConnectorCustomizers(connector -> {
+            for (UpgradeProtocol protocol : connector.findUpgradeProtocols()) {
+                if (protocol instanceof Http2Protocol http2) {
+                    http2.setMaxConcurrentStreams(maxConcurrentStreams);
+                    http2.setKeepAliveTimeout(keepAliveTimeout.toMillis());
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,184 @@
+package cl.duoc.ms_auth.config;
+
+import cl.duoc.ms_auth.entidades.Role;
+import cl.duoc.ms_auth.entidades.User;
+import cl.duoc.ms_auth.repositorio.RoleRepository;
+import cl.duoc.ms_auth.repositorio.UserRepository;
+import cl.duoc.ms_auth.security.JwtUtils;
+import cl.duoc.ms_auth.servicios.TokenService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Calentamiento antes de aceptar tráfico.
+ * <p>
+ * Spring Boot publica la disponibilidad {@code ACCEPTING_TRAFFIC} (probe {@code /actuator/health/readiness}) recién
+ * después de ejecutar los {@link ApplicationRunner}, así que mientras este runner corre la réplica no recibe logins.
+ * En ese tiempo, con {@code auth.warmup.threads} hilos de CPU y otros tantos de base de datos:
+ * <ul>
+ *   <li>firma y valida tokens con un usuario sintético (Nimbus, JCA y los claims pasan por C1/C2);</li>
+ *   <li>compara contraseñas BCrypt contra un hash generado al inicio;</li>
+ *   <li>ejecuta las consultas del login y de la introspección con IDs inexistentes, en transacciones de solo lectura
+ *       (réplica, si está configurada) y de escritura (primaria): abre conexiones Hikari y prepara los planes de
+ *       consulta de Hibernate;</li>
+ *   <li>carga el catálogo de roles, que queda en la caché L2.</li>
+ * </ul>
+ * Todo está acotado por {@code auth.warmup.budget}: al vencer, las tareas pendientes se cancelan y la aplicación
+ * pasa a lista igual. Un error de base de datos solo corta la parte de consultas de ese hilo.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE) // después de los demás runners (p. ej. la suscripción de invalidación de la caché L2)
+@ConditionalOnProperty(name = "auth.warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class WarmUpRunner implements ApplicationRunner {
+
+    private static final String WARMUP_USERNAME = "__warmup__";
+
+    private final TokenService tokenService;
+    private final JwtUtils jwtUtils;
+    private final PasswordEncoder passwordEncoder;
+    private final UserRepository userRepository;
+    private final RoleRepository roleRepository;
+    private final TransactionTemplate readTx;
+    private final TransactionTemplate writeTx;
+    private final Duration budget;
+    private final int threads;
+    private final int tokenIterations;
+    private final int bcryptIterations;
+    private final int queryIterations;
+    private static final Logger logger = LoggerFactory.getLogger(WarmUpRunner.class);
+
+    public WarmUpRunner(TokenService tokenService, JwtUtils jwtUtils, PasswordEncoder passwordEncoder,
+                        UserRepository userRepository, RoleRepository roleRepository,
+                        PlatformTransactionManager txManager,
+                        @Value("${auth.warmup.budget:20s}") Duration budget,
+                        @Value("${auth.warmup.threads:4}") int threads,
+                        @Value("${auth.warmup.token-iterations:500}") int tokenIterations,
+                        @Value("${auth.warmup.bcrypt-iterations:5}") int bcryptIterations,
+                        @Value("${auth.warmup.query-iterations:20}") int queryIterations) {
+        this.tokenService = tokenService;
+        this.jwtUtils = jwtUtils;
+        this.passwordEncoder = passwordEncoder;
+        this.userRepository = userRepository;
+        this.roleRepository = roleRepository;
+        this.readTx = new TransactionTemplate(txManager);
+        this.readTx.setReadOnly(true);
+        this.writeTx = new TransactionTemplate(txManager);
+        this.budget = budget;
+        this.threads = Math.max(1, threads);
+        this.tokenIterations = tokenIterations;
+        this.bcryptIterations = bcryptIterations;
+        this.queryIterations = queryIterations;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        long deadline = start + budget.toNanos();
+        var tokens = new AtomicInteger();
+        var bcrypts = new AtomicInteger();
+        var queries = new AtomicInteger();
+        var failedQueries = new AtomicInteger();
+
+        String hash = passwordEncoder.encode(WARMUP_USERNAME);
+        User user = syntheticUser();
+
+        // Hilos separados para CPU y base de datos: si la BD tarda en conectar, el JIT se calienta igual
+        AtomicInteger threadIds = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads * 2, r -> {
+            Thread t = new Thread(r, "warmup-" + threadIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            tasks.add(pool.submit(() -> {
+                try {
+                    for (int n = 0; n < queryIterations && System.nanoTime() < deadline; n++) {
+                        queryCycle();
+                        queries.incrementAndGet();
+                    }
+                } catch (RuntimeException e) {
+                    failedQueries.incrementAndGet();
+                    logger.debug("Calentamiento: consultas interrumpidas en {}: {}", Thread.currentThread().getName(), e.toString());
+                }
+            }));
+            tasks.add(pool.submit(() -> {
+                for (int n = 0; n < tokenIterations && System.nanoTime() < deadline; n++) {
+                    String token = tokenService.issue(user).token();
+                    if (jwtUtils.validateAndParse(token).isEmpty()) {
+                        throw new IllegalStateException("El token de calentamiento no pasó la validación");
+                    }
+                    tokens.incrementAndGet();
+                }
+                for (int n = 0; n < bcryptIterations && System.nanoTime() < deadline; n++) {
+                    passwordEncoder.matches(WARMUP_USERNAME, hash);
+                    bcrypts.incrementAndGet();
+                }
+            }));
+        }
+        pool.shutdown();
+
+        boolean timedOut = false;
+        for (Future<?> task : tasks) {
+            try {
+                task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                timedOut = true;
+                break;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                timedOut = true;
+                break;
+            } catch (Exception e) {
+                logger.warn("Calentamiento: una tarea falló: {}", e.getCause() != null ? e.getCause().toString() : e.toString());
+            }
+        }
+        if (timedOut) pool.shutdownNow();
+
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        logger.info("Calentamiento {} en {} ms: {} tokens firmados/validados, {} BCrypt, {} ciclos de consultas ({} hilos con error de BD).",
+                timedOut ? "cortado por presupuesto" : "terminado", elapsed, tokens.get(), bcrypts.get(), queries.get(), failedQueries.get());
+    }
+
+    /** Las mismas consultas que el login y la introspección, con valores que no existen, más el catálogo de roles. */
+    private void queryCycle() {
+        readTx.executeWithoutResult(status -> {
+            userRepository.findByUsernameIgnoreCaseOrEmailIgnoreCase(WARMUP_USERNAME, WARMUP_USERNAME);
+            UUID missing = new UUID(0, 0);
+            userRepository.findByExternalId(missing);
+            userRepository.findActiveFlagByExternalId(missing);
+            for (Role role : roleRepository.findAll()) roleRepository.findByName(role.getName());
+        });
+        writeTx.executeWithoutResult(status -> userRepository.findById(-1L));
+    }
+
+    private static User syntheticUser() {
+        Set<Role> roles = new HashSet<>();
+        roles.add(new Role(-1L, "ADMIN", null, null, null));
+        roles.add(new Role(-2L, "LAB_TECH", null, null, null));
+        return new User(-1L, new UUID(0, 1), WARMUP_USERNAME, null, null, "WARMUP", "Y", null, null, roles);
+    }
+}
@@ -2,13 +2,25 @@ package cl.duoc.ms_auth.controladores;
 
 import cl.duoc.ms_auth.dtos.AuthLoginRequest;
 import cl.duoc.ms_auth.dtos.AuthLoginResponse;
+import cl.duoc.ms_auth.dtos.IntrospectionBatchRequest;
+import cl.duoc.ms_auth.dtos.IntrospectionResponse;
+import cl.duoc.ms_auth.dtos.TokenExchangeResponse;
 import cl.duoc.ms_auth.servicios.AuthService;
+import cl.duoc.ms_auth.servicios.IntrospectionService;
+import cl.duoc.ms_auth.servicios.TokenExchangeService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Controlador REST para gestionar la autenticación de usuarios.
  * Proporciona endpoints para el inicio de sesión.
@@ -18,29 +30,96 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final AuthService authService;
+    private final IntrospectionService introspectionService;
+    private final TokenExchangeService tokenExchangeService;
+    private final TaskExecutor loginExecutor;
     private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
 
     /**
-     * Constructor para inyectar el servicio de autenticación.
+     * Constructor para inyectar los servicios de autenticación e introspección.
      *
-     * @param authService El servicio que maneja la lógica de autenticación.
+     * @param authService          El servicio que maneja la lógica de autenticación.
+     * @param introspectionService El servicio que inspecciona tokens emitidos.
+     * @param tokenExchangeService El servicio que intercambia tokens para servicios internos.
+     * @param loginExecutor        El pool acotado donde corre el login (ver {@code LoginExecutorConfig}).
      */
-    public AuthController(AuthService authService) {
+    public AuthController(AuthService authService, IntrospectionService introspectionService,
+                          TokenExchangeService tokenExchangeService,
+                          @Qualifier("loginExecutor") TaskExecutor loginExecutor) {
         this.authService = authService;
+        this.introspectionService = introspectionService;
+        this.tokenExchangeService = tokenExchangeService;
+        this.loginExecutor = loginExecutor;
     }
 
     /**
      * Endpoint para el inicio de sesión de un usuario.
      * Valida las credenciales y, si son correctas, devuelve un token JWT.
+     * El login corre en el pool de login y el hilo de Tomcat se libera mientras tanto (procesamiento asíncrono
+     * de Servlet); los errores llegan igual a {@code GlobalExceptionHandler}.
      *
      * @param request El objeto {@link AuthLoginRequest} que contiene el nombre de usuario y la contraseña.
      * @return Un {@link ResponseEntity} con el {@link AuthLoginResponse} que incluye el token JWT.
      */
     @PostMapping("/login")
-    public ResponseEntity<AuthLoginResponse> login(@RequestBody @Valid AuthLoginRequest request) {
+    public CompletableFuture<ResponseEntity<AuthLoginResponse>> login(@RequestBody @Valid AuthLoginRequest request) {
         logger.info("Iniciando proceso de login para el usuario: {}", request.username());
-        AuthLoginResponse response = authService.login(request);
-        logger.info("Login exitoso para el usuario: {}", request.username());
-        return ResponseEntity.ok(response);
+        return CompletableFuture.supplyAsync(() -> {
+            AuthLoginResponse response = authService.login(request);
+            logger.info("Login exitoso para el usuario: {}", request.username());
+            return ResponseEntity.ok(response);
+        }, loginExecutor);
+    }
+
+    /**
+     * Endpoint de introspección de un token (RFC 7662), para clientes que no pueden verificar JWT.
+     * El cliente se autentica con el token de una cuenta de servicio (rol SERVICE) en {@code Authorization}.
+     *
+     * @param token El token a inspeccionar, enviado como parámetro de formulario.
+     * @return Un {@link ResponseEntity} con el {@link IntrospectionResponse}.
+     */
+    @PostMapping(value = "/introspect", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+    public ResponseEntity<IntrospectionResponse> introspect(@RequestParam("token") String token) {
+        logger.debug("Solicitud de introspección recibida.");
+        return ResponseEntity.ok(introspectionService.introspect(token));
+    }
+
+    /**
+     * Endpoint de introspección en lote, para gateways que validan muchos tokens por llamada.
+     * Exige el rol SERVICE, igual que la introspección individual.
+     *
+     * @param request El objeto {@link IntrospectionBatchRequest} con los tokens.
+     * @return Un {@link ResponseEntity} con un {@link IntrospectionResponse} por token, en el mismo orden.
+     */
+    @PostMapping(value = "/introspect", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<IntrospectionResponse>> introspectAll(@RequestBody @Valid IntrospectionBatchRequest request) {
+        logger.debug("Solicitud de introspección en lote recibida con {} tokens.", request.tokens().size());
+        return ResponseEntity.ok(introspectionService.introspectAll(request.tokens()));
+    }
+
+    /**
+     * Endpoint de intercambio de tokens (RFC 8693) para el gateway: cambia el token del usuario por uno de
+     * pocos segundos, firmado con HMAC y válido solo para el servicio interno indicado en {@code audience}.
+     * El gateway se autentica con el token de su cuenta de servicio (rol GATEWAY) en {@code Authorization}; el
+     * token del usuario va en {@code subject_token}.
+     *
+     * @param grantType          Debe ser {@code urn:ietf:params:oauth:grant-type:token-exchange}.
+     * @param subjectToken       El token de acceso del usuario.
+     * @param subjectTokenType   El tipo del token del usuario ({@code access_token} o {@code jwt}).
+     * @param audience           El servicio interno destino.
+     * @param requestedTokenType El tipo de token pedido (opcional).
+     * @return Un {@link ResponseEntity} con el {@link TokenExchangeResponse}.
+     */
+    @PostMapping(value = "/token-exchange", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+    public ResponseEntity<TokenExchangeResponse> tokenExchange(
+            @RequestParam(value = "grant_type", required = false) String grantType,
+            @RequestParam(value = "subject_token", required = false) String subjectToken,
+            @RequestParam(value = "subject_token_type", required = false) String subjectTokenType,
+            @RequestParam(value = "audience", required = false) String audience,
+            @RequestParam(value = "requested_token_type", required = false) String requestedTokenType) {
+        logger.debug("Solicitud de intercambio de token recibida para la audiencia: {}", audience);
+        TokenExchangeResponse response = tokenExchangeService.exchange(grantType, subjectToken, subjectTokenType, audience, requestedTokenType);
+        // RFC 8693 / RFC 6749: las respuestas con tokens no se cachean en intermediarios
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(response);
     }
 }
@@ -16,15 +16,18 @@ import org.springframework.web.bind.annotation.*;
 @RestController
 @RequestMapping("/.well-known")
 public class JwksController {
-    private final KeyProvider keyProvider;
+    private final String jwksJson;
     private static final Logger logger = LoggerFactory.getLogger(JwksController.class);
 
     /**
      * Constructor que inyecta el proveedor de claves.
+     * Las claves no cambian en tiempo de ejecución: el JSON (compacto) se genera una sola vez.
      *
      * @param keyProvider El proveedor utilizado para obtener las claves JWK.
      */
-    public JwksController(KeyProvider keyProvider){ this.keyProvider = keyProvider; }
+    public JwksController(KeyProvider keyProvider){
+        this.jwksJson = new JWKSet(keyProvider.publicJwk()).toString();
+    }
 
     /**
      * Devuelve el JSON Web Key Set (JWKS) público.
@@ -36,8 +39,6 @@ public class JwksController {
     @GetMapping(value = "/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<String> jwks() {
         logger.info("Solicitud recibida para obtener el JWKS.");
-        var jwkSet = new JWKSet(keyProvider.publicJwk());
-        logger.debug("JWKS generado exitosamente.");
-        return ResponseEntity.ok(jwkSet.toString(true));
+        return ResponseEntity.ok(jwksJson);
     }
 }
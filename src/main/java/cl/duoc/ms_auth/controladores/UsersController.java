@@ -1,17 +1,36 @@
 package cl.duoc.ms_auth.controladores;
 
+import cl.duoc.ms_auth.audit.AuditEventType;
+import cl.duoc.ms_auth.audit.AuditTrail;
+import cl.duoc.ms_auth.config.KeysetPageResponse;
+import cl.duoc.ms_auth.dtos.LabUserResponse;
+import cl.duoc.ms_auth.dtos.UserBatchRequest;
+import cl.duoc.ms_auth.dtos.UserBatchResponse;
 import cl.duoc.ms_auth.dtos.UserCreateRequest;
 import cl.duoc.ms_auth.dtos.UserResponse;
+import cl.duoc.ms_auth.dtos.UserSearchResult;
 import cl.duoc.ms_auth.dtos.UserUpdateRequest;
+import cl.duoc.ms_auth.exceptions.PreconditionFailedException;
+import cl.duoc.ms_auth.exceptions.PreconditionRequiredException;
+import cl.duoc.ms_auth.security.JwtUtils.JwtPayload;
 import cl.duoc.ms_auth.servicios.UserService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.security.Principal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.StringJoiner;
+import java.util.UUID;
 
 /**
  * Controlador REST para gestionar las operaciones CRUD de los usuarios.
@@ -21,70 +40,99 @@ import java.util.List;
 public class UsersController {
 
     private final UserService userService;
+    private final AuditTrail auditTrail;
+    private final boolean requireIfMatch;
     private static final Logger logger = LoggerFactory.getLogger(UsersController.class);
 
     /**
      * Constructor para inyectar el servicio de usuarios.
      *
      * @param userService El servicio que maneja la lógica de negocio de los usuarios.
+     * @param auditTrail El registro de auditoría de los cambios hechos por administradores.
+     * @param requireIfMatch Si {@code PUT /users/{id}} exige la cabecera {@code If-Match} (428 si falta).
      */
-    public UsersController(UserService userService){ this.userService = userService; }
+    public UsersController(UserService userService, AuditTrail auditTrail,
+                           @Value("${auth.users.require-if-match:false}") boolean requireIfMatch) {
+        this.userService = userService;
+        this.auditTrail = auditTrail;
+        this.requireIfMatch = requireIfMatch;
+    }
 
     /**
      * Endpoint para crear un nuevo usuario.
      *
      * @param request El objeto {@link UserCreateRequest} con los datos del nuevo usuario.
+     * @param principal El administrador autenticado (para la auditoría).
      * @return Un {@link ResponseEntity} con el {@link UserResponse} del usuario creado.
      */
     @PostMapping
-    public ResponseEntity<UserResponse> create(@RequestBody @Valid UserCreateRequest request) {
+    public ResponseEntity<UserResponse> create(@RequestBody @Valid UserCreateRequest request, Principal principal) {
         logger.info("Solicitud recibida para crear un nuevo usuario.");
         UserResponse response = userService.create(request);
+        auditTrail.record(AuditEventType.USER_CREATED, principal.getName(), String.valueOf(response.id()), response.username());
         logger.info("Usuario creado exitosamente con ID: {}", response.id());
         return ResponseEntity.ok(response);
     }
 
     /**
      * Endpoint para actualizar un usuario existente.
+     * Con {@code If-Match} (el ETag de {@code GET /users/{id}}) la actualización solo se aplica si el usuario no
+     * cambió desde esa lectura; si cambió se responde 412.
      *
      * @param id El ID del usuario a actualizar.
+     * @param ifMatch La cabecera {@code If-Match} opcional.
      * @param request El objeto {@link UserUpdateRequest} con los nuevos datos del usuario.
-     * @return Un {@link ResponseEntity} con el {@link UserResponse} del usuario actualizado.
+     * @param principal El administrador autenticado (para la auditoría).
+     * @return Un {@link ResponseEntity} con el {@link UserResponse} del usuario actualizado y su nuevo ETag.
      */
     @PutMapping("/{id}")
-    public ResponseEntity<UserResponse> update(@PathVariable Long id, @RequestBody @Valid UserUpdateRequest request) {
+    public ResponseEntity<UserResponse> update(@PathVariable Long id,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                               @RequestBody @Valid UserUpdateRequest request,
+                                               Principal principal) {
         logger.info("Solicitud recibida para actualizar el usuario con ID: {}", id);
-        UserResponse response = userService.update(id, request);
+        if (ifMatch == null && requireIfMatch) {
+            throw new PreconditionRequiredException("Se requiere la cabecera If-Match con el ETag del usuario");
+        }
+        UserResponse response = userService.update(id, request, acceptedVersions(ifMatch));
+        auditTrail.record(AuditEventType.USER_UPDATED, principal.getName(), String.valueOf(id), changedFields(request));
         logger.info("Usuario con ID: {} actualizado exitosamente.", id);
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().eTag(eTag(response)).body(response);
     }
 
     /**
      * Endpoint para eliminar un usuario.
      *
      * @param id El ID del usuario a eliminar.
+     * @param principal El administrador autenticado (para la auditoría).
      * @return Un {@link ResponseEntity} con el estado no-content.
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable Long id) {
+    public ResponseEntity<Void> delete(@PathVariable Long id, Principal principal) {
         logger.info("Solicitud recibida para eliminar el usuario con ID: {}", id);
         userService.delete(id);
+        auditTrail.record(AuditEventType.USER_DELETED, principal.getName(), String.valueOf(id), null);
         logger.info("Usuario con ID: {} eliminado exitosamente.", id);
         return ResponseEntity.noContent().build();
     }
 
     /**
      * Endpoint para obtener un usuario por su ID.
+     * Responde con el ETag de la versión del usuario; con {@code If-None-Match} igual a ese ETag responde 304.
      *
      * @param id El ID del usuario a obtener.
+     * @param webRequest La petición, para evaluar {@code If-None-Match}.
      * @return Un {@link ResponseEntity} con el {@link UserResponse} del usuario encontrado.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<UserResponse> getById(@PathVariable Long id) {
+    public ResponseEntity<UserResponse> getById(@PathVariable Long id, WebRequest webRequest) {
         logger.info("Solicitud recibida para obtener el usuario con ID: {}", id);
         UserResponse response = userService.getById(id);
         logger.debug("Usuario con ID: {} encontrado.", id);
-        return ResponseEntity.ok(response);
+        if (response.version() != null && webRequest.checkNotModified(eTag(response))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag(response)).build();
+        }
+        return ResponseEntity.ok().eTag(eTag(response)).body(response);
     }
 
     /**
@@ -100,6 +148,94 @@ public class UsersController {
         return ResponseEntity.ok(users);
     }
 
+    /**
+     * Endpoint para obtener un usuario por su ID externo (el claim {@code userId} de los tokens).
+     *
+     * @param externalId El UUID externo del usuario.
+     * @return Un {@link ResponseEntity} con el {@link UserResponse} del usuario encontrado.
+     */
+    @GetMapping("/by-external-id/{externalId}")
+    public ResponseEntity<UserResponse> getByExternalId(@PathVariable UUID externalId) {
+        logger.info("Solicitud recibida para obtener el usuario con externalId: {}", externalId);
+        UserResponse response = userService.getByExternalId(externalId);
+        logger.debug("Usuario con externalId: {} encontrado.", externalId);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Endpoint para obtener varios usuarios por sus IDs externos en una sola consulta.
+     * Los IDs que no existen se omiten de la respuesta.
+     *
+     * @param externalIds La lista de UUID externos a buscar.
+     * @return Un {@link ResponseEntity} con la lista de {@link UserResponse} encontrados.
+     * @deprecated Usar {@code POST /users/batch}, que además acepta IDs internos e informa los no encontrados.
+     *             Se mantiene para los clientes existentes y resuelve con la misma búsqueda.
+     */
+    @Deprecated
+    @PostMapping("/by-external-id")
+    public ResponseEntity<List<UserResponse>> getByExternalIds(@RequestBody List<UUID> externalIds) {
+        logger.info("Solicitud recibida para obtener usuarios por lote de externalIds (endpoint obsoleto).");
+        UserBatchResponse batch = userService.getBatch(new UserBatchRequest(null, externalIds));
+        List<UserResponse> users = List.copyOf(new LinkedHashSet<>(batch.users().values()));
+        logger.debug("Se encontraron {} usuarios.", users.size());
+        return ResponseEntity.ok(users);
+    }
+
+    /**
+     * Endpoint para resolver en una sola llamada varios usuarios por ID interno y/o ID externo.
+     * Pensado para servicios que antes consultaban {@code GET /users/{id}} uno a uno; accesible con rol ADMIN o SERVICE.
+     *
+     * @param request El objeto {@link UserBatchRequest} con los identificadores a buscar.
+     * @return Un {@link ResponseEntity} con el {@link UserBatchResponse} indexado por identificador.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<UserBatchResponse> getBatch(@RequestBody @Valid UserBatchRequest request) {
+        logger.info("Solicitud recibida para obtener usuarios en lote.");
+        UserBatchResponse response = userService.getBatch(request);
+        logger.debug("Lote resuelto con {} usuarios.", response.users().size());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Endpoint para listar los usuarios de un laboratorio, con paginación keyset.
+     * La siguiente página se obtiene repitiendo la llamada con {@code after} igual al {@code nextAfter} recibido.
+     *
+     * @param labCode El código del laboratorio.
+     * @param role    Filtro opcional por rol (por ejemplo {@code LAB_TECH}).
+     * @param active  Si se listan usuarios activos (por defecto) o inactivos.
+     * @param after   El cursor: se devuelven usuarios con ID mayor a este valor.
+     * @param size    El tamaño de página (por defecto {@code auth.users.lab.page-size}).
+     * @return Un {@link ResponseEntity} con la {@link KeysetPageResponse} de {@link LabUserResponse}.
+     */
+    @GetMapping("/by-lab/{labCode}")
+    public ResponseEntity<KeysetPageResponse<LabUserResponse>> listByLab(@PathVariable String labCode,
+                                                                       @RequestParam(required = false) String role,
+                                                                       @RequestParam(defaultValue = "true") boolean active,
+                                                                       @RequestParam(required = false) Long after,
+                                                                       @RequestParam(required = false) Integer size) {
+        logger.info("Solicitud recibida para listar usuarios del laboratorio: {}", labCode);
+        KeysetPageResponse<LabUserResponse> page = userService.listByLab(labCode, role, active, after, size);
+        logger.debug("Se encontraron {} usuarios en el laboratorio {}.", page.content().size(), labCode);
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * Endpoint para buscar usuarios por username o email, por prefijo o subcadena.
+     * Los resultados vienen ordenados: coincidencia exacta, luego prefijo, luego subcadena.
+     *
+     * @param q     El texto a buscar (sin distinguir mayúsculas; subcadena desde 3 caracteres).
+     * @param limit El máximo de resultados (por defecto {@code auth.users.search.default-limit}).
+     * @return Un {@link ResponseEntity} con la lista de {@link UserSearchResult}.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<UserSearchResult>> search(@RequestParam String q,
+                                                         @RequestParam(required = false) Integer limit) {
+        logger.info("Solicitud recibida para buscar usuarios: {}", q);
+        List<UserSearchResult> results = userService.search(q, limit);
+        logger.debug("Se encontraron {} usuarios para la búsqueda.", results.size());
+        return ResponseEntity.ok(results);
+    }
+
     /**
      * Endpoint para obtener la información del usuario autenticado actualmente.
      *
@@ -109,8 +245,68 @@ public class UsersController {
     @GetMapping("/me")
     public ResponseEntity<UserResponse> me(Principal principal) {
         logger.info("Solicitud recibida para obtener la información del usuario autenticado: {}", principal.getName());
-        UserResponse response = userService.me(principal.getName());
+        // Los tokens del perfil compacto no llevan username: se resuelve por externalId
+        UserResponse response = principal instanceof Authentication a
+                && a.getDetails() instanceof JwtPayload p && p.username() == null && p.userId() != null
+                ? userService.getByExternalId(UUID.fromString(p.userId()))
+                : userService.me(principal.getName());
         logger.debug("Información del usuario autenticado obtenida exitosamente.");
         return ResponseEntity.ok(response);
     }
+
+    // Solo los nombres de los campos modificados: la auditoría no guarda valores (ni la contraseña)
+    private static String changedFields(UserUpdateRequest request) {
+        StringJoiner fields = new StringJoiner(",");
+        if (request.email() != null) fields.add("email");
+        if (request.password() != null) fields.add("password");
+        if (request.labCode() != null) fields.add("labCode");
+        if (request.roles() != null) fields.add("roles");
+        if (request.active() != null) fields.add("active");
+        return fields.toString();
+    }
+
+    private static String eTag(UserResponse response) {
+        return response.version() == null ? null : "\"" + response.version() + "\"";
+    }
+
+    /**
+     * Interpreta {@code If-Match} (RFC 9110 §13.1.1): {@code *} o ausente no imponen versión; si no, se aceptan las
+     * versiones de todos los ETag fuertes de la lista. If-Match usa comparación fuerte, así que los ETag débiles
+     * ({@code W/"..."}) nunca coinciden, igual que los que este servicio no emitió (no numéricos).
+     *
+     * @param ifMatch El valor de la cabecera, o null.
+     * @return las versiones aceptadas, o null si no hay condición.
+     * @throws PreconditionFailedException si ningún ETag de la lista puede coincidir.
+     */
+    static List<Long> acceptedVersions(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) return null;
+        List<Long> versions = new ArrayList<>();
+        int i = 0, n = ifMatch.length();
+        while (i < n) {
+            char c = ifMatch.charAt(i);
+            if (c == ',' || c == ' ' || c == '\t') {
+                i++;
+                continue;
+            }
+            boolean weak = ifMatch.startsWith("W/", i);
+            int open = weak ? i + 2 : i;
+            int close = open < n && ifMatch.charAt(open) == '"' ? ifMatch.indexOf('"', open + 1) : -1;
+            if (close < 0) break; // Mal formado: lo que sigue no se puede interpretar
+            if (!weak) {
+                String tag = ifMatch.substring(open + 1, close);
+                if (!tag.isEmpty() && tag.chars().allMatch(Character::isDigit)) {
+                    try {
+                        versions.add(Long.valueOf(tag));
+                    } catch (NumberFormatException ignored) {
+                        // Fuera de rango: no es una versión emitida por este servicio
+                    }
+                }
+            }
+            i = close + 1;
+        }
+        if (versions.isEmpty()) {
+            throw new PreconditionFailedException("If-Match no corresponde a una versión del usuario");
+        }
+        return versions;
+    }
 }
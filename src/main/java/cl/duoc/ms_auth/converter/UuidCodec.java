@@ -0,0 +1,53 @@
+package cl.duoc.ms_auth.converter;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.UUID;
+
+/**
+ * Codificación binaria de {@link UUID} a RAW(16) (big-endian) sin objetos intermedios.
+ * A diferencia de {@link java.nio.ByteBuffer}, no depende del análisis de escape del JIT para
+ * evitar el objeto envoltorio (que sí se asigna en modo interpretado y en C1).
+ */
+public final class UuidCodec {
+
+    // Vista big-endian de byte[] como long: el JIT la compila a una sola lectura/escritura de 8 bytes.
+    private static final VarHandle LONG_BE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private UuidCodec() {
+    }
+
+    /**
+     * Convierte un UUID en sus 16 bytes big-endian.
+     *
+     * @param uuid El UUID a convertir.
+     * @return Un arreglo nuevo de 16 bytes, o null si el UUID es null.
+     */
+    public static byte[] toBytes(UUID uuid) {
+        if (uuid == null) return null;
+        byte[] out = new byte[16];
+        putLong(out, 0, uuid.getMostSignificantBits());
+        putLong(out, 8, uuid.getLeastSignificantBits());
+        return out;
+    }
+
+    /**
+     * Convierte 16 bytes big-endian en un UUID.
+     *
+     * @param bytes Los bytes a convertir.
+     * @return El UUID, o null si el arreglo es null o no tiene 16 bytes.
+     */
+    public static UUID fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != 16) return null;
+        return new UUID(getLong(bytes, 0), getLong(bytes, 8));
+    }
+
+    static void putLong(byte[] b, int off, long v) {
+        LONG_BE.set(b, off, v);
+    }
+
+    static long getLong(byte[] b, int off) {
+        return (long) LONG_BE.get(b, off);
+    }
+}
@@ -2,7 +2,6 @@ package cl.duoc.ms_auth.converter;
 
 import jakarta.persistence.AttributeConverter;
 import jakarta.persistence.Converter;
-import java.nio.ByteBuffer;
 import java.util.UUID;
 
 /**
@@ -20,11 +19,7 @@ public class UuidRaw16Converter implements AttributeConverter<UUID, byte[]> {
      */
     @Override
     public byte[] convertToDatabaseColumn(UUID attribute) {
-        if (attribute == null) return null;
-        ByteBuffer bb = ByteBuffer.allocate(16);
-        bb.putLong(attribute.getMostSignificantBits());
-        bb.putLong(attribute.getLeastSignificantBits());
-        return bb.array();
+        return UuidCodec.toBytes(attribute);
     }
 
     /**
@@ -35,10 +30,6 @@ public class UuidRaw16Converter implements AttributeConverter<UUID, byte[]> {
      */
     @Override
     public UUID convertToEntityAttribute(byte[] dbData) {
-        if (dbData == null || dbData.length != 16) return null;
-        ByteBuffer bb = ByteBuffer.wrap(dbData);
-        long most = bb.getLong();
-        long least = bb.getLong();
-        return new UUID(most, least);
+        return UuidCodec.fromBytes(dbData);
     }
 }
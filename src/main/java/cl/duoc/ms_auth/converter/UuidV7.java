@@ -0,0 +1,65 @@
+package cl.duoc.ms_auth.converter;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generador de UUID versión 7 (RFC 9562): 48 bits de milisegundos Unix seguidos de bits aleatorios.
+ * Como RAW(16) se compara byte a byte, los valores nuevos quedan al final del índice
+ * {@code UQ_USERS_EXTID} en lugar de repartirse al azar por el B-tree.
+ * <p>
+ * Los 12 bits {@code rand_a} son el contador del método 1 de la RFC: al cambiar de milisegundo se siembra con 11 bits
+ * aleatorios (el bit alto queda en 0 como margen) y dentro del mismo milisegundo se incrementa, así los IDs de un
+ * mismo milisegundo salen en orden. Si el contador se agota, el acarreo adelanta el timestamp un milisegundo, como
+ * permite la RFC; si el reloj retrocede hasta {@link #MAX_LAG_MILLIS} se sigue desde el último valor emitido.
+ * Los 62 bits {@code rand_b} salen de un único {@code nextLong()}.
+ */
+public final class UuidV7 {
+
+    /** Retroceso máximo (acarreo del contador o ajuste del reloj) que aún continúa la secuencia anterior. */
+    static final long MAX_LAG_MILLIS = 1000;
+
+    private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(SecureRandom::new);
+    // Último (milisegundos << 12 | contador) emitido; el contador acarrea directamente al timestamp
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private UuidV7() {
+    }
+
+    /**
+     * Genera un UUIDv7 con la hora actual.
+     *
+     * @return un UUID nuevo ordenado por tiempo.
+     */
+    public static UUID generate() {
+        return generate(System.currentTimeMillis());
+    }
+
+    /**
+     * Genera un UUIDv7 para un instante dado. Si {@code epochMillis} es anterior al último emitido en más de
+     * {@link #MAX_LAG_MILLIS} se respeta el instante pedido con un contador nuevo, sin orden garantizado respecto de
+     * los anteriores.
+     *
+     * @param epochMillis Los milisegundos Unix a codificar.
+     * @return un UUID nuevo ordenado por tiempo.
+     */
+    public static UUID generate(long epochMillis) {
+        SecureRandom random = RANDOM.get();
+        long millis = epochMillis & 0xFFFF_FFFF_FFFFL;
+        long state;
+        while (true) {
+            long prev = LAST.get();
+            long prevMillis = prev >>> 12;
+            if (prevMillis - millis > MAX_LAG_MILLIS) {
+                state = millis << 12 | random.nextInt(0x800);
+                break;
+            }
+            state = millis > prevMillis ? millis << 12 | random.nextInt(0x800) : prev + 1;
+            if (LAST.compareAndSet(prev, state)) break;
+        }
+        long msb = (state >>> 12 & 0xFFFF_FFFF_FFFFL) << 16 | 0x7000L | state & 0xFFFL;
+        long lsb = (random.nextLong() & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L;
+        return new UUID(msb, lsb);
+    }
+}
@@ -0,0 +1,14 @@
+package cl.duoc.ms_auth.dtos;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+/**
+ * Un record que representa una solicitud de introspección de varios tokens en una sola llamada.
+ *
+ * @param tokens Los tokens a inspeccionar; la respuesta conserva el mismo orden.
+ */
+public record IntrospectionBatchRequest(
+        @NotEmpty List<String> tokens
+) {}
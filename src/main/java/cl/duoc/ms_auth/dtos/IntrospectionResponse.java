@@ -0,0 +1,43 @@
+package cl.duoc.ms_auth.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Un record que representa la respuesta de introspección de un token (estilo RFC 7662).
+ * Si el token no está activo solo se informa {@code active=false}.
+ *
+ * @param active Si el token es válido y su usuario sigue activo.
+ * @param sub El nombre de usuario (subject) del token.
+ * @param userId El ID externo del usuario.
+ * @param roles Los roles incluidos en el token.
+ * @param labCode El código de laboratorio incluido en el token.
+ * @param iss El emisor del token.
+ * @param exp La expiración del token en segundos desde epoch.
+ * @param tokenType El tipo de token.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record IntrospectionResponse(
+        boolean active,
+        String sub,
+        String userId,
+        List<String> roles,
+        String labCode,
+        String iss,
+        Long exp,
+        @JsonProperty("token_type") String tokenType
+) {
+    private static final IntrospectionResponse INACTIVE =
+            new IntrospectionResponse(false, null, null, null, null, null, null, null);
+
+    /**
+     * Respuesta para tokens inválidos, expirados o de usuarios inactivos.
+     *
+     * @return la respuesta inactiva compartida.
+     */
+    public static IntrospectionResponse inactive() {
+        return INACTIVE;
+    }
+}
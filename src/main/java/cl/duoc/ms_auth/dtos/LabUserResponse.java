@@ -0,0 +1,19 @@
+package cl.duoc.ms_auth.dtos;
+
+/**
+ * Un record que representa un usuario en el listado por laboratorio.
+ * Es una versión reducida de {@link UserResponse}, sin roles ni fechas.
+ *
+ * @param id El ID interno del usuario (también es el cursor de la paginación).
+ * @param externalId El ID externo del usuario (UUID como cadena).
+ * @param username El nombre de usuario.
+ * @param email La dirección de correo electrónico del usuario.
+ * @param active El estado del usuario (activo o inactivo).
+ */
+public record LabUserResponse(
+        Long id,
+        String externalId,
+        String username,
+        String email,
+        boolean active
+) {}
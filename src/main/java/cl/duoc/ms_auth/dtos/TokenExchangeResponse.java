@@ -0,0 +1,18 @@
+package cl.duoc.ms_auth.dtos;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Un record que representa la respuesta de un intercambio de tokens (RFC 8693).
+ *
+ * @param accessToken     El token emitido para la audiencia solicitada.
+ * @param issuedTokenType El tipo del token emitido ({@code urn:ietf:params:oauth:token-type:jwt}).
+ * @param tokenType       Cómo se presenta el token ({@code Bearer}).
+ * @param expiresIn       Los segundos que le quedan de vida al token.
+ */
+public record TokenExchangeResponse(
+        @JsonProperty("access_token") String accessToken,
+        @JsonProperty("issued_token_type") String issuedTokenType,
+        @JsonProperty("token_type") String tokenType,
+        @JsonProperty("expires_in") long expiresIn
+) {}
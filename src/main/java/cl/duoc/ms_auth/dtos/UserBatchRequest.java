@@ -0,0 +1,18 @@
+package cl.duoc.ms_auth.dtos;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Un record que representa una solicitud de búsqueda de usuarios en lote.
+ * Se puede combinar IDs internos e IDs externos; el total está acotado por configuración. Ningún elemento puede ser null.
+ *
+ * @param ids Los IDs internos a buscar (opcional).
+ * @param externalIds Los IDs externos (claim {@code userId}) a buscar (opcional).
+ */
+public record UserBatchRequest(
+        List<@NotNull Long> ids,
+        List<@NotNull UUID> externalIds
+) {}
@@ -0,0 +1,15 @@
+package cl.duoc.ms_auth.dtos;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Un record que representa la respuesta de una búsqueda de usuarios en lote.
+ *
+ * @param users Los usuarios encontrados, indexados por el identificador tal como fue solicitado (ID o externalId).
+ * @param notFound Los identificadores solicitados que no existen.
+ */
+public record UserBatchResponse(
+        Map<String, UserResponse> users,
+        List<String> notFound
+) {}
@@ -17,6 +17,7 @@ import java.util.List;
  * @param active El estado del usuario (activo o inactivo).
  * @param createdAt La fecha y hora de creación del usuario.
  * @param updatedAt La fecha y hora de la última actualización del usuario.
+ * @param version La versión de la fila (la misma que el ETag de {@code /users/{id}}).
  */
 public record UserResponse(
         Long id,
@@ -27,5 +28,6 @@ public record UserResponse(
         String labCode,
         boolean active,
         LocalDateTime createdAt,
-        LocalDateTime updatedAt
+        LocalDateTime updatedAt,
+        Long version
 ) {}
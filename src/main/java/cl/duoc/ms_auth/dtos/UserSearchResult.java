@@ -0,0 +1,20 @@
+package cl.duoc.ms_auth.dtos;
+
+/**
+ * Un record que representa un resultado de la búsqueda de usuarios.
+ *
+ * @param id El ID interno del usuario.
+ * @param externalId El ID externo del usuario (UUID como cadena).
+ * @param username El nombre de usuario.
+ * @param email La dirección de correo electrónico del usuario.
+ * @param active El estado del usuario (activo o inactivo).
+ * @param match El tipo de coincidencia: {@code EXACT}, {@code PREFIX} o {@code INFIX}.
+ */
+public record UserSearchResult(
+        Long id,
+        String externalId,
+        String username,
+        String email,
+        boolean active,
+        String match
+) {}
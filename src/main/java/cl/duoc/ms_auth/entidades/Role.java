@@ -2,6 +2,8 @@ package cl.duoc.ms_auth.entidades;
 
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 
@@ -10,6 +12,7 @@ import java.time.LocalDateTime;
  * Define los permisos y el nivel de acceso que un usuario puede tener.
  */
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "roles")
 @Table(name = "ROLES",
         uniqueConstraints = @UniqueConstraint(name="UQ_ROLES_NAME", columnNames = "NAME"))
 public class Role {
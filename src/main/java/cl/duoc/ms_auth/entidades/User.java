@@ -2,7 +2,14 @@ package cl.duoc.ms_auth.entidades;
 
 
 import cl.duoc.ms_auth.converter.UuidRaw16Converter;
+import cl.duoc.ms_auth.converter.UuidV7;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
+
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -11,6 +18,8 @@ import java.util.*;
  * Contiene la información de autenticación y los datos personales del usuario.
  */
 @Entity
+@DynamicUpdate
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 @Table(name = "USERS",
         uniqueConstraints = {
                 @UniqueConstraint(name="UQ_USERS_USERNAME", columnNames = "USERNAME"),
@@ -68,20 +77,37 @@ public class User {
     /**
      * La fecha y hora en que se creó el usuario. Gestionado por la base de datos.
      */
-    // Timestamps gestionados por la BD (DEFAULT + TRIGGER).
+    // Timestamps gestionados por la BD (DEFAULT + TRIGGER). Se releen tras escribir para no cachear valores nulos.
+    @Generated(event = EventType.INSERT)
     @Column(name = "CREATED_AT", insertable = false, updatable = false)
     private LocalDateTime createdAt;
 
     /**
      * La fecha y hora de la última actualización del usuario. Gestionado por la base de datos.
      */
+    @Generated(event = {EventType.INSERT, EventType.UPDATE})
     @Column(name = "UPDATED_AT", insertable = false, updatable = false)
     private LocalDateTime updatedAt;
 
+    /**
+     * Fin del bloqueo por logins fallidos, o null. Solo lo escribe {@code LoginAttemptTracker} (por JDBC).
+     */
+    @Column(name = "LOCKED_UNTIL", insertable = false, updatable = false)
+    private LocalDateTime lockedUntil;
+
+    /**
+     * La versión de la fila para el bloqueo optimista. Se expone como ETag en {@code /users/{id}}.
+     */
+    // Con @DynamicUpdate el UPDATE solo escribe las columnas modificadas, más VERSION en el SET y en el WHERE
+    @Version
+    @Column(name = "VERSION", nullable = false)
+    private Long version;
+
     /**
      * El conjunto de roles asignados al usuario.
      */
     @ManyToMany(fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users.roles")
     @JoinTable(
             name = "USER_ROLES",
             joinColumns = @JoinColumn(name = "USER_ID"),
@@ -91,11 +117,11 @@ public class User {
 
     /**
      * Método de ciclo de vida de JPA que se ejecuta antes de que la entidad sea persistida.
-     * Asigna un UUID si no existe y establece el estado activo por defecto.
+     * Asigna un UUID (v7, ordenado por tiempo) si no existe y establece el estado activo por defecto.
      */
     @PrePersist
     public void prePersist() {
-        if (externalId == null) externalId = UUID.randomUUID(); // espejo lógico de SYS_GUID()
+        if (externalId == null) externalId = UuidV7.generate(); // espejo lógico de SYS_GUID(), pero ordenado
         if (active == null) active = "Y";
     }
 
@@ -194,6 +220,18 @@ public class User {
         this.updatedAt = updatedAt;
     }
 
+    public LocalDateTime getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Set<Role> getRoles() {
         return roles;
     }
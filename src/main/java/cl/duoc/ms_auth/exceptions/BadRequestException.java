@@ -1,5 +1,5 @@
 package cl.duoc.ms_auth.exceptions;
 
 public class BadRequestException extends RuntimeException {
-    public BadRequestException(String msg){ super(msg); }
+    public BadRequestException(String msg){ super(msg, null, false, false); }
 }
@@ -1,5 +1,5 @@
 package cl.duoc.ms_auth.exceptions;
 
 public class ConflictException extends RuntimeException {
-    public ConflictException(String msg){ super(msg); }
+    public ConflictException(String msg){ super(msg, null, false, false); }
 }
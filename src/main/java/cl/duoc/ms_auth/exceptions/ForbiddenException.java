@@ -1,5 +1,5 @@
 package cl.duoc.ms_auth.exceptions;
 
 public class ForbiddenException extends RuntimeException {
-    public ForbiddenException(String msg) { super(msg); }
+    public ForbiddenException(String msg) { super(msg, null, false, false); }
 }
\ No newline at end of file
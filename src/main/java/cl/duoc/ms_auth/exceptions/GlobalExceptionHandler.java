@@ -1,18 +1,58 @@
 package cl.duoc.ms_auth.exceptions;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.net.URI;
+import java.util.concurrent.RejectedExecutionException;
 
+/**
+ * Traduce las excepciones a respuestas RFC 7807.
+ * <p>
+ * Los errores más frecuentes (401, 403, 404, 409 y el 500 genérico; bajo un ataque de credenciales casi todo el
+ * tráfico es 401) usan cuerpos pre-serializados con {@link ProblemTemplate}: sin {@code ProblemDetail},
+ * {@code URI.create} ni Jackson por petición. Las excepciones propias no capturan stack trace.
+ */
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private final ProblemTemplate conflict;
+    private final ProblemTemplate concurrentModification;
+    private final ProblemTemplate notFound;
+    private final ProblemTemplate forbidden;
+    private final ProblemTemplate unauthorized;
+    private final ProblemTemplate accessDenied;
+    private final ProblemTemplate unhandled;
+
+    public GlobalExceptionHandler(ObjectMapper objectMapper) {
+        this.conflict = new ProblemTemplate(objectMapper, HttpStatus.CONFLICT, "Conflict users", "https://api.localhost:8080errors/business-rule");
+        this.concurrentModification = new ProblemTemplate(objectMapper, HttpStatus.CONFLICT, "Concurrent modification", "https://api.localhost:8080/errors/concurrent-modification");
+        this.notFound = new ProblemTemplate(objectMapper, HttpStatus.NOT_FOUND, "User not found", "https://api.localhost:8080/errors/student-not-found");
+        this.forbidden = new ProblemTemplate(objectMapper, HttpStatus.FORBIDDEN, "Forbidden credentials", "https://api.localhost:8080errors/business-rule");
+        this.unauthorized = new ProblemTemplate(objectMapper, HttpStatus.UNAUTHORIZED, "Unauthorized credentials", "https://api.localhost:8080errors/business-rule");
+        this.accessDenied = new ProblemTemplate(objectMapper, HttpStatus.FORBIDDEN, "Forbidden", null);
+        this.unhandled = new ProblemTemplate(objectMapper, HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error", null);
+    }
+
+    private static ResponseEntity<byte[]> respond(ProblemTemplate template, String detail, String reason, HttpServletRequest request) {
+        return ResponseEntity.status(template.status())
+                .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .body(template.body(detail, reason, request.getRequestURI()));
+    }
+
     @ExceptionHandler(BadRequestException.class)
     ProblemDetail handleUserBadRequest(BadRequestException ex) {
         ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ex.getMessage());
@@ -22,37 +62,65 @@ public class GlobalExceptionHandler {
     }
 
     @ExceptionHandler(ConflictException.class)
-    ProblemDetail handleUserConflict(ConflictException ex) {
-        ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, ex.getMessage());
-        pd.setTitle("Conflict users");
-        pd.setType(URI.create("https://api.localhost:8080errors/business-rule"));
+    ResponseEntity<byte[]> handleUserConflict(ConflictException ex, HttpServletRequest request) {
+        return respond(conflict, ex.getMessage(), null, request);
+    }
+
+    // If-Match no coincide con la versión actual del recurso
+    @ExceptionHandler(PreconditionFailedException.class)
+    ProblemDetail handlePreconditionFailed(PreconditionFailedException ex) {
+        ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.PRECONDITION_FAILED, ex.getMessage());
+        pd.setTitle("Precondition failed");
+        pd.setType(URI.create("https://api.localhost:8080/errors/precondition-failed"));
         return pd;
     }
 
-    @ExceptionHandler(NotFoundException.class)
-    ProblemDetail handleUserNotFound(NotFoundException ex) {
-        ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, ex.getMessage());
-        pd.setTitle("User not found");
-        pd.setType(URI.create("https://api.localhost:8080/errors/student-not-found"));
+    @ExceptionHandler(PreconditionRequiredException.class)
+    ProblemDetail handlePreconditionRequired(PreconditionRequiredException ex) {
+        ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.PRECONDITION_REQUIRED, ex.getMessage());
+        pd.setTitle("Precondition required");
+        pd.setType(URI.create("https://api.localhost:8080/errors/precondition-required"));
         return pd;
     }
 
+    // Otra transacción modificó la fila entre la lectura y el UPDATE (VERSION distinta)
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    ResponseEntity<byte[]> handleOptimisticLock(ObjectOptimisticLockingFailureException ex, HttpServletRequest request) {
+        return respond(concurrentModification, "El recurso fue modificado por otra solicitud", null, request);
+    }
+
+    @ExceptionHandler(NotFoundException.class)
+    ResponseEntity<byte[]> handleUserNotFound(NotFoundException ex, HttpServletRequest request) {
+        return respond(notFound, ex.getMessage(), null, request);
+    }
+
     @ExceptionHandler(ForbiddenException.class)
-    ProblemDetail handleUserForbidden(ForbiddenException ex) {
-        ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.FORBIDDEN, ex.getMessage());
-        pd.setTitle("Forbidden credentials");
-        pd.setType(URI.create("https://api.localhost:8080errors/business-rule"));
-        return pd;
+    ResponseEntity<byte[]> handleUserForbidden(ForbiddenException ex, HttpServletRequest request) {
+        return respond(forbidden, ex.getMessage(), null, request);
     }
 
     @ExceptionHandler(UnauthorizedException.class)
-    ProblemDetail handleUserUnauthorized(UnauthorizedException ex) {
-        ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.UNAUTHORIZED, ex.getMessage());
-        pd.setTitle("Unauthorized credentials");
-        pd.setType(URI.create("https://api.localhost:8080errors/business-rule"));
-        return pd;
+    ResponseEntity<byte[]> handleUserUnauthorized(UnauthorizedException ex, HttpServletRequest request) {
+        return respond(unauthorized, ex.getMessage(), null, request);
     }
 
+    // Pool de login lleno (cola de LoginExecutorConfig): se rechaza rápido en vez de acumular hilos
+    @ExceptionHandler(RejectedExecutionException.class)
+    ResponseEntity<ProblemDetail> handleRejected(RejectedExecutionException ex) {
+        ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, "Servicio saturado, reintente en unos segundos");
+        pd.setTitle("Service unavailable");
+        pd.setType(URI.create("https://api.localhost:8080/errors/overloaded"));
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(pd);
+    }
+
+    // Petición asíncrona que superó spring.mvc.async.request-timeout
+    @ExceptionHandler(AsyncRequestTimeoutException.class)
+    ProblemDetail handleAsyncTimeout(AsyncRequestTimeoutException ex) {
+        ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, "La solicitud no se completó a tiempo");
+        pd.setTitle("Service unavailable");
+        pd.setType(URI.create("https://api.localhost:8080/errors/overloaded"));
+        return pd;
+    }
 
     // Validación @Valid / @Validated: devuelve los errores de campos
     @ExceptionHandler(MethodArgumentNotValidException.class)
@@ -74,22 +142,24 @@ public class GlobalExceptionHandler {
         return pd;
     }
 
+    // Parámetros de ruta/consulta con formato inválido (p. ej. un UUID mal formado)
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    ProblemDetail handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
+        ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, "Valor inválido para '" + ex.getName() + "'");
+        pd.setTitle("Invalid parameter");
+        pd.setType(URI.create("https://api.localhost:8080/errors/validation"));
+        return pd;
+    }
+
     // Seguridad
     @ExceptionHandler(AccessDeniedException.class)
-    ProblemDetail handleAccessDenied(AccessDeniedException ex) {
-        ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.FORBIDDEN);
-        pd.setTitle("Forbidden");
-        pd.setDetail("You don't have permission to perform this action.");
-        return pd;
+    ResponseEntity<byte[]> handleAccessDenied(AccessDeniedException ex, HttpServletRequest request) {
+        return respond(accessDenied, "You don't have permission to perform this action.", null, request);
     }
 
     // Fallback genérico
     @ExceptionHandler(Exception.class)
-    ProblemDetail handleUnhandled(Exception ex) {
-        ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.INTERNAL_SERVER_ERROR);
-        pd.setTitle("Internal Server Error");
-        pd.setDetail("Unexpected error. Please contact support.");
-        pd.setProperty("reason", ex.getClass().getSimpleName());
-        return pd;
+    ResponseEntity<byte[]> handleUnhandled(Exception ex, HttpServletRequest request) {
+        return respond(unhandled, "Unexpected error. Please contact support.", ex.getClass().getSimpleName(), request);
     }
 }
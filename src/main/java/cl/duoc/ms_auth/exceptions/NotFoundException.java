@@ -1,5 +1,5 @@
 package cl.duoc.ms_auth.exceptions;
 
 public class NotFoundException extends RuntimeException {
-    public NotFoundException(String msg){ super(msg); }
+    public NotFoundException(String msg){ super(msg, null, false, false); }
 }
@@ -0,0 +1,5 @@
+package cl.duoc.ms_auth.exceptions;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String msg){ super(msg, null, false, false); }
+}
@@ -0,0 +1,5 @@
+package cl.duoc.ms_auth.exceptions;
+
+public class PreconditionRequiredException extends RuntimeException {
+    public PreconditionRequiredException(String msg){ super(msg, null, false, false); }
+}
@@ -0,0 +1,104 @@
+package cl.duoc.ms_auth.exceptions;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cuerpo {@code application/problem+json} pre-serializado para un error de forma fija (status, title y type).
+ * <p>
+ * Cada combinación de {@code detail} y {@code reason} se serializa con Jackson una sola vez; después cada respuesta
+ * solo copia bytes e inserta {@code instance} (el path de la petición, que Spring MVC agrega a todo
+ * {@link ProblemDetail} devuelto por un handler). La salida es idéntica byte a byte a la de Jackson con el
+ * {@code ProblemDetail} equivalente (ver {@code ErrorPathBenchmark}).
+ * <p>
+ * Los detalles salen de mensajes fijos del código; como resguardo, pasadas {@value #MAX_VARIANTS} variantes
+ * las nuevas se serializan sin guardarlas.
+ */
+public final class ProblemTemplate {
+
+    private static final int MAX_VARIANTS = 64;
+    private static final byte[] INSTANCE = ",\"instance\":\"".getBytes(StandardCharsets.UTF_8);
+
+    private record Parts(byte[] head, byte[] tail) {}
+
+    private final ObjectMapper objectMapper;
+    private final HttpStatus status;
+    private final String title;
+    private final URI type;
+    private final Map<String, Parts> variants = new ConcurrentHashMap<>();
+
+    /**
+     * @param objectMapper El mapper de la aplicación (con el mixin de {@link ProblemDetail}).
+     * @param status       El status HTTP.
+     * @param title        El título del problema.
+     * @param type         El URI del tipo, o null para {@code about:blank}.
+     */
+    public ProblemTemplate(ObjectMapper objectMapper, HttpStatus status, String title, String type) {
+        this.objectMapper = objectMapper;
+        this.status = status;
+        this.title = title;
+        this.type = type == null ? null : URI.create(type);
+    }
+
+    public HttpStatus status() {
+        return status;
+    }
+
+    /**
+     * Arma el cuerpo para una petición.
+     *
+     * @param detail     El detalle, o null.
+     * @param reason     La propiedad extra {@code reason}, o null.
+     * @param requestUri El path de la petición ({@code HttpServletRequest#getRequestURI()}).
+     * @return el JSON UTF-8.
+     */
+    public byte[] body(String detail, String reason, String requestUri) {
+        String key = reason == null ? String.valueOf(detail) : detail + '\u0000' + reason;
+        Parts parts = variants.get(key);
+        if (parts == null) {
+            parts = serialize(detail, reason);
+            if (variants.size() < MAX_VARIANTS) variants.putIfAbsent(key, parts);
+        }
+        byte[] path = JsonStringEncoder.getInstance().quoteAsUTF8(requestUri);
+        byte[] head = parts.head();
+        byte[] tail = parts.tail();
+        byte[] body = new byte[head.length + INSTANCE.length + path.length + 1 + tail.length];
+        int n = 0;
+        System.arraycopy(head, 0, body, n, head.length);
+        n += head.length;
+        System.arraycopy(INSTANCE, 0, body, n, INSTANCE.length);
+        n += INSTANCE.length;
+        System.arraycopy(path, 0, body, n, path.length);
+        n += path.length;
+        body[n++] = '"';
+        System.arraycopy(tail, 0, body, n, tail.length);
+        return body;
+    }
+
+    // head: el objeto sin la llave de cierre; tail: las propiedades extra (van después de instance) y el cierre
+    private Parts serialize(String detail, String reason) {
+        ProblemDetail pd = ProblemDetail.forStatusAndDetail(status, detail);
+        pd.setTitle(title);
+        if (type != null) pd.setType(type);
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(pd);
+            byte[] head = Arrays.copyOf(json, json.length - 1);
+            byte[] tail = reason == null
+                    ? new byte[] {'}'}
+                    : ("," + objectMapper.writeValueAsString(Map.of("reason", reason)).substring(1))
+                            .getBytes(StandardCharsets.UTF_8);
+            return new Parts(head, tail);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el ProblemDetail de " + status, e);
+        }
+    }
+}
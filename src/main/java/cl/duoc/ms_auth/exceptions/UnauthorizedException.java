@@ -1,5 +1,5 @@
 package cl.duoc.ms_auth.exceptions;
 
 public class UnauthorizedException extends RuntimeException {
-    public UnauthorizedException(String msg){ super(msg); }
+    public UnauthorizedException(String msg){ super(msg, null, false, false); }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package cl.duoc.ms_auth.mappers;
 
+import cl.duoc.ms_auth.converter.UuidV7;
 import cl.duoc.ms_auth.dtos.UserCreateRequest;
 import cl.duoc.ms_auth.dtos.UserResponse;
 import cl.duoc.ms_auth.dtos.UserUpdateRequest;
@@ -8,7 +9,6 @@ import cl.duoc.ms_auth.entidades.User;
 import cl.duoc.ms_auth.servicios.UserMapper;
 
 import java.util.Set;
-import java.util.UUID;
 
 /**
  * Implementación de la interfaz {@link UserMapper}.
@@ -27,7 +27,7 @@ public class UserMapperImpl implements UserMapper {
     @Override
     public User toNewEntity(UserCreateRequest req, String passwordHash, Set<Role> rolesResolved) {
         User u = new User();
-        u.setExternalId(UUID.randomUUID());
+        u.setExternalId(UuidV7.generate());
         u.setUsername(req.username());
         u.setEmail(req.email());
         u.setPasswordHash(passwordHash);
@@ -73,7 +73,8 @@ public class UserMapperImpl implements UserMapper {
                 e.getLabCode(),
                 ynToBool(e.getActive()),
                 e.getCreatedAt(),
-                e.getUpdatedAt()
+                e.getUpdatedAt(),
+                e.getVersion()
         );
     }
 }
@@ -1,10 +1,14 @@
 package cl.duoc.ms_auth.repositorio;
 
 import cl.duoc.ms_auth.entidades.Role;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import java.util.Optional;
 
 public interface RoleRepository extends JpaRepository<Role, Long> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Role> findByName(String name); // 'ADMIN', 'LAB_TECH'
     boolean existsByName(String name);
 }
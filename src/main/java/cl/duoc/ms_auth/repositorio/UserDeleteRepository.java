@@ -0,0 +1,19 @@
+package cl.duoc.ms_auth.repositorio;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Fragmento de {@link UserRepository} para borrar usuarios sin cargar la entidad.
+ */
+public interface UserDeleteRepository {
+
+    /**
+     * Borra un usuario con un único {@code DELETE ... WHERE ID = ?}; sus filas de {@code USER_ROLES} se borran
+     * por {@code ON DELETE CASCADE}. También desaloja al usuario de la caché L2 al confirmar la transacción.
+     *
+     * @param id El ID del usuario.
+     * @return el {@code EXTERNAL_ID} del usuario borrado, o vacío si no existía (0 filas afectadas).
+     */
+    Optional<UUID> deleteReturningExternalId(Long id);
+}
@@ -0,0 +1,73 @@
+package cl.duoc.ms_auth.repositorio;
+
+import cl.duoc.ms_auth.converter.UuidCodec;
+import cl.duoc.ms_auth.entidades.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.CallableStatement;
+import java.sql.Types;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Implementación de {@link UserDeleteRepository}.
+ * <p>
+ * El borrado va por JDBC sobre la conexión de la sesión (misma transacción) en un bloque PL/SQL con
+ * {@code RETURNING ... INTO}: un solo viaje devuelve el {@code EXTERNAL_ID} (para invalidar los tokens) y la cantidad
+ * de filas. Una consulta nativa de Hibernate no sirve aquí porque, sin saber qué filas toca, vacía la región
+ * completa de la caché L2; en su lugar se desaloja solo la entrada del usuario y su colección de roles.
+ */
+public class UserDeleteRepositoryImpl implements UserDeleteRepository {
+
+    private static final String DELETE_SQL =
+            "BEGIN DELETE FROM USERS WHERE ID = ? RETURNING EXTERNAL_ID INTO ?; ? := SQL%ROWCOUNT; END;";
+
+    @PersistenceContext
+    private EntityManager em;
+    private static final Logger logger = LoggerFactory.getLogger(UserDeleteRepositoryImpl.class);
+
+    @Override
+    public Optional<UUID> deleteReturningExternalId(Long id) {
+        Session session = em.unwrap(Session.class);
+        byte[] externalId = session.doReturningWork(connection -> {
+            try (CallableStatement cs = connection.prepareCall(DELETE_SQL)) {
+                cs.setLong(1, id);
+                cs.registerOutParameter(2, Types.VARBINARY);
+                cs.registerOutParameter(3, Types.INTEGER);
+                cs.execute();
+                int rows = cs.getInt(3);
+                logger.debug("DELETE de USERS con ID {}: {} filas.", id, rows);
+                return rows == 0 ? null : cs.getBytes(2);
+            }
+        });
+        if (externalId == null) return Optional.empty();
+        evictAfterCompletion(id);
+        return Optional.ofNullable(UuidCodec.fromBytes(externalId));
+    }
+
+    private void evictAfterCompletion(Long id) {
+        var cache = em.getEntityManagerFactory().unwrap(SessionFactory.class).getCache();
+        Runnable evict = () -> {
+            cache.evictEntityData(User.class, id);
+            cache.evictCollectionData(User.class.getName() + ".roles", id);
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict.run();
+            return;
+        }
+        // Tras la transacción: un lector concurrente no puede volver a cachear la fila aún sin confirmar el borrado
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                evict.run();
+            }
+        });
+    }
+}
@@ -1,13 +1,57 @@
 package cl.duoc.ms_auth.repositorio;
 
 import cl.duoc.ms_auth.entidades.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserDeleteRepository {
     Optional<User> findByUsername(String username);
     Optional<User> findByUsernameIgnoreCaseOrEmailIgnoreCase(String username, String email);
-    boolean existsByUsername(String username);
-    boolean existsByEmail(String email);
-}
 
+    // Búsquedas por EXTERNAL_ID (claim userId), resueltas con el índice UQ_USERS_EXTID
+    @EntityGraph(attributePaths = "roles")
+    Optional<User> findByExternalId(UUID externalId);
+
+    // Lote mixto: una sola consulta IN con los roles en el mismo viaje
+    @EntityGraph(attributePaths = "roles")
+    List<User> findByIdInOrExternalIdIn(Collection<Long> ids, Collection<UUID> externalIds);
+
+    // Solo la columna ACTIVE: usada por la introspección de tokens
+    @Query("select u.active from User u where u.externalId = :externalId")
+    Optional<String> findActiveFlagByExternalId(UUID externalId);
+
+    // Listado por laboratorio con paginación keyset: rango sobre IDX_USERS_LAB_ACTIVE_ID (LAB_CODE, ACTIVE, ID, ...),
+    // ya ordenado por ID, que se detiene al completar la página. El índice incluye las columnas proyectadas, así que
+    // no se accede a USERS (con filtro por rol solo se suma la búsqueda en USER_ROLES por su PK)
+    @Query("""
+            select u.id as id, u.externalId as externalId, u.username as username, u.email as email, u.active as active
+            from User u
+            where u.labCode = :labCode and u.active = :active and u.id > :afterId
+            order by u.id""")
+    List<UserSummaryView> findLabPage(String labCode, String active, long afterId, Limit limit);
+
+    @Query("""
+            select u.id as id, u.externalId as externalId, u.username as username, u.email as email, u.active as active
+            from User u
+            where u.labCode = :labCode and u.active = :active and u.id > :afterId
+              and exists (select 1 from u.roles r where r.name = :role)
+            order by u.id""")
+    List<UserSummaryView> findLabPageByRole(String labCode, String active, String role, long afterId, Limit limit);
+
+    // Carga del índice de búsqueda en memoria: solo las columnas indexadas
+    @Query("select u.id as id, u.externalId as externalId, u.username as username, u.email as email, u.active as active from User u")
+    List<UserSummaryView> findAllSummaries();
+
+    @Query("""
+            select u.id as id, u.externalId as externalId, u.username as username, u.email as email, u.active as active
+            from User u
+            where u.id in :ids""")
+    List<UserSummaryView> findSummariesByIdIn(Collection<Long> ids);
+}
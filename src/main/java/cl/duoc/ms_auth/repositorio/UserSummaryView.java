@@ -0,0 +1,15 @@
+package cl.duoc.ms_auth.repositorio;
+
+import java.util.UUID;
+
+/**
+ * Proyección de solo lectura de un usuario para el listado por laboratorio y el índice de búsqueda.
+ * Solo trae las columnas del listado, sin cargar la entidad {@code User} ni su colección de roles.
+ */
+public interface UserSummaryView {
+    Long getId();
+    UUID getExternalId();
+    String getUsername();
+    String getEmail();
+    String getActive();
+}
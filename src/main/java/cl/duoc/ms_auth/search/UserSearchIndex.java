@@ -0,0 +1,251 @@
+package cl.duoc.ms_auth.search;
+
+import cl.duoc.ms_auth.cache.CacheInvalidationBus;
+import cl.duoc.ms_auth.cache.CacheRegions;
+import cl.duoc.ms_auth.dtos.UserSearchResult;
+import cl.duoc.ms_auth.repositorio.UserRepository;
+import cl.duoc.ms_auth.repositorio.UserSummaryView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice en memoria de usernames y emails para {@code GET /users/search}.
+ * <p>
+ * Mantiene un índice de trigramas (búsqueda por subcadena desde 3 caracteres) y un índice ordenado de términos
+ * (búsqueda por prefijo para consultas de 1 o 2 caracteres). Los resultados se ordenan por tipo de coincidencia
+ * (exacta, prefijo, subcadena; username antes que email) y luego por username.
+ * <p>
+ * Se construye en la primera búsqueda con una consulta de proyección. Después se actualiza de forma incremental
+ * con los eventos {@link CacheRegions#USERS} del {@link CacheInvalidationBus}, tanto locales como de otras réplicas:
+ * los IDs afectados se recargan en la siguiente búsqueda, en una sola consulta. Un evento de región completa
+ * fuerza la reconstrucción. Si la base de datos falla, la carga se reintenta en la siguiente búsqueda.
+ */
+@Component
+public class UserSearchIndex {
+
+    /** Tipo de coincidencia, de mayor a menor relevancia. */
+    public enum Match { EXACT, PREFIX, INFIX }
+
+    private final UserRepository userRepo;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object refreshMonitor = new Object();
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuildRequested = true;
+    private Index index = new Index();
+    private static final Logger logger = LoggerFactory.getLogger(UserSearchIndex.class);
+
+    public UserSearchIndex(UserRepository userRepo, CacheInvalidationBus invalidationBus) {
+        this.userRepo = userRepo;
+        invalidationBus.subscribe(CacheRegions.USERS, event -> {
+            if (event.isRegionWide()) {
+                rebuildRequested = true;
+                return;
+            }
+            try {
+                pending.add(Long.valueOf(event.key()));
+            } catch (NumberFormatException e) {
+                rebuildRequested = true;
+            }
+        });
+    }
+
+    /**
+     * Busca usuarios por username o email.
+     *
+     * @param query La consulta (se compara sin distinguir mayúsculas).
+     * @param limit El máximo de resultados.
+     * @return los resultados ordenados por relevancia.
+     */
+    public List<UserSearchResult> search(String query, int limit) {
+        refresh();
+        String q = query.trim().toLowerCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            return index.search(q, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cantidad de usuarios indexados.
+     *
+     * @return el tamaño del índice (0 si aún no se construye).
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void refresh() {
+        if (!rebuildRequested && pending.isEmpty()) return;
+        synchronized (refreshMonitor) {
+            if (rebuildRequested) {
+                // Los eventos que lleguen durante la carga quedan en pending y se aplican en la siguiente búsqueda
+                rebuildRequested = false;
+                pending.clear();
+                List<UserSummaryView> rows;
+                try {
+                    rows = userRepo.findAllSummaries();
+                } catch (RuntimeException e) {
+                    rebuildRequested = true;
+                    throw e;
+                }
+                Index built = new Index();
+                for (UserSummaryView row : rows) built.put(row);
+                lock.writeLock().lock();
+                try {
+                    index = built;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                logger.info("Índice de búsqueda de usuarios construido con {} usuarios.", rows.size());
+                return;
+            }
+
+            List<Long> ids = new ArrayList<>(pending);
+            pending.removeAll(ids);
+            List<UserSummaryView> rows;
+            try {
+                rows = userRepo.findSummariesByIdIn(ids);
+            } catch (RuntimeException e) {
+                pending.addAll(ids);
+                throw e;
+            }
+            lock.writeLock().lock();
+            try {
+                for (Long id : ids) index.remove(id);
+                for (UserSummaryView row : rows) index.put(row);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.debug("Índice de búsqueda actualizado: {} usuarios recargados, {} eliminados.", rows.size(), ids.size() - rows.size());
+        }
+    }
+
+    private record Doc(Long id, String externalId, String username, String email, boolean active,
+                       String usernameKey, String emailKey) {}
+
+    /**
+     * Estructura del índice; no es thread-safe (protegida por el lock de {@link UserSearchIndex}).
+     * Cada usuario ocupa un slot; los trigramas y términos apuntan a slots mediante {@link BitSet}.
+     */
+    private static final class Index {
+        private final List<Doc> slots = new ArrayList<>();
+        private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+        private final Map<Long, Integer> slotById = new HashMap<>();
+        private final Map<Long, BitSet> trigrams = new HashMap<>();
+        private final TreeMap<String, BitSet> terms = new TreeMap<>();
+
+        int size() {
+            return slotById.size();
+        }
+
+        void put(UserSummaryView row) {
+            remove(row.getId());
+            String username = row.getUsername() == null ? "" : row.getUsername();
+            String email = row.getEmail() == null ? "" : row.getEmail();
+            var doc = new Doc(row.getId(), row.getExternalId() == null ? null : row.getExternalId().toString(),
+                    username, email, "Y".equalsIgnoreCase(row.getActive()),
+                    username.toLowerCase(Locale.ROOT), email.toLowerCase(Locale.ROOT));
+
+            int slot;
+            if (freeSlots.isEmpty()) {
+                slot = slots.size();
+                slots.add(doc);
+            } else {
+                slot = freeSlots.pop();
+                slots.set(slot, doc);
+            }
+            slotById.put(doc.id(), slot);
+            for (String key : List.of(doc.usernameKey(), doc.emailKey())) {
+                terms.computeIfAbsent(key, k -> new BitSet()).set(slot);
+                for (int i = 0; i + 3 <= key.length(); i++) {
+                    trigrams.computeIfAbsent(trigram(key, i), k -> new BitSet()).set(slot);
+                }
+            }
+        }
+
+        void remove(Long id) {
+            Integer slot = slotById.remove(id);
+            if (slot == null) return;
+            Doc doc = slots.get(slot);
+            for (String key : List.of(doc.usernameKey(), doc.emailKey())) {
+                clear(terms, key, slot);
+                for (int i = 0; i + 3 <= key.length(); i++) clear(trigrams, trigram(key, i), slot);
+            }
+            slots.set(slot, null);
+            freeSlots.push(slot);
+        }
+
+        private static <K> void clear(Map<K, BitSet> map, K key, int slot) {
+            BitSet bits = map.get(key);
+            if (bits == null) return;
+            bits.clear(slot);
+            if (bits.isEmpty()) map.remove(key);
+        }
+
+        List<UserSearchResult> search(String q, int limit) {
+            BitSet candidates;
+            if (q.length() >= 3) {
+                candidates = null;
+                for (int i = 0; i + 3 <= q.length(); i++) {
+                    BitSet bits = trigrams.get(trigram(q, i));
+                    if (bits == null) return List.of();
+                    if (candidates == null) candidates = (BitSet) bits.clone();
+                    else candidates.and(bits);
+                    if (candidates.isEmpty()) return List.of();
+                }
+            } else {
+                // 1-2 caracteres: solo prefijo, por rango en el índice ordenado de términos
+                candidates = new BitSet();
+                for (BitSet bits : terms.subMap(q, true, q + Character.MAX_VALUE, true).values()) candidates.or(bits);
+            }
+
+            List<Scored> scored = new ArrayList<>();
+            for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                Doc doc = slots.get(slot);
+                int score = Math.max(score(doc.usernameKey(), q, 1), score(doc.emailKey(), q, 0));
+                if (score > 0) scored.add(new Scored(doc, score));
+            }
+            scored.sort(Comparator.comparingInt(Scored::score).reversed()
+                    .thenComparingInt(s -> s.doc().username().length())
+                    .thenComparing(s -> s.doc().usernameKey()));
+
+            List<UserSearchResult> results = new ArrayList<>(Math.min(limit, scored.size()));
+            for (int i = 0; i < scored.size() && i < limit; i++) {
+                Doc d = scored.get(i).doc();
+                results.add(new UserSearchResult(d.id(), d.externalId(), d.username(), d.email(), d.active(),
+                        match(scored.get(i).score()).name()));
+            }
+            return results;
+        }
+
+        /** Puntaje 1..6: exacta 5/6, prefijo 3/4, subcadena 1/2 (el +1 es para username), 0 si no coincide. */
+        private static int score(String key, String q, int fieldBonus) {
+            if (key.equals(q)) return 5 + fieldBonus;
+            if (key.startsWith(q)) return 3 + fieldBonus;
+            if (key.contains(q)) return 1 + fieldBonus;
+            return 0;
+        }
+
+        private static Match match(int score) {
+            return score >= 5 ? Match.EXACT : score >= 3 ? Match.PREFIX : Match.INFIX;
+        }
+
+        private static long trigram(String s, int i) {
+            return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+        }
+
+        private record Scored(Doc doc, int score) {}
+    }
+}
@@ -0,0 +1,110 @@
+package cl.duoc.ms_auth.security;
+
+import cl.duoc.ms_auth.converter.UuidCodec;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Codificación del perfil de claims compacto ({@code auth.jwt.claims-profile=compact}).
+ * <p>
+ * Frente al perfil legado ({@code sub}=username, {@code userId}=UUID de 36 caracteres, {@code roles}=arreglo de nombres,
+ * {@code labCode}) el compacto usa:
+ * <ul>
+ *     <li>{@code sub}: el externalId como base64url de 16 bytes (22 caracteres), sin {@code userId} redundante.</li>
+ *     <li>{@code rl}: máscara de bits de roles según el orden de {@code auth.jwt.compact.roles};
+ *         los roles fuera de esa lista van por nombre en {@code rn}.</li>
+ *     <li>{@code lab}: el código de laboratorio (solo LAB_TECH).</li>
+ * </ul>
+ * El orden de {@code auth.jwt.compact.roles} es parte del formato: solo se agregan roles al final.
+ */
+public final class CompactClaims {
+
+    public static final String ROLE_MASK = "rl";
+    public static final String ROLE_NAMES = "rn";
+    public static final String LAB_CODE = "lab";
+
+    private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder B64_DECODER = Base64.getUrlDecoder();
+
+    private CompactClaims() {
+    }
+
+    /**
+     * Codifica un UUID como base64url sin relleno.
+     *
+     * @param uuid El UUID a codificar.
+     * @return los 22 caracteres base64url.
+     */
+    public static String encodeUuid(UUID uuid) {
+        return B64.encodeToString(UuidCodec.toBytes(uuid));
+    }
+
+    /**
+     * Decodifica un UUID en base64url.
+     *
+     * @param value El texto base64url.
+     * @return el UUID, o null si el texto no representa 16 bytes.
+     */
+    public static UUID decodeUuid(String value) {
+        if (value == null || value.length() != 22) return null;
+        try {
+            return UuidCodec.fromBytes(B64_DECODER.decode(value));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Calcula la máscara de bits de los roles conocidos.
+     *
+     * @param roles      Los nombres de rol del usuario.
+     * @param knownRoles El orden de bits configurado.
+     * @return la máscara (bit i = rol i de {@code knownRoles}).
+     */
+    public static long roleMask(Collection<String> roles, List<String> knownRoles) {
+        long mask = 0;
+        for (String role : roles) {
+            int bit = knownRoles.indexOf(role);
+            if (bit >= 0 && bit < 63) mask |= 1L << bit;
+        }
+        return mask;
+    }
+
+    /**
+     * Devuelve los roles que no caben en la máscara.
+     *
+     * @param roles      Los nombres de rol del usuario.
+     * @param knownRoles El orden de bits configurado.
+     * @return los roles no presentes en {@code knownRoles} (lista vacía si no hay).
+     */
+    public static List<String> unknownRoles(Collection<String> roles, List<String> knownRoles) {
+        List<String> out = new ArrayList<>(0);
+        for (String role : roles) {
+            int bit = knownRoles.indexOf(role);
+            if (bit < 0 || bit >= 63) out.add(role);
+        }
+        return out;
+    }
+
+    /**
+     * Reconstruye la lista ordenada de roles desde la máscara y los nombres extra.
+     *
+     * @param mask       La máscara del claim {@code rl}.
+     * @param extra      Los nombres del claim {@code rn} (puede ser null).
+     * @param knownRoles El orden de bits configurado.
+     * @return los nombres de rol ordenados alfabéticamente, como en el perfil legado.
+     */
+    public static List<String> decodeRoles(long mask, List<String> extra, List<String> knownRoles) {
+        List<String> roles = new ArrayList<>(4);
+        for (int bit = 0; bit < knownRoles.size() && bit < 63; bit++) {
+            if ((mask & (1L << bit)) != 0) roles.add(knownRoles.get(bit));
+        }
+        if (extra != null) roles.addAll(extra);
+        roles.sort(null);
+        return List.copyOf(roles);
+    }
+}
@@ -17,9 +17,13 @@ import java.util.stream.Collectors;
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtUtils jwtUtils;
+    private final RouteTable routeTable;
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthFilter.class);
 
-    public JwtAuthFilter(JwtUtils jwtUtils) { this.jwtUtils = jwtUtils; }
+    public JwtAuthFilter(JwtUtils jwtUtils, RouteTable routeTable) {
+        this.jwtUtils = jwtUtils;
+        this.routeTable = routeTable;
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest req, HttpServletResponse res, FilterChain chain)
@@ -33,19 +37,19 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             logger.debug("Token extraído de la cabecera de autorización.");
 
             jwtUtils.validateAndParse(token).ifPresent(payload -> {
-                logger.debug("Token JWT válido. Estableciendo contexto de seguridad para el usuario: {}", payload.username());
+                logger.debug("Token JWT válido. Estableciendo contexto de seguridad para el usuario: {}", payload.principal());
                 var authorities = payload.roles().stream()
                         .map(r -> new SimpleGrantedAuthority("ROLE_" + r))
                         .collect(Collectors.toSet());
 
                 var authentication = new UsernamePasswordAuthenticationToken(
-                        payload.username(), null, authorities
+                        payload.principal(), null, authorities
                 );
 
                 authentication.setDetails(payload);
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
-                logger.debug("Contexto de seguridad establecido para el usuario: {}", payload.username());
+                logger.debug("Contexto de seguridad establecido para el usuario: {}", payload.principal());
             });
         } else {
             logger.debug("No se encontró un token JWT válido en la cabecera de autorización.");
@@ -55,10 +59,6 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     }
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
-        String path = request.getRequestURI();
-        return path.equals("/auth/login")
-                || path.equals("/auth/refresh")
-                || path.equals("/.well-known/jwks.json")
-                || path.startsWith("/actuator");
+        return routeTable.bypassesJwt(request);
     }
 }
@@ -15,11 +15,18 @@ import java.util.*;
 public class JwtUtils {
     private final RSAPublicKey publicKey;
     private final String expectedIssuer;
+    private final List<String> compactRoles;
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
     public JwtUtils(RSAPublicKey publicKey, String expectedIssuer) {
+        this(publicKey, expectedIssuer, List.of());
+    }
+
+    // compactRoles: orden de bits de roles del perfil compacto (ver CompactClaims)
+    public JwtUtils(RSAPublicKey publicKey, String expectedIssuer, List<String> compactRoles) {
         this.publicKey = publicKey;
         this.expectedIssuer = expectedIssuer;
+        this.compactRoles = List.copyOf(compactRoles);
     }
 
     public Optional<JwtPayload> validateAndParse(String token) {
@@ -57,17 +64,35 @@ public class JwtUtils {
             }
             logger.debug("Fecha de expiración verificada.");
 
-            String subject = claims.getSubject();
-            String userId  = Objects.toString(claims.getClaim("userId"), null);
-            String labCode = Objects.toString(claims.getClaim("labCode"), null);
+            String subject;
+            String userId;
+            String labCode;
+            List<String> roles;
+            if (claims.getClaim(CompactClaims.ROLE_MASK) != null) {
+                // Perfil compacto: sub = externalId en base64url, sin username
+                UUID externalId = CompactClaims.decodeUuid(claims.getSubject());
+                if (externalId == null) {
+                    logger.debug("Validación fallida: El sub del token compacto no es un externalId válido.");
+                    return Optional.empty();
+                }
+                subject = null;
+                userId  = externalId.toString();
+                labCode = claims.getStringClaim(CompactClaims.LAB_CODE);
+                roles   = CompactClaims.decodeRoles(claims.getLongClaim(CompactClaims.ROLE_MASK),
+                        claims.getStringListClaim(CompactClaims.ROLE_NAMES), compactRoles);
+            } else {
+                subject = claims.getSubject();
+                userId  = Objects.toString(claims.getClaim("userId"), null);
+                labCode = Objects.toString(claims.getClaim("labCode"), null);
+
+                @SuppressWarnings("unchecked")
+                List<String> legacyRoles = (List<String>) claims.getClaim("roles");
+                roles = legacyRoles == null ? List.of() : legacyRoles;
+            }
 
-            @SuppressWarnings("unchecked")
-            List<String> roles = (List<String>) claims.getClaim("roles");
-            if (roles == null) roles = List.of();
-            
-            logger.debug("Payload extraído exitosamente para el usuario: {}", subject);
+            logger.debug("Payload extraído exitosamente para el usuario: {}", subject != null ? subject : userId);
 
-            return Optional.of(new JwtPayload(subject, userId, roles, labCode));
+            return Optional.of(new JwtPayload(subject, userId, roles, labCode, claims.getExpirationTime().toInstant()));
         } catch (Exception e) {
             logger.debug("Error durante la validación del token: {}", e.getMessage());
             return Optional.empty();
@@ -78,5 +103,10 @@ public class JwtUtils {
         try { return rsaKey.toRSAPublicKey(); } catch (Exception e) { throw new RuntimeException(e); }
     }
 
-    public record JwtPayload(String username, String userId, List<String> roles, String labCode) {}
+    // username es null en tokens del perfil compacto; principal() devuelve entonces el userId
+    public record JwtPayload(String username, String userId, List<String> roles, String labCode, Instant expiresAt) {
+        public String principal() {
+            return username != null ? username : userId;
+        }
+    }
 }
@@ -1,27 +1,135 @@
 package cl.duoc.ms_auth.security;
 
+import com.nimbusds.jose.jwk.OctetSequenceKey;
 import com.nimbusds.jose.jwk.RSAKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+/**
+ * Única fuente de las claves del servicio: el par RSA de los tokens de acceso (firma en {@code TokenServiceImpl},
+ * verificación en {@link JwtUtils} y JWKS) y las claves HMAC de los tokens de intercambio
+ * ({@code TokenExchangeServiceImpl}). Se parsean una sola vez al arrancar.
+ * <p>
+ * Cada audiencia de intercambio firma con su propia clave, derivada del secreto maestro con HKDF-SHA256
+ * (info = {@value #EXCHANGE_INFO_PREFIX} + audiencia). Un servicio interno recibe solo la clave de su audiencia
+ * ({@code scripts/exchange-key.sh}): puede verificar sus tokens, pero no falsificar tokens para otros servicios.
+ */
 @Component
 public class KeyProvider {
+    private static final int MIN_HMAC_BYTES = 32;
+    private static final String EXCHANGE_INFO_PREFIX = "ms-auth token-exchange ";
+
     private final RSAKey rsaKey;
+    private final byte[] exchangeSecret;
     private static final Logger logger = LoggerFactory.getLogger(KeyProvider.class);
 
+    /**
+     * Carga y valida las claves RSA.
+     *
+     * @param publicPemRaw  La clave pública en formato PEM, leída de las propiedades.
+     * @param privatePemRaw La clave privada en formato PEM (PKCS#8), leída de las propiedades.
+     * @param hmacSecretRaw El secreto maestro de los tokens de intercambio en base64 (mínimo 32 bytes).
+     * @throws IllegalStateException si las claves faltan o no se pueden parsear.
+     */
     public KeyProvider(
-            @Value("${auth.jwt.rsa.public}") String publicPem,
-            @Value("${auth.jwt.rsa.private}") String privatePem) throws Exception {
+            @Value("${auth.jwt.rsa.public:}") String publicPemRaw,
+            @Value("${auth.jwt.rsa.private:}") String privatePemRaw,
+            @Value("${auth.jwt.exchange.hmac-secret:}") String hmacSecretRaw) {
         logger.debug("Cargando claves RSA desde las propiedades.");
         try {
-            this.rsaKey = RSAKey.parseFromPEMEncodedObjects(publicPem + "\n" + privatePem).toRSAKey();
+            String privatePem = normalizePem(privatePemRaw);
+            String publicPem  = normalizePem(publicPemRaw);
+
+            require(!publicPem.isBlank(),  "auth.jwt.rsa.public vacío o no definido");
+            require(!privatePem.isBlank(), "auth.jwt.rsa.private vacío o no definido");
+            require(publicPem.contains("BEGIN PUBLIC KEY"),   "El PUBLIC PEM no tiene cabecera BEGIN PUBLIC KEY");
+            require(privatePem.contains("BEGIN PRIVATE KEY"), "La PRIVATE PEM debe ser PKCS#8 (BEGIN PRIVATE KEY)");
+
+            RSAKey parsed = RSAKey.parseFromPEMEncodedObjects(publicPem + "\n" + privatePem).toRSAKey();
+
+            require(parsed.toRSAPublicKey() != null,  "No se pudo obtener la clave pública desde el PEM");
+            require(parsed.toRSAPrivateKey() != null, "No se pudo obtener la clave privada (¿está en PKCS#8?)");
+
+            // kid = thumbprint RFC 7638: estable entre réplicas y permite a los consumidores elegir la clave
+            this.rsaKey = new RSAKey.Builder(parsed).keyIDFromThumbprint().build();
             logger.debug("Claves RSA cargadas y parseadas exitosamente.");
         } catch (Exception e) {
-            logger.error("Error al parsear las claves RSA: {}", e.getMessage());
-            throw e;
+            logger.error("Error al parsear las claves RSA: {}. Revisa auth.jwt.rsa.public / auth.jwt.rsa.private en application.properties (.env). La privada debe ser PKCS#8.", rootMsg(e), e);
+            throw new IllegalStateException(
+                    "Error al parsear las claves RSA: " + rootMsg(e) +
+                            ". Revisa auth.jwt.rsa.public / auth.jwt.rsa.private en application.properties (.env). " +
+                            "La privada debe ser PKCS#8.", e);
         }
+        this.exchangeSecret = parseHmacSecret(hmacSecretRaw);
+    }
+
+    // El secreto maestro no sale de ms-auth: no tiene kid ni se publica en el JWKS
+    private static byte[] parseHmacSecret(String raw) {
+        String secret = raw == null ? "" : raw.trim();
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(secret);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("auth.jwt.exchange.hmac-secret no es base64 válido", e);
+        }
+        if (bytes.length < MIN_HMAC_BYTES) {
+            throw new IllegalStateException("auth.jwt.exchange.hmac-secret vacío o menor a " + MIN_HMAC_BYTES
+                    + " bytes (HS256 exige al menos 256 bits)");
+        }
+        logger.debug("Secreto HMAC de intercambio cargado.");
+        return bytes;
+    }
+
+    /**
+     * HKDF-SHA256 (RFC 5869): extracción con {@code salt} (vacío = 32 ceros) y expansión a {@code length} bytes.
+     */
+    static byte[] hkdfSha256(byte[] salt, byte[] ikm, byte[] info, int length) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(salt.length == 0 ? new byte[32] : salt, "HmacSHA256"));
+            byte[] prk = mac.doFinal(ikm);
+            mac.init(new SecretKeySpec(prk, "HmacSHA256"));
+            byte[] out = new byte[length];
+            byte[] block = new byte[0];
+            for (int i = 1, n = 0; n < length; i++) {
+                mac.update(block);
+                mac.update(info);
+                mac.update((byte) i);
+                block = mac.doFinal();
+                int count = Math.min(block.length, length - n);
+                System.arraycopy(block, 0, out, n, count);
+                n += count;
+            }
+            return out;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HKDF-SHA256 no disponible: " + e.getMessage(), e);
+        }
+    }
+
+    // Acepta PEM con saltos de línea escapados ("\n" literales), como llegan desde variables de entorno
+    private static String normalizePem(String raw) {
+        if (raw == null) return "";
+        String clean = raw.replace("\"", "").replace(",", "");
+        String newlineNormalized = clean.replace("\\n", "\n");
+        return newlineNormalized.trim();
+    }
+
+    private static void require(boolean cond, String msg) {
+        if (!cond) throw new IllegalArgumentException(msg);
+    }
+
+    private static String rootMsg(Throwable t) {
+        Throwable x = t;
+        while (x.getCause() != null) x = x.getCause();
+        return x.getMessage();
     }
 
     public RSAKey rsaKey() {
@@ -33,4 +141,15 @@ public class KeyProvider {
         logger.debug("Proveyendo clave pública JWK.");
         return rsaKey.toPublicJWK();
     }
+
+    /**
+     * Deriva la clave HS256 de una audiencia de intercambio.
+     *
+     * @param audience La audiencia (servicio interno destino).
+     * @return la clave de 256 bits de esa audiencia.
+     */
+    public OctetSequenceKey exchangeKey(String audience) {
+        byte[] info = (EXCHANGE_INFO_PREFIX + audience).getBytes(StandardCharsets.UTF_8);
+        return new OctetSequenceKey.Builder(hkdfSha256(new byte[0], exchangeSecret, info, MIN_HMAC_BYTES)).build();
+    }
 }
@@ -0,0 +1,273 @@
+package cl.duoc.ms_auth.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Tabla compilada de autorización por ruta, compartida por {@link JwtAuthFilter} (qué rutas no validan JWT)
+ * y por la cadena de seguridad (qué acceso exige cada ruta).
+ * <p>
+ * Las rutas se guardan en un trie por segmento de path; cada nodo indexa sus reglas por método HTTP.
+ * Una consulta recorre el path una vez, sin expresiones ni asignaciones, y devuelve la regla más específica:
+ * patrón exacto antes que prefijo {@code /**}, prefijo más largo antes que más corto y método concreto antes
+ * que "cualquier método". Si nada coincide se aplica la regla por defecto (autenticado).
+ * <p>
+ * Los patrones soportados son paths exactos ({@code /users/me}) y prefijos terminados en {@code /**}
+ * ({@code /users/**}, que como en Spring también coincide con {@code /users}).
+ */
+public final class RouteTable {
+
+    /** Tipo de acceso de una ruta. */
+    public enum Access { PERMIT_ALL, AUTHENTICATED, HAS_ROLE, DENY_ALL }
+
+    /**
+     * Una regla de la tabla.
+     *
+     * @param method    El método HTTP, o null para cualquiera.
+     * @param pattern   El patrón de path.
+     * @param access    El acceso exigido.
+     * @param authorities Las autoridades aceptadas para {@link Access#HAS_ROLE} (con prefijo {@code ROLE_}; basta una).
+     * @param bypassJwt   true si {@link JwtAuthFilter} no procesa el token en esta ruta.
+     */
+    public record Route(HttpMethod method, String pattern, Access access, List<String> authorities, boolean bypassJwt) {}
+
+    private static final String[] METHODS = {"GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "TRACE"};
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    private final Node root;
+    private final Route fallback;
+    private final AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+
+    private RouteTable(Node root, Route fallback) {
+        this.root = root;
+        this.fallback = fallback;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Busca la regla que aplica a una petición.
+     *
+     * @param request La petición HTTP.
+     * @return la regla más específica, o la regla por defecto.
+     */
+    public Route match(HttpServletRequest request) {
+        // servletPath + pathInfo: path ya decodificado, el mismo que resuelve Spring MVC
+        String path = request.getServletPath();
+        String pathInfo = request.getPathInfo();
+        if (pathInfo != null) path = path + pathInfo;
+        return match(request.getMethod(), path);
+    }
+
+    /**
+     * Busca la regla que aplica a un método y path.
+     *
+     * @param method El método HTTP.
+     * @param path   El path dentro de la aplicación (decodificado, comenzando con {@code /}).
+     * @return la regla más específica, o la regla por defecto.
+     */
+    public Route match(String method, String path) {
+        int m = methodIndex(method);
+        if (path == null || path.isEmpty() || path.charAt(0) != '/') return fallback;
+
+        Node node = root;
+        Route best = node.prefix(m);
+        int len = path.length();
+        int start = 1;
+        while (true) {
+            if (start == len && start > 1) {
+                // barra final: "/users/" no coincide con "/users" exacto, solo con prefijos
+                return best != null ? best : fallback;
+            }
+            int end = path.indexOf('/', start);
+            if (end < 0) end = len;
+            if (start == len) {
+                // path "/"
+                Route exact = node.exact(m);
+                return exact != null ? exact : best != null ? best : fallback;
+            }
+            node = node.child(path, start, end);
+            if (node == null) return best != null ? best : fallback;
+            Route prefix = node.prefix(m);
+            if (prefix != null) best = prefix;
+            if (end == len) {
+                Route exact = node.exact(m);
+                return exact != null ? exact : best != null ? best : fallback;
+            }
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Indica si {@link JwtAuthFilter} debe omitir la petición.
+     *
+     * @param request La petición HTTP.
+     * @return true si la regla que aplica no procesa JWT.
+     */
+    public boolean bypassesJwt(HttpServletRequest request) {
+        return match(request).bypassJwt();
+    }
+
+    /**
+     * Devuelve el {@link AuthorizationManager} que aplica esta tabla, para {@code anyRequest().access(...)}.
+     *
+     * @return el gestor de autorización.
+     */
+    public AuthorizationManager<RequestAuthorizationContext> authorizationManager() {
+        return (authentication, context) -> decide(match(context.getRequest()), authentication);
+    }
+
+    private AuthorizationDecision decide(Route route, Supplier<Authentication> authentication) {
+        return switch (route.access()) {
+            case PERMIT_ALL -> GRANTED;
+            case DENY_ALL -> DENIED;
+            case AUTHENTICATED -> trustResolver.isAuthenticated(authentication.get()) ? GRANTED : DENIED;
+            case HAS_ROLE -> {
+                Authentication auth = authentication.get();
+                if (!trustResolver.isAuthenticated(auth)) yield DENIED;
+                for (GrantedAuthority a : auth.getAuthorities()) {
+                    if (route.authorities().contains(a.getAuthority())) yield GRANTED;
+                }
+                yield DENIED;
+            }
+        };
+    }
+
+    private static int methodIndex(String method) {
+        for (int i = 0; i < METHODS.length; i++) {
+            if (METHODS[i].equals(method)) return i + 1;
+        }
+        return 0;
+    }
+
+    /** Nodo del trie: un segmento de path con sus hijos y reglas exactas/prefijo por método (índice 0 = cualquiera). */
+    private static final class Node {
+        private String[] segments = new String[0];
+        private Node[] children = new Node[0];
+        private Route[] exact;
+        private Route[] prefix;
+
+        Node child(String path, int start, int end) {
+            int n = end - start;
+            for (int i = 0; i < segments.length; i++) {
+                String s = segments[i];
+                if (s.length() == n && path.regionMatches(start, s, 0, n)) return children[i];
+            }
+            return null;
+        }
+
+        Node childOrCreate(String segment) {
+            for (int i = 0; i < segments.length; i++) {
+                if (segments[i].equals(segment)) return children[i];
+            }
+            segments = Arrays.copyOf(segments, segments.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            segments[segments.length - 1] = segment;
+            return children[children.length - 1] = new Node();
+        }
+
+        Route exact(int m) {
+            return pick(exact, m);
+        }
+
+        Route prefix(int m) {
+            return pick(prefix, m);
+        }
+
+        private static Route pick(Route[] routes, int m) {
+            if (routes == null) return null;
+            return routes[m] != null ? routes[m] : routes[0];
+        }
+    }
+
+    /**
+     * Builder de {@link RouteTable}. Si dos reglas tienen el mismo patrón y método, gana la primera,
+     * igual que en {@code requestMatchers}.
+     */
+    public static final class Builder {
+        private final Node root = new Node();
+        private Route fallback = new Route(null, "/**", Access.AUTHENTICATED, null, false);
+
+        private Builder() {
+        }
+
+        /** Ruta pública que además no procesa JWT (login, JWKS, health). */
+        public Builder publicEndpoint(HttpMethod method, String pattern) {
+            return add(new Route(method, pattern, Access.PERMIT_ALL, null, true));
+        }
+
+        /** Ruta pública que procesa JWT si viene. */
+        public Builder permitAll(HttpMethod method, String pattern) {
+            return add(new Route(method, pattern, Access.PERMIT_ALL, null, false));
+        }
+
+        /** Ruta que exige un usuario autenticado. */
+        public Builder authenticated(HttpMethod method, String pattern) {
+            return add(new Route(method, pattern, Access.AUTHENTICATED, null, false));
+        }
+
+        /** Ruta que exige el rol indicado (sin prefijo {@code ROLE_}). */
+        public Builder hasRole(HttpMethod method, String pattern, String role) {
+            return hasAnyRole(method, pattern, role);
+        }
+
+        /** Ruta que exige alguno de los roles indicados (sin prefijo {@code ROLE_}). */
+        public Builder hasAnyRole(HttpMethod method, String pattern, String... roles) {
+            List<String> authorities = Arrays.stream(roles).map(role -> "ROLE_" + role).toList();
+            return add(new Route(method, pattern, Access.HAS_ROLE, authorities, false));
+        }
+
+        /** Ruta cerrada que tampoco procesa JWT. */
+        public Builder denyAll(HttpMethod method, String pattern) {
+            return add(new Route(method, pattern, Access.DENY_ALL, null, true));
+        }
+
+        /** Regla para las rutas que no coinciden con ninguna otra. */
+        public Builder otherwise(Access access) {
+            this.fallback = new Route(null, "/**", access, null, false);
+            return this;
+        }
+
+        private Builder add(Route route) {
+            String pattern = route.pattern();
+            if (!pattern.startsWith("/")) throw new IllegalArgumentException("El patrón debe comenzar con '/': " + pattern);
+            boolean isPrefix = pattern.endsWith("/**");
+            String body = isPrefix ? pattern.substring(0, pattern.length() - 3) : pattern;
+            if (body.contains("*") || body.contains("{")) {
+                throw new IllegalArgumentException("Solo se soportan paths exactos o prefijos '/**': " + pattern);
+            }
+
+            Node node = root;
+            if (body.length() > 1) {
+                for (String segment : body.substring(1).split("/", -1)) node = node.childOrCreate(segment);
+            }
+            int m = route.method() == null ? 0 : methodIndex(route.method().name());
+            if (isPrefix) {
+                if (node.prefix == null) node.prefix = new Route[METHODS.length + 1];
+                if (node.prefix[m] == null) node.prefix[m] = route;
+            } else {
+                if (node.exact == null) node.exact = new Route[METHODS.length + 1];
+                if (node.exact[m] == null) node.exact[m] = route;
+            }
+            return this;
+        }
+
+        public RouteTable build() {
+            return new RouteTable(root, fallback);
+        }
+    }
+}
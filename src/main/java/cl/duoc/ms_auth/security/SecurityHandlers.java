@@ -10,8 +10,14 @@ import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.access.AccessDeniedHandler;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+/**
+ * Respuestas 401 y 403 de la cadena de seguridad. Sus cuerpos no cambian entre peticiones, así que se serializan
+ * una vez al crear cada handler y después solo se copian los bytes.
+ */
 @Configuration
 public class SecurityHandlers {
 
@@ -19,23 +25,39 @@ public class SecurityHandlers {
 
     @Bean
     public AuthenticationEntryPoint authenticationEntryPoint(ObjectMapper om) {
+        byte[] body = serialize(om, HttpServletResponse.SC_UNAUTHORIZED, "Unauthorized");
         return (request, response, authException) -> {
             logger.debug("Acceso no autenticado denegado para la ruta: {}. Causa: {}", request.getRequestURI(), authException.getMessage());
-            writeJson(response, om, HttpServletResponse.SC_UNAUTHORIZED, "Unauthorized");
+            response.setHeader("WWW-Authenticate", "Bearer");
+            writeJson(response, HttpServletResponse.SC_UNAUTHORIZED, body);
         };
     }
 
     @Bean
     public AccessDeniedHandler accessDeniedHandler(ObjectMapper om) {
+        byte[] body = serialize(om, HttpServletResponse.SC_FORBIDDEN, "Forbidden");
         return (request, response, accessDeniedException) -> {
             logger.debug("Acceso prohibido para la ruta: {}. Causa: {}", request.getRequestURI(), accessDeniedException.getMessage());
-            writeJson(response, om, HttpServletResponse.SC_FORBIDDEN, "Forbidden");
+            writeJson(response, HttpServletResponse.SC_FORBIDDEN, body);
         };
     }
 
-    private void writeJson(HttpServletResponse res, ObjectMapper om, int status, String message) throws IOException {
+    // Orden fijo de las propiedades (Map.of no lo garantiza), para que el cuerpo sea siempre el mismo
+    private static byte[] serialize(ObjectMapper om, int status, String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", status);
+        body.put("error", message);
+        try {
+            return om.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeJson(HttpServletResponse res, int status, byte[] body) throws IOException {
         res.setStatus(status);
         res.setContentType("application/json");
-        om.writeValue(res.getWriter(), Map.of("status", status, "error", message));
+        res.setContentLength(body.length);
+        res.getOutputStream().write(body);
     }
 }
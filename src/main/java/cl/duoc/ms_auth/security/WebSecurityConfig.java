@@ -13,7 +13,9 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.AccessDeniedHandler;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -27,19 +29,57 @@ import java.util.List;
 public class WebSecurityConfig {
     private final KeyProvider keyProvider;
     private final String issuer;
+    private final List<String> compactRoles;
     private static final Logger logger = LoggerFactory.getLogger(WebSecurityConfig.class);
 
-    public WebSecurityConfig(KeyProvider keyProvider, @Value("${auth.jwt.issuer}") String issuer) {
+    public WebSecurityConfig(KeyProvider keyProvider,
+                             @Value("${auth.jwt.issuer}") String issuer,
+                             @Value("${auth.jwt.compact.roles:ADMIN,LAB_TECH}") List<String> compactRoles) {
         this.keyProvider = keyProvider;
         this.issuer = issuer;
+        this.compactRoles = compactRoles;
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
-        logger.debug("Configurando la cadena de filtros de seguridad.");
+    public JwtUtils jwtUtils() {
         RSAKey rsaKey = keyProvider.rsaKey();
-        var jwtUtils  = new JwtUtils(JwtUtils.toPublicKey(rsaKey), issuer);
-        var jwtFilter = new JwtAuthFilter(jwtUtils);
+        return new JwtUtils(JwtUtils.toPublicKey(rsaKey), issuer, compactRoles);
+    }
+
+    /**
+     * Reglas de autorización por ruta. Las rutas públicas de autenticación y el actuator no procesan JWT;
+     * el resto del actuator queda cerrado (ya lo estaba: el filtro JWT no corría y la regla exigía autenticación).
+     * La introspección exige una cuenta de servicio (rol SERVICE, RFC 7662 §2.1): sin ella cualquiera podría
+     * sondear tokens y forzar verificaciones RSA y consultas de estado. El intercambio de tokens es solo para el
+     * gateway (rol GATEWAY, autenticación del cliente de RFC 8693 §2.1). La búsqueda en lote de usuarios la usan los
+     * microservicios de resultados y agenda con su cuenta de servicio, sin el rol ADMIN que además crea y elimina.
+     */
+    @Bean
+    public RouteTable routeTable() {
+        return RouteTable.builder()
+                .permitAll(null, "/v3/api-docs/**")
+                .permitAll(null, "/swagger-ui.html")
+                .permitAll(null, "/swagger-ui/**")
+                .publicEndpoint(HttpMethod.POST, "/auth/login")
+                .hasRole(HttpMethod.POST, "/auth/introspect", "SERVICE")
+                .hasRole(HttpMethod.POST, "/auth/token-exchange", "GATEWAY")
+                .publicEndpoint(HttpMethod.GET, "/.well-known/jwks.json")
+                .publicEndpoint(HttpMethod.GET, "/actuator/health/**")
+                .denyAll(null, "/actuator/**")
+                .authenticated(null, "/users/me")
+                .hasAnyRole(HttpMethod.POST, "/users/batch", "ADMIN", "SERVICE")
+                .hasRole(null, "/users/**", "ADMIN")
+                .hasRole(null, "/roles/**", "ADMIN")
+                .otherwise(RouteTable.Access.AUTHENTICATED)
+                .build();
+    }
+
+    @Bean
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtUtils jwtUtils, RouteTable routeTable,
+                                                   AuthenticationEntryPoint authenticationEntryPoint,
+                                                   AccessDeniedHandler accessDeniedHandler) throws Exception {
+        logger.debug("Configurando la cadena de filtros de seguridad.");
+        var jwtFilter = new JwtAuthFilter(jwtUtils, routeTable);
 
         http
                 .csrf(AbstractHttpConfigurer::disable)
@@ -47,17 +87,13 @@ public class WebSecurityConfig {
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> {
                     logger.debug("Configurando reglas de autorización HTTP.");
-                    auth
-                        .requestMatchers("/v3/api-docs/**","/swagger-ui.html","/swagger-ui/**").permitAll()
-                        .requestMatchers(HttpMethod.POST, "/auth/login").permitAll()
-                        .requestMatchers(HttpMethod.GET, "/.well-known/jwks.json").permitAll()
-                        .requestMatchers(HttpMethod.GET, "/actuator/health").permitAll()
-                        .requestMatchers("/users/me").authenticated()
-                        .requestMatchers("/users/**").hasRole("ADMIN")
-                        .requestMatchers("/roles/**").hasRole("ADMIN")
-
-                        .anyRequest().authenticated();
+                    auth.anyRequest().access(routeTable.authorizationManager());
                 })
+                // Rechazos de la cadena (sin token o token inválido: 401; sin el rol: 403) con los cuerpos pre-serializados
+                // de SecurityHandlers; sin esto Spring Security usa Http403ForbiddenEntryPoint y AccessDeniedHandlerImpl
+                .exceptionHandling(e -> e
+                        .authenticationEntryPoint(authenticationEntryPoint)
+                        .accessDeniedHandler(accessDeniedHandler))
                 .formLogin(AbstractHttpConfigurer::disable)
                 .logout(AbstractHttpConfigurer::disable)
                 .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
@@ -0,0 +1,10 @@
+package cl.duoc.ms_auth.servicios;
+
+import cl.duoc.ms_auth.dtos.IntrospectionResponse;
+
+import java.util.List;
+
+public interface IntrospectionService {
+    IntrospectionResponse introspect(String token);                 // público (clientes legados)
+    List<IntrospectionResponse> introspectAll(List<String> tokens); // gateways (lote acotado)
+}
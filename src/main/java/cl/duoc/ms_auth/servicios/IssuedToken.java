@@ -0,0 +1,22 @@
+package cl.duoc.ms_auth.servicios;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Un record que representa un token de acceso recién emitido.
+ * Lleva los mismos valores que se firmaron en el JWT, para que la respuesta del login no los recalcule.
+ *
+ * @param token     El JWT firmado.
+ * @param issuedAt  El instante del claim {@code iat}.
+ * @param expiresAt El instante del claim {@code exp}.
+ * @param roles     Los nombres de rol del usuario, ordenados.
+ * @param labCode   El código de laboratorio incluido en el token (null si el usuario no es LAB_TECH).
+ */
+public record IssuedToken(
+        String token,
+        Instant issuedAt,
+        Instant expiresAt,
+        List<String> roles,
+        String labCode
+) {}
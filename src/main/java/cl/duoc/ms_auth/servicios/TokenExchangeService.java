@@ -0,0 +1,9 @@
+package cl.duoc.ms_auth.servicios;
+
+import cl.duoc.ms_auth.dtos.TokenExchangeResponse;
+
+public interface TokenExchangeService {
+    // Parámetros de RFC 8693 tal como llegan en el formulario (los obligatorios se validan aquí)
+    TokenExchangeResponse exchange(String grantType, String subjectToken, String subjectTokenType,
+                                   String audience, String requestedTokenType);
+}
@@ -2,9 +2,6 @@ package cl.duoc.ms_auth.servicios;
 
 import cl.duoc.ms_auth.entidades.User;
 
-import java.time.Instant;
-
 public interface TokenService {
-    String generateAccessToken(User user);     // incluye roles y labCode
-    Instant getExpirationInstant();
+    IssuedToken issue(User user);     // token firmado + roles, labCode y expiración usados en los claims
 }
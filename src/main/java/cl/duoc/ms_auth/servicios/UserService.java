@@ -1,16 +1,27 @@
 package cl.duoc.ms_auth.servicios;
 
+import cl.duoc.ms_auth.config.KeysetPageResponse;
+import cl.duoc.ms_auth.dtos.LabUserResponse;
+import cl.duoc.ms_auth.dtos.UserBatchRequest;
+import cl.duoc.ms_auth.dtos.UserBatchResponse;
 import cl.duoc.ms_auth.dtos.UserCreateRequest;
 import cl.duoc.ms_auth.dtos.UserResponse;
+import cl.duoc.ms_auth.dtos.UserSearchResult;
 import cl.duoc.ms_auth.dtos.UserUpdateRequest;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
 
 public interface UserService {
     UserResponse create(UserCreateRequest request);        // ADMIN
-    UserResponse update(Long id, UserUpdateRequest request); // ADMIN
+    UserResponse update(Long id, UserUpdateRequest request, Collection<Long> acceptedVersions); // ADMIN (acceptedVersions = If-Match, null = sin condición)
     void delete(Long id);                                   // ADMIN (soft o hard según prefieras)
     UserResponse getById(Long id);                          // ADMIN
     List<UserResponse> list();                              // ADMIN (simple; sin paginar para MVP)
     UserResponse me(String username);                       // cualquier autenticado
+    UserResponse getByExternalId(UUID externalId);          // ADMIN
+    UserBatchResponse getBatch(UserBatchRequest request);   // ADMIN / SERVICE (lote acotado)
+    KeysetPageResponse<LabUserResponse> listByLab(String labCode, String role, boolean active, Long after, Integer size); // ADMIN (keyset)
+    List<UserSearchResult> search(String query, Integer limit);  // ADMIN (índice en memoria)
 }
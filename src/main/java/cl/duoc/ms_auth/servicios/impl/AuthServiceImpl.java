@@ -1,18 +1,25 @@
 package cl.duoc.ms_auth.servicios.impl;
 
+import cl.duoc.ms_auth.activity.LastLoginTracker;
+import cl.duoc.ms_auth.activity.LoginAttemptTracker;
+import cl.duoc.ms_auth.audit.AuditEventType;
+import cl.duoc.ms_auth.audit.AuditTrail;
+import cl.duoc.ms_auth.config.StartupTimeline;
 import cl.duoc.ms_auth.dtos.AuthLoginRequest;
 import cl.duoc.ms_auth.dtos.AuthLoginResponse;
 import cl.duoc.ms_auth.entidades.User;
 import cl.duoc.ms_auth.exceptions.UnauthorizedException;
 import cl.duoc.ms_auth.repositorio.UserRepository;
 import cl.duoc.ms_auth.servicios.AuthService;
+import cl.duoc.ms_auth.servicios.IssuedToken;
 import cl.duoc.ms_auth.servicios.TokenService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.stream.Collectors;
+import java.time.Instant;
 
 /**
  * Implementación del servicio de autenticación {@link AuthService}.
@@ -24,6 +31,10 @@ public class AuthServiceImpl implements AuthService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final TokenService tokenService;
+    private final AuditTrail auditTrail;
+    private final LastLoginTracker lastLoginTracker;
+    private final LoginAttemptTracker loginAttempts;
+    private final StartupTimeline startupTimeline;
     private static final Logger logger = LoggerFactory.getLogger(AuthServiceImpl.class);
 
     /**
@@ -32,13 +43,25 @@ public class AuthServiceImpl implements AuthService {
      * @param userRepository  El repositorio para acceder a los datos de los usuarios.
      * @param passwordEncoder El codificador para verificar las contraseñas.
      * @param tokenService    El servicio para generar los tokens de acceso.
+     * @param auditTrail      El registro de auditoría de logins.
+     * @param lastLoginTracker El registro agrupado de {@code LAST_LOGIN_AT}.
+     * @param loginAttempts   El contador de logins fallidos y bloqueo de cuentas.
+     * @param startupTimeline La medición del tiempo hasta el primer login exitoso.
      */
     public AuthServiceImpl(UserRepository userRepository,
                            PasswordEncoder passwordEncoder,
-                           TokenService tokenService) {
+                           TokenService tokenService,
+                           AuditTrail auditTrail,
+                           LastLoginTracker lastLoginTracker,
+                           LoginAttemptTracker loginAttempts,
+                           StartupTimeline startupTimeline) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.tokenService = tokenService;
+        this.auditTrail = auditTrail;
+        this.lastLoginTracker = lastLoginTracker;
+        this.loginAttempts = loginAttempts;
+        this.startupTimeline = startupTimeline;
     }
 
     /**
@@ -51,39 +74,56 @@ public class AuthServiceImpl implements AuthService {
      * @throws UnauthorizedException si las credenciales son inválidas o el usuario está inactivo.
      */
     @Override
+    @Transactional(readOnly = true)
     public AuthLoginResponse login(AuthLoginRequest request) {
         logger.debug("Buscando usuario: {}", request.username());
         User u = userRepository.findByUsernameIgnoreCaseOrEmailIgnoreCase(request.username(), request.username())
                 .orElseThrow(() -> {
                     logger.warn("Intento de login fallido para el usuario: {}. Razón: Usuario no encontrado.", request.username());
+                    auditTrail.record(AuditEventType.LOGIN_FAILURE, request.username(), null, "USER_NOT_FOUND");
                     return new UnauthorizedException("Credenciales inválidas");
                 });
 
         logger.debug("Verificando estado del usuario: {}", request.username());
         if (!"Y".equalsIgnoreCase(u.getActive())) {
             logger.warn("Intento de login fallido para el usuario: {}. Razón: Usuario inactivo.", request.username());
+            auditTrail.record(AuditEventType.LOGIN_FAILURE, request.username(), u.getExternalId().toString(), "INACTIVE");
             throw new UnauthorizedException("Usuario inactivo");
         }
 
+        // Antes de BCrypt: un intento sobre una cuenta bloqueada no consume tiempo de CPU. La respuesta es la misma que
+        // para un usuario inexistente, para no revelar qué cuentas existen; el motivo queda en el log y la auditoría
+        Instant lockedUntil = loginAttempts.lockedUntil(u.getId(), u.getLockedUntil());
+        if (lockedUntil != null) {
+            logger.warn("Intento de login rechazado para el usuario: {}. Razón: Cuenta bloqueada hasta {}.", request.username(), lockedUntil);
+            auditTrail.record(AuditEventType.LOGIN_FAILURE, request.username(), u.getExternalId().toString(), "LOCKED");
+            throw new UnauthorizedException("Credenciales inválidas");
+        }
+
         logger.debug("Verificando contraseña para el usuario: {}", request.username());
         if (!passwordEncoder.matches(request.password(), u.getPasswordHash())) {
             logger.warn("Intento de login fallido para el usuario: {}. Razón: Contraseña incorrecta.", request.username());
+            Instant lockedNow = loginAttempts.recordFailure(u.getId());
+            auditTrail.record(AuditEventType.LOGIN_FAILURE, request.username(), u.getExternalId().toString(),
+                    lockedNow == null ? "BAD_PASSWORD" : "BAD_PASSWORD_LOCKOUT");
             throw new UnauthorizedException("Credenciales inválidas");
         }
+        loginAttempts.recordSuccess(u.getId());
 
         logger.debug("Generando token para el usuario: {}", request.username());
-        String token = tokenService.generateAccessToken(u);
-
-        var roles = u.getRoles().stream().map(r -> r.getName()).sorted().collect(Collectors.toList());
+        IssuedToken issued = tokenService.issue(u);
 
         logger.info("Login exitoso para el usuario: {}", request.username());
+        lastLoginTracker.record(u.getId(), issued.issuedAt());
+        startupTimeline.loginSucceeded();
+        auditTrail.record(AuditEventType.LOGIN_SUCCESS, request.username(), u.getExternalId().toString(), null);
         return new AuthLoginResponse(
-                token,
-                tokenService.getExpirationInstant(),
+                issued.token(),
+                issued.expiresAt(),
                 u.getExternalId().toString(),
                 u.getUsername(),
-                roles,
-                roles.contains("LAB_TECH") ? u.getLabCode() : null
+                issued.roles(),
+                issued.labCode()
         );
     }
 }
@@ -0,0 +1,142 @@
+package cl.duoc.ms_auth.servicios.impl;
+
+import cl.duoc.ms_auth.cache.CacheInvalidationBus;
+import cl.duoc.ms_auth.cache.CacheRegions;
+import cl.duoc.ms_auth.dtos.IntrospectionResponse;
+import cl.duoc.ms_auth.exceptions.BadRequestException;
+import cl.duoc.ms_auth.repositorio.UserRepository;
+import cl.duoc.ms_auth.security.JwtUtils;
+import cl.duoc.ms_auth.security.JwtUtils.JwtPayload;
+import cl.duoc.ms_auth.servicios.IntrospectionService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Implementación del servicio de introspección {@link IntrospectionService}.
+ * <p>
+ * La verificación de firma se hace una vez por token: el resultado queda en una caché acotada
+ * hasta su expiración (o el TTL configurado, lo que ocurra primero). El estado ACTIVE del usuario
+ * se consulta en una segunda caché de TTL corto que el bus de invalidación limpia cuando
+ * el usuario se modifica o elimina en cualquier réplica.
+ */
+@Service
+public class IntrospectionServiceImpl implements IntrospectionService {
+
+    private final JwtUtils jwtUtils;
+    private final UserRepository userRepository;
+    private final String issuer;
+    private final int maxBatchSize;
+    private final Cache<String, JwtPayload> verified;
+    private final LoadingCache<String, Boolean> userActive;
+    private static final Logger logger = LoggerFactory.getLogger(IntrospectionServiceImpl.class);
+
+    /**
+     * Constructor para inyectar dependencias y dimensionar las cachés.
+     *
+     * @param jwtUtils        El validador de tokens.
+     * @param userRepository  El repositorio para consultar el estado del usuario.
+     * @param invalidationBus El bus de invalidación entre réplicas.
+     * @param issuer          El emisor esperado, informado en la respuesta.
+     * @param verifiedMaxSize Máximo de tokens verificados en caché.
+     * @param verifiedTtl     Tiempo máximo que un token verificado permanece en caché.
+     * @param statusMaxSize   Máximo de estados de usuario en caché.
+     * @param statusTtl       TTL del estado de usuario.
+     * @param maxBatchSize    Máximo de tokens por solicitud en lote.
+     */
+    public IntrospectionServiceImpl(JwtUtils jwtUtils,
+                                    UserRepository userRepository,
+                                    CacheInvalidationBus invalidationBus,
+                                    @Value("${auth.jwt.issuer}") String issuer,
+                                    @Value("${auth.introspection.verified.max-size:50000}") long verifiedMaxSize,
+                                    @Value("${auth.introspection.verified.ttl:5m}") Duration verifiedTtl,
+                                    @Value("${auth.introspection.user-status.max-size:10000}") long statusMaxSize,
+                                    @Value("${auth.introspection.user-status.ttl:30s}") Duration statusTtl,
+                                    @Value("${auth.introspection.batch.max-size:100}") int maxBatchSize) {
+        this.jwtUtils = jwtUtils;
+        this.userRepository = userRepository;
+        this.issuer = issuer;
+        this.maxBatchSize = maxBatchSize;
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(verifiedMaxSize)
+                .expireAfter(Expiry.<String, JwtPayload>creating((token, payload) -> {
+                    Duration untilExp = Duration.between(Instant.now(), payload.expiresAt());
+                    if (untilExp.isNegative()) return Duration.ZERO;
+                    return untilExp.compareTo(verifiedTtl) < 0 ? untilExp : verifiedTtl;
+                }))
+                .build();
+        this.userActive = Caffeine.newBuilder()
+                .maximumSize(statusMaxSize)
+                .expireAfterWrite(statusTtl)
+                .build(this::loadUserActive);
+        invalidationBus.subscribe(CacheRegions.TOKENS, event -> {
+            if (event.isRegionWide()) userActive.invalidateAll();
+            else userActive.invalidate(event.key());
+        });
+    }
+
+    @Override
+    public IntrospectionResponse introspect(String token) {
+        if (token == null || token.isBlank()) return IntrospectionResponse.inactive();
+        JwtPayload payload = verify(token);
+        if (payload == null || !payload.expiresAt().isAfter(Instant.now())) {
+            logger.debug("Introspección: token inválido o expirado.");
+            return IntrospectionResponse.inactive();
+        }
+        // Sin userId no se puede comprobar el estado del usuario: el token no se considera activo
+        if (payload.userId() == null || !Boolean.TRUE.equals(userActive.get(payload.userId()))) {
+            logger.debug("Introspección: el usuario {} está inactivo o no existe.", payload.principal());
+            return IntrospectionResponse.inactive();
+        }
+        return new IntrospectionResponse(
+                true,
+                payload.username(),
+                payload.userId(),
+                payload.roles(),
+                payload.labCode(),
+                issuer,
+                payload.expiresAt().getEpochSecond(),
+                "Bearer"
+        );
+    }
+
+    @Override
+    public List<IntrospectionResponse> introspectAll(List<String> tokens) {
+        if (tokens.size() > maxBatchSize) {
+            logger.warn("Bad Request: Se solicitaron {} tokens para introspección (máximo {}).", tokens.size(), maxBatchSize);
+            throw new BadRequestException("Máximo " + maxBatchSize + " tokens por solicitud");
+        }
+        logger.debug("Introspección en lote de {} tokens.", tokens.size());
+        return tokens.stream().map(this::introspect).toList();
+    }
+
+    private JwtPayload verify(String token) {
+        JwtPayload cached = verified.getIfPresent(token);
+        if (cached != null) return cached;
+        // Solo se cachean los tokens válidos: un atacante no puede llenar la caché con basura.
+        Optional<JwtPayload> parsed = jwtUtils.validateAndParse(token);
+        parsed.ifPresent(p -> verified.put(token, p));
+        return parsed.orElse(null);
+    }
+
+    private Boolean loadUserActive(String externalId) {
+        UUID id;
+        try {
+            id = UUID.fromString(externalId);
+        } catch (IllegalArgumentException e) {
+            return Boolean.FALSE;
+        }
+        return userRepository.findActiveFlagByExternalId(id).map("Y"::equalsIgnoreCase).orElse(Boolean.FALSE);
+    }
+}
@@ -6,6 +6,7 @@ import cl.duoc.ms_auth.servicios.RoleService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -35,6 +36,7 @@ public class RoleServiceImpl implements RoleService {
      * @return una lista de {@link RoleResponse} que representa todos los roles.
      */
     @Override
+    @Transactional(readOnly = true)
     public List<RoleResponse> list() {
         logger.info("Obteniendo todos los roles.");
         List<RoleResponse> roles = roleRepo.findAll().stream()
@@ -0,0 +1,184 @@
+package cl.duoc.ms_auth.servicios.impl;
+
+import cl.duoc.ms_auth.cache.CacheInvalidationBus;
+import cl.duoc.ms_auth.cache.CacheRegions;
+import cl.duoc.ms_auth.dtos.IntrospectionResponse;
+import cl.duoc.ms_auth.dtos.TokenExchangeResponse;
+import cl.duoc.ms_auth.exceptions.BadRequestException;
+import cl.duoc.ms_auth.exceptions.UnauthorizedException;
+import cl.duoc.ms_auth.security.CompactClaims;
+import cl.duoc.ms_auth.security.KeyProvider;
+import cl.duoc.ms_auth.servicios.IntrospectionService;
+import cl.duoc.ms_auth.servicios.TokenExchangeService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Implementación del servicio de intercambio de tokens {@link TokenExchangeService} (RFC 8693).
+ * <p>
+ * El gateway cambia el token de acceso del usuario (RS256, minutos de vida) por un token para un servicio interno
+ * concreto: HS256 con la clave de esa audiencia ({@link KeyProvider#exchangeKey(String)}), {@code aud} = el servicio,
+ * unos segundos de vida (nunca más que el token original) y los claims del perfil compacto ({@link CompactClaims}),
+ * sin {@code typ}, {@code kid} ni {@code iat}. Verificarlo cuesta un HMAC en vez de una verificación RSA.
+ * <p>
+ * Solo lo usa el gateway (rol GATEWAY, ver {@code WebSecurityConfig}). El token original se valida con
+ * {@link IntrospectionService} (firma cacheada y usuario ACTIVE). El resultado se cachea por (token, audiencia) hasta
+ * que se consume la mitad de su vida, así que con mucho fan-out casi todos los intercambios son una lectura de caché;
+ * el bus de invalidación la vacía cuando cambia cualquier usuario.
+ */
+@Service
+public class TokenExchangeServiceImpl implements TokenExchangeService {
+
+    public static final String GRANT_TYPE = "urn:ietf:params:oauth:grant-type:token-exchange";
+    public static final String ACCESS_TOKEN_TYPE = "urn:ietf:params:oauth:token-type:access_token";
+    public static final String JWT_TOKEN_TYPE = "urn:ietf:params:oauth:token-type:jwt";
+
+    private record Key(String subjectToken, String audience) {}
+
+    private record Exchanged(String token, Instant expiresAt) {}
+
+    private final IntrospectionService introspectionService;
+    private final Map<String, MACSigner> signers;
+    private final JWSHeader header = new JWSHeader(JWSAlgorithm.HS256);
+    private final String issuer;
+    private final Duration ttl;
+    private final List<String> compactRoles;
+    private final Cache<Key, Exchanged> exchanged;
+    private static final Logger logger = LoggerFactory.getLogger(TokenExchangeServiceImpl.class);
+
+    /**
+     * Constructor para inyectar dependencias y dimensionar la caché.
+     *
+     * @param introspectionService El servicio que valida el token original.
+     * @param keyProvider          El proveedor de las claves HMAC por audiencia.
+     * @param invalidationBus      El bus de invalidación entre réplicas.
+     * @param issuer               El emisor de los tokens emitidos.
+     * @param audiences            Las audiencias (servicios internos) aceptadas.
+     * @param ttl                  La vida máxima de un token emitido.
+     * @param cacheMaxSize         Máximo de intercambios en caché.
+     * @param compactRoles         El orden de bits de roles del perfil compacto.
+     * @throws IllegalStateException si una clave no sirve para HS256.
+     */
+    public TokenExchangeServiceImpl(IntrospectionService introspectionService,
+                                    KeyProvider keyProvider,
+                                    CacheInvalidationBus invalidationBus,
+                                    @Value("${auth.jwt.issuer}") String issuer,
+                                    @Value("${auth.exchange.audiences:}") List<String> audiences,
+                                    @Value("${auth.exchange.ttl:30s}") Duration ttl,
+                                    @Value("${auth.exchange.cache.max-size:20000}") long cacheMaxSize,
+                                    @Value("${auth.jwt.compact.roles:ADMIN,LAB_TECH}") List<String> compactRoles) {
+        this.introspectionService = introspectionService;
+        Map<String, MACSigner> byAudience = new HashMap<>();
+        for (String audience : audiences) {
+            String name = audience.trim();
+            if (name.isEmpty()) continue;
+            try {
+                byAudience.put(name, new MACSigner(keyProvider.exchangeKey(name)));
+            } catch (JOSEException e) {
+                throw new IllegalStateException("No se pudo crear el firmante HS256 de " + name + ": " + e.getMessage(), e);
+            }
+        }
+        this.signers = Map.copyOf(byAudience);
+        this.issuer = issuer;
+        this.ttl = ttl;
+        this.compactRoles = List.copyOf(compactRoles);
+        this.exchanged = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(Expiry.<Key, Exchanged>creating((key, value) -> {
+                    Duration left = Duration.between(Instant.now(), value.expiresAt());
+                    return left.isNegative() ? Duration.ZERO : left.dividedBy(2);
+                }))
+                .build();
+        invalidationBus.subscribe(CacheRegions.TOKENS, event -> exchanged.invalidateAll());
+        logger.info("Intercambio de tokens habilitado para las audiencias {} (TTL {}s).", signers.keySet(), ttl.toSeconds());
+    }
+
+    @Override
+    public TokenExchangeResponse exchange(String grantType, String subjectToken, String subjectTokenType,
+                                          String audience, String requestedTokenType) {
+        if (!GRANT_TYPE.equals(grantType)) {
+            throw new BadRequestException("grant_type debe ser " + GRANT_TYPE);
+        }
+        if (!ACCESS_TOKEN_TYPE.equals(subjectTokenType) && !JWT_TOKEN_TYPE.equals(subjectTokenType)) {
+            throw new BadRequestException("subject_token_type debe ser " + ACCESS_TOKEN_TYPE + " o " + JWT_TOKEN_TYPE);
+        }
+        if (requestedTokenType != null && !ACCESS_TOKEN_TYPE.equals(requestedTokenType) && !JWT_TOKEN_TYPE.equals(requestedTokenType)) {
+            throw new BadRequestException("requested_token_type no soportado");
+        }
+        if (subjectToken == null || subjectToken.isBlank()) {
+            throw new BadRequestException("subject_token es obligatorio");
+        }
+        if (audience == null || !signers.containsKey(audience)) {
+            logger.warn("Bad Request: Intercambio de token solicitado para una audiencia no permitida: {}", audience);
+            throw new BadRequestException("audience no permitida");
+        }
+
+        Key key = new Key(subjectToken, audience);
+        Exchanged cached = exchanged.getIfPresent(key);
+        if (cached != null) return toResponse(cached);
+
+        IntrospectionResponse subject = introspectionService.introspect(subjectToken);
+        if (!subject.active() || subject.userId() == null) {
+            logger.debug("Intercambio rechazado: token inválido, expirado o de un usuario inactivo.");
+            throw new UnauthorizedException("Token inválido o expirado");
+        }
+        // Solo se cachean intercambios exitosos, como en la introspección
+        Exchanged issued = issue(subject, audience);
+        exchanged.put(key, issued);
+        logger.debug("Token de intercambio emitido para el usuario {} y la audiencia {}.", subject.userId(), audience);
+        return toResponse(issued);
+    }
+
+    private Exchanged issue(IntrospectionResponse subject, String audience) {
+        var now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        var exp = now.plus(ttl);
+        var subjectExp = Instant.ofEpochSecond(subject.exp());
+        if (subjectExp.isBefore(exp)) exp = subjectExp;
+        if (!exp.isAfter(now)) throw new UnauthorizedException("Token inválido o expirado");
+
+        List<String> roles = subject.roles();
+        List<String> extra = CompactClaims.unknownRoles(roles, compactRoles);
+        var claims = new JWTClaimsSet.Builder()
+                .issuer(issuer)
+                .subject(CompactClaims.encodeUuid(UUID.fromString(subject.userId())))
+                .audience(audience)
+                .expirationTime(Date.from(exp))
+                .claim(CompactClaims.ROLE_MASK, CompactClaims.roleMask(roles, compactRoles))
+                .claim(CompactClaims.ROLE_NAMES, extra.isEmpty() ? null : extra)
+                .claim(CompactClaims.LAB_CODE, subject.labCode())
+                .build();
+        try {
+            var jwt = new SignedJWT(header, claims);
+            jwt.sign(signers.get(audience));
+            return new Exchanged(jwt.serialize(), exp);
+        } catch (JOSEException e) {
+            logger.error("Error firmando el token de intercambio para la audiencia: {}", audience, e);
+            throw new RuntimeException("Error generando JWT", e);
+        }
+    }
+
+    private static TokenExchangeResponse toResponse(Exchanged exchanged) {
+        long expiresIn = Math.max(0, Duration.between(Instant.now(), exchanged.expiresAt()).toSeconds());
+        return new TokenExchangeResponse(exchanged.token(), JWT_TOKEN_TYPE, "Bearer", expiresIn);
+    }
+}
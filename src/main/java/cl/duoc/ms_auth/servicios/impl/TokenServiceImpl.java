@@ -2,6 +2,9 @@ package cl.duoc.ms_auth.servicios.impl;
 
 import cl.duoc.ms_auth.entidades.Role;
 import cl.duoc.ms_auth.entidades.User;
+import cl.duoc.ms_auth.security.CompactClaims;
+import cl.duoc.ms_auth.security.KeyProvider;
+import cl.duoc.ms_auth.servicios.IssuedToken;
 import cl.duoc.ms_auth.servicios.TokenService;
 import com.nimbusds.jose.*;
 import com.nimbusds.jose.crypto.RSASSASigner;
@@ -16,7 +19,7 @@ import org.springframework.stereotype.Service;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
-import java.util.stream.Collectors;
+import java.util.List;
 
 /**
  * Implementación del servicio de tokens {@link TokenService}.
@@ -25,110 +28,103 @@ import java.util.stream.Collectors;
 @Service
 public class TokenServiceImpl implements TokenService {
 
-    private final RSAKey rsaKey;
+    private final RSASSASigner signer;
+    private final JWSHeader header;
     private final String issuer;
     private final long expirationMinutes;
+    private final boolean compactProfile;
+    private final List<String> compactRoles;
     private static final Logger logger = LoggerFactory.getLogger(TokenServiceImpl.class);
 
     /**
      * Constructor que inicializa el servicio de tokens.
-     * Carga y valida las claves RSA pública y privada, el emisor y el tiempo de expiración desde las propiedades de la aplicación.
+     * Usa el par de claves de {@link KeyProvider} (parseado una sola vez) y lee el emisor y el tiempo de expiración
+     * desde las propiedades de la aplicación.
      *
-     * @param privatePemRaw     La clave privada en formato PEM (PKCS#8), leída de las propiedades.
-     * @param publicPemRaw      La clave pública en formato PEM, leída de las propiedades.
+     * @param keyProvider       El proveedor de las claves RSA.
      * @param issuer            El emisor del token (issuer), leído de las propiedades.
      * @param expirationMinutes El tiempo de vida del token en minutos, leído de las propiedades.
-     * @throws IllegalStateException si hay un error al cargar o validar las claves.
+     * @param claimsProfile     El perfil de claims a emitir: {@code legacy} (por defecto) o {@code compact}.
+     * @param compactRoles      El orden de bits de roles del perfil compacto.
+     * @throws IllegalStateException si la clave privada no se puede usar para firmar.
      */
     public TokenServiceImpl(
-            @Value("${auth.jwt.rsa.private:}") String privatePemRaw,
-            @Value("${auth.jwt.rsa.public:}")  String publicPemRaw,
+            KeyProvider keyProvider,
             @Value("${auth.jwt.issuer}")        String issuer,
-            @Value("${auth.jwt.expiration-minutes}") long expirationMinutes
+            @Value("${auth.jwt.expiration-minutes}") long expirationMinutes,
+            @Value("${auth.jwt.claims-profile:legacy}") String claimsProfile,
+            @Value("${auth.jwt.compact.roles:ADMIN,LAB_TECH}") List<String> compactRoles
     ) {
+        logger.info("Inicializando TokenServiceImpl.");
+        RSAKey rsaKey = keyProvider.rsaKey();
         try {
-            logger.info("Inicializando TokenServiceImpl.");
-            String privatePem = normalizePem(privatePemRaw);
-            String publicPem  = normalizePem(publicPemRaw);
-
-            require(!publicPem.isBlank(),  "auth.jwt.rsa.public vacío o no definido");
-            require(!privatePem.isBlank(), "auth.jwt.rsa.private vacío o no definido");
-            require(publicPem.contains("BEGIN PUBLIC KEY"),   "El PUBLIC PEM no tiene cabecera BEGIN PUBLIC KEY");
-            require(privatePem.contains("BEGIN PRIVATE KEY"), "La PRIVATE PEM debe ser PKCS#8 (BEGIN PRIVATE KEY)");
-
-            RSAKey parsed = RSAKey.parseFromPEMEncodedObjects(publicPem + "\n" + privatePem).toRSAKey();
-
-            require(parsed.toRSAPublicKey() != null,  "No se pudo obtener la clave pública desde el PEM");
-            require(parsed.toRSAPrivateKey() != null, "No se pudo obtener la clave privada (¿está en PKCS#8?)");
-
-            this.rsaKey = parsed;
-            this.issuer = issuer;
-            this.expirationMinutes = expirationMinutes;
-            logger.info("TokenServiceImpl inicializado correctamente.");
-
-        } catch (Exception e) {
-            logger.error("Error inicializando TokenServiceImpl: {}. Revisa auth.jwt.rsa.public / auth.jwt.rsa.private en application.properties (.env). La privada debe ser PKCS#8.", rootMsg(e), e);
-            throw new IllegalStateException(
-                    "Error inicializando TokenServiceImpl: " + rootMsg(e) +
-                            ". Revisa auth.jwt.rsa.public / auth.jwt.rsa.private en application.properties (.env). " +
-                            "La privada debe ser PKCS#8.", e);
+            // El firmante y la cabecera son inmutables: se crean una vez y no en cada login
+            this.signer = new RSASSASigner(rsaKey.toPrivateKey());
+        } catch (JOSEException e) {
+            throw new IllegalStateException("No se pudo crear el firmante RS256: " + e.getMessage(), e);
         }
+        this.header = new JWSHeader.Builder(JWSAlgorithm.RS256).type(JOSEObjectType.JWT).keyID(rsaKey.getKeyID()).build();
+        this.issuer = issuer;
+        this.expirationMinutes = expirationMinutes;
+        this.compactProfile = "compact".equalsIgnoreCase(claimsProfile);
+        this.compactRoles = List.copyOf(compactRoles);
+        logger.info("TokenServiceImpl inicializado correctamente (perfil de claims: {}).", compactProfile ? "compact" : "legacy");
     }
 
-    private static String normalizePem(String raw) {
-        if (raw == null) return "";
-        String clean = raw.replace("\"", "").replace(",", "");
-        String newlineNormalized = clean.replace("\\n", "\n");
-        return newlineNormalized.trim();
-    }
-
-    private static void require(boolean cond, String msg) {
-        if (!cond) throw new IllegalArgumentException(msg);
-    }
-
-    private static String rootMsg(Throwable t) {
-        Throwable x = t;
-        while (x.getCause() != null) x = x.getCause();
-        return x.getMessage();
-    }
-
-
     @Override
-    public String generateAccessToken(User user) {
+    public IssuedToken issue(User user) {
         try {
             logger.debug("Generando token de acceso para el usuario: {}", user.getUsername());
-            var now = Instant.now();
+            // iat/exp se serializan en segundos: se trunca aquí para que expiresAt coincida con el claim
+            var now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
             var exp = now.plus(expirationMinutes, ChronoUnit.MINUTES);
 
-            var roles = user.getRoles().stream().map(Role::getName).sorted().collect(Collectors.toList());
+            var roles = user.getRoles().stream().map(Role::getName).sorted().toList();
+            var labCode = roles.contains("LAB_TECH") ? user.getLabCode() : null;
 
-            var claims = new JWTClaimsSet.Builder()
-                    .issuer(issuer)
-                    .subject(user.getUsername())
-                    .issueTime(Date.from(now))
-                    .expirationTime(Date.from(exp))
-                    .claim("userId", user.getExternalId().toString())
-                    .claim("roles", roles)
-                    .claim("labCode", roles.contains("LAB_TECH") ? user.getLabCode() : null)
-                    .build();
-
-            var header = new JWSHeader.Builder(JWSAlgorithm.RS256).type(JOSEObjectType.JWT).build();
+            var claims = compactProfile
+                    ? compactClaims(user, roles, labCode, now, exp)
+                    : legacyClaims(user, roles, labCode, now, exp);
 
             var jwt = new SignedJWT(header, claims);
 
-            jwt.sign(new RSASSASigner(rsaKey.toPrivateKey()));
+            jwt.sign(signer);
 
             String token = jwt.serialize();
-            logger.info("Token de acceso generado exitosamente para el usuario: {}", user.getUsername());
-            return token;
+            logger.debug("Token de acceso generado exitosamente para el usuario: {}", user.getUsername());
+            return new IssuedToken(token, now, exp, roles, labCode);
         } catch (JOSEException e) {
             logger.error("Error generando JWT para el usuario: {}", user.getUsername(), e);
             throw new RuntimeException("Error generando JWT", e);
         }
     }
 
-    @Override
-    public Instant getExpirationInstant() {
-        return Instant.now().plus(expirationMinutes, ChronoUnit.MINUTES);
+    private JWTClaimsSet legacyClaims(User user, List<String> roles, String labCode, Instant now, Instant exp) {
+        return new JWTClaimsSet.Builder()
+                .issuer(issuer)
+                .subject(user.getUsername())
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(exp))
+                .claim("userId", user.getExternalId().toString())
+                .claim("roles", roles)
+                .claim("labCode", labCode)
+                .build();
+    }
+
+    /**
+     * Claims del perfil compacto: sub = externalId en base64url, roles como máscara de bits.
+     * Ver {@link CompactClaims}.
+     */
+    private JWTClaimsSet compactClaims(User user, List<String> roles, String labCode, Instant now, Instant exp) {
+        List<String> extra = CompactClaims.unknownRoles(roles, compactRoles);
+        return new JWTClaimsSet.Builder()
+                .issuer(issuer)
+                .subject(CompactClaims.encodeUuid(user.getExternalId()))
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(exp))
+                .claim(CompactClaims.ROLE_MASK, CompactClaims.roleMask(roles, compactRoles))
+                .claim(CompactClaims.ROLE_NAMES, extra.isEmpty() ? null : extra)
+                .claim(CompactClaims.LAB_CODE, labCode)
+                .build();
     }
 }
@@ -1,22 +1,37 @@
 package cl.duoc.ms_auth.servicios.impl;
 
+import cl.duoc.ms_auth.cache.CacheInvalidationBus;
+import cl.duoc.ms_auth.cache.CacheRegions;
+import cl.duoc.ms_auth.config.KeysetPageResponse;
+import cl.duoc.ms_auth.dtos.LabUserResponse;
+import cl.duoc.ms_auth.dtos.UserBatchRequest;
+import cl.duoc.ms_auth.dtos.UserBatchResponse;
 import cl.duoc.ms_auth.dtos.UserCreateRequest;
 import cl.duoc.ms_auth.dtos.UserResponse;
+import cl.duoc.ms_auth.dtos.UserSearchResult;
 import cl.duoc.ms_auth.dtos.UserUpdateRequest;
 import cl.duoc.ms_auth.entidades.Role;
 import cl.duoc.ms_auth.entidades.User;
 import cl.duoc.ms_auth.exceptions.BadRequestException;
 import cl.duoc.ms_auth.exceptions.ConflictException;
 import cl.duoc.ms_auth.exceptions.NotFoundException;
+import cl.duoc.ms_auth.exceptions.PreconditionFailedException;
 import cl.duoc.ms_auth.mappers.UserMapperImpl;
+import cl.duoc.ms_auth.repositorio.UserSummaryView;
 import cl.duoc.ms_auth.repositorio.RoleRepository;
 import cl.duoc.ms_auth.repositorio.UserRepository;
+import cl.duoc.ms_auth.search.UserSearchIndex;
 import cl.duoc.ms_auth.servicios.UserMapper;
 import cl.duoc.ms_auth.servicios.UserService;
+import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -27,27 +42,39 @@ public class UserServiceImpl implements UserService {
     private final UserRepository userRepo;
     private final RoleRepository roleRepo;
     private final PasswordEncoder passwordEncoder;
+    private final CacheInvalidationBus invalidationBus;
+    private final UserSearchIndex searchIndex;
+    private final int maxBatchSize;
+    private final int defaultLabPageSize;
+    private final int maxLabPageSize;
+    private final int defaultSearchLimit;
+    private final int maxSearchLimit;
     private final UserMapper mapper = new UserMapperImpl();
     private static final Logger logger = LoggerFactory.getLogger(UserServiceImpl.class);
 
-    public UserServiceImpl(UserRepository userRepo, RoleRepository roleRepo, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepo, RoleRepository roleRepo, PasswordEncoder passwordEncoder,
+                           CacheInvalidationBus invalidationBus, UserSearchIndex searchIndex,
+                           @Value("${auth.users.batch.max-size:100}") int maxBatchSize,
+                           @Value("${auth.users.lab.page-size:50}") int defaultLabPageSize,
+                           @Value("${auth.users.lab.max-page-size:200}") int maxLabPageSize,
+                           @Value("${auth.users.search.default-limit:20}") int defaultSearchLimit,
+                           @Value("${auth.users.search.max-limit:50}") int maxSearchLimit) {
         this.userRepo = userRepo;
         this.roleRepo = roleRepo;
         this.passwordEncoder = passwordEncoder;
+        this.invalidationBus = invalidationBus;
+        this.searchIndex = searchIndex;
+        this.maxBatchSize = maxBatchSize;
+        this.defaultLabPageSize = defaultLabPageSize;
+        this.maxLabPageSize = maxLabPageSize;
+        this.defaultSearchLimit = defaultSearchLimit;
+        this.maxSearchLimit = maxSearchLimit;
     }
 
     @Override
+    @Transactional
     public UserResponse create(UserCreateRequest req) {
         logger.info("Iniciando creación de usuario con username: {}", req.username());
-        if (userRepo.existsByUsername(req.username())) {
-            logger.warn("Conflicto: El username '{}' ya está en uso.", req.username());
-            throw new ConflictException("USERNAME en uso");
-        }
-        if (userRepo.existsByEmail(req.email())) {
-            logger.warn("Conflicto: El email '{}' ya está en uso.", req.email());
-            throw new ConflictException("EMAIL en uso");
-        }
-
         Set<Role> roles = resolveRoles(req.roles());
         boolean isTech = roles.stream().anyMatch(r -> "LAB_TECH".equalsIgnoreCase(r.getName()));
         if (isTech && (req.labCode() == null || req.labCode().isBlank())) {
@@ -57,18 +84,31 @@ public class UserServiceImpl implements UserService {
 
         String hash = passwordEncoder.encode(req.password());
         User entity = mapper.toNewEntity(req, hash, roles);
-        entity = userRepo.save(entity);
+        // Sin existsByUsername/existsByEmail previos: UQ_USERS_USERNAME/UQ_USERS_EMAIL deciden en el mismo INSERT
+        try {
+            entity = userRepo.saveAndFlush(entity);
+        } catch (DataIntegrityViolationException e) {
+            throw uniqueConflict(e, req.username(), req.email());
+        }
+        invalidationBus.publish(CacheRegions.USERS, entity.getId());
         logger.info("Usuario creado exitosamente con ID: {}", entity.getId());
         return mapper.toResponse(entity);
     }
 
     @Override
-    public UserResponse update(Long id, UserUpdateRequest req) {
+    @Transactional
+    public UserResponse update(Long id, UserUpdateRequest req, Collection<Long> acceptedVersions) {
         logger.info("Iniciando actualización de usuario con ID: {}", id);
         User u = userRepo.findById(id).orElseThrow(() -> {
             logger.warn("Not Found: Usuario con ID '{}' no encontrado para actualizar.", id);
             return new NotFoundException("Usuario no encontrado");
         });
+        // El UPDATE lleva "WHERE VERSION = ?" con esta versión: si otra transacción la cambia antes del commit,
+        // Hibernate lanza ObjectOptimisticLockingFailureException en lugar de sobrescribir
+        if (acceptedVersions != null && !acceptedVersions.contains(u.getVersion())) {
+            logger.warn("Precondition Failed: El usuario con ID {} está en la versión {}, If-Match indicaba {}.", id, u.getVersion(), acceptedVersions);
+            throw new PreconditionFailedException("El usuario fue modificado (versión actual " + u.getVersion() + ")");
+        }
 
         Set<Role> roles = null;
         if (req.roles() != null) roles = resolveRoles(req.roles());
@@ -85,23 +125,33 @@ public class UserServiceImpl implements UserService {
         }
 
         mapper.applyUpdate(u, req, hash, roles == null ? u.getRoles() : roles);
-        u = userRepo.save(u);
+        // flush para que la respuesta lleve la VERSION (y UPDATED_AT) ya incrementadas
+        try {
+            u = userRepo.saveAndFlush(u);
+        } catch (DataIntegrityViolationException e) {
+            throw uniqueConflict(e, u.getUsername(), req.email());
+        }
+        invalidationBus.publish(CacheRegions.USERS, id);
+        invalidationBus.publish(CacheRegions.TOKENS, u.getExternalId());
         logger.info("Usuario con ID: {} actualizado exitosamente.", id);
         return mapper.toResponse(u);
     }
 
     @Override
+    @Transactional
     public void delete(Long id) {
         logger.info("Iniciando eliminación de usuario con ID: {}", id);
-        User u = userRepo.findById(id).orElseThrow(() -> {
+        UUID externalId = userRepo.deleteReturningExternalId(id).orElseThrow(() -> {
             logger.warn("Not Found: Usuario con ID '{}' no encontrado para eliminar.", id);
             return new NotFoundException("Usuario no encontrado");
         });
-        userRepo.delete(u);
+        invalidationBus.publish(CacheRegions.USERS, id);
+        invalidationBus.publish(CacheRegions.TOKENS, externalId);
         logger.info("Usuario con ID: {} eliminado exitosamente.", id);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public UserResponse getById(Long id) {
         logger.info("Buscando usuario por ID: {}", id);
         UserResponse response = userRepo.findById(id).map(mapper::toResponse)
@@ -114,6 +164,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<UserResponse> list() {
         logger.info("Listando todos los usuarios.");
         List<UserResponse> users = userRepo.findAll().stream().map(mapper::toResponse).toList();
@@ -122,6 +173,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public UserResponse me(String username) {
         logger.info("Buscando información para el usuario autenticado: {}", username);
         User u = userRepo.findByUsername(username)
@@ -133,6 +185,143 @@ public class UserServiceImpl implements UserService {
         return mapper.toResponse(u);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public UserResponse getByExternalId(UUID externalId) {
+        logger.info("Buscando usuario por externalId: {}", externalId);
+        UserResponse response = userRepo.findByExternalId(externalId).map(mapper::toResponse)
+                .orElseThrow(() -> {
+                    logger.warn("Not Found: Usuario con externalId '{}' no encontrado.", externalId);
+                    return new NotFoundException("Usuario no encontrado");
+                });
+        logger.debug("Usuario con externalId: {} encontrado.", externalId);
+        return response;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UserBatchResponse getBatch(UserBatchRequest req) {
+        // También lo valida @Valid en POST /users/batch; aquí cubre a /users/by-external-id, que delega en este método
+        if (hasNull(req.ids()) || hasNull(req.externalIds())) {
+            logger.warn("Bad Request: El lote de usuarios contiene identificadores null.");
+            throw new BadRequestException("Los ids y externalIds no pueden ser null");
+        }
+        Set<Long> ids = req.ids() == null ? Set.of() : new LinkedHashSet<>(req.ids());
+        Set<UUID> externalIds = req.externalIds() == null ? Set.of() : new LinkedHashSet<>(req.externalIds());
+        int total = ids.size() + externalIds.size();
+        if (total == 0) {
+            logger.warn("Bad Request: El lote de usuarios no puede estar vacío.");
+            throw new BadRequestException("Debe indicar al menos un id o externalId");
+        }
+        if (total > maxBatchSize) {
+            logger.warn("Bad Request: Se solicitaron {} usuarios en lote (máximo {}).", total, maxBatchSize);
+            throw new BadRequestException("Máximo " + maxBatchSize + " usuarios por solicitud");
+        }
+
+        logger.info("Buscando lote de {} ids y {} externalIds.", ids.size(), externalIds.size());
+        Map<Long, User> byId = new HashMap<>();
+        Map<UUID, User> byExternalId = new HashMap<>();
+        for (User u : userRepo.findByIdInOrExternalIdIn(ids, externalIds)) {
+            byId.put(u.getId(), u);
+            byExternalId.put(u.getExternalId(), u);
+        }
+
+        Map<String, UserResponse> users = new LinkedHashMap<>();
+        List<String> notFound = new ArrayList<>();
+        Map<Long, UserResponse> mapped = new HashMap<>();
+        for (Long id : ids) {
+            User u = byId.get(id);
+            if (u == null) notFound.add(id.toString());
+            else users.put(id.toString(), mapped.computeIfAbsent(u.getId(), k -> mapper.toResponse(u)));
+        }
+        for (UUID externalId : externalIds) {
+            User u = byExternalId.get(externalId);
+            if (u == null) notFound.add(externalId.toString());
+            else users.put(externalId.toString(), mapped.computeIfAbsent(u.getId(), k -> mapper.toResponse(u)));
+        }
+        logger.debug("Lote resuelto: {} encontrados, {} no encontrados.", users.size(), notFound.size());
+        return new UserBatchResponse(users, notFound);
+    }
+
+    private static boolean hasNull(Collection<?> values) {
+        if (values == null) return false;
+        for (Object v : values) {
+            if (v == null) return true;
+        }
+        return false;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPageResponse<LabUserResponse> listByLab(String labCode, String role, boolean active, Long after, Integer size) {
+        int pageSize = size == null ? defaultLabPageSize : size;
+        if (pageSize < 1 || pageSize > maxLabPageSize) {
+            logger.warn("Bad Request: Tamaño de página {} fuera de rango (1..{}).", pageSize, maxLabPageSize);
+            throw new BadRequestException("size debe estar entre 1 y " + maxLabPageSize);
+        }
+        long afterId = after == null ? 0L : after;
+        String activeFlag = active ? "Y" : "N";
+
+        logger.info("Listando usuarios del laboratorio {} (rol={}, activo={}, after={}, size={}).",
+                labCode, role, activeFlag, afterId, pageSize);
+        // Se pide un registro extra para saber si hay otra página sin contar el total
+        Limit limit = Limit.of(pageSize + 1);
+        List<UserSummaryView> rows = role == null || role.isBlank()
+                ? userRepo.findLabPage(labCode, activeFlag, afterId, limit)
+                : userRepo.findLabPageByRole(labCode, activeFlag, role.trim().toUpperCase(), afterId, limit);
+
+        boolean hasMore = rows.size() > pageSize;
+        List<LabUserResponse> content = new ArrayList<>(Math.min(rows.size(), pageSize));
+        for (int i = 0; i < rows.size() && i < pageSize; i++) {
+            UserSummaryView v = rows.get(i);
+            content.add(new LabUserResponse(v.getId(), v.getExternalId().toString(), v.getUsername(), v.getEmail(),
+                    "Y".equalsIgnoreCase(v.getActive())));
+        }
+        Long nextAfter = hasMore ? content.get(content.size() - 1).id() : null;
+        logger.debug("Página de laboratorio {}: {} usuarios, siguiente cursor {}.", labCode, content.size(), nextAfter);
+        return new KeysetPageResponse<>(content, pageSize, nextAfter);
+    }
+
+    @Override
+    public List<UserSearchResult> search(String query, Integer limit) {
+        if (query == null || query.isBlank()) {
+            logger.warn("Bad Request: La búsqueda de usuarios requiere el parámetro q.");
+            throw new BadRequestException("q es obligatorio");
+        }
+        int max = limit == null ? defaultSearchLimit : limit;
+        if (max < 1 || max > maxSearchLimit) {
+            logger.warn("Bad Request: Límite de búsqueda {} fuera de rango (1..{}).", max, maxSearchLimit);
+            throw new BadRequestException("limit debe estar entre 1 y " + maxSearchLimit);
+        }
+        logger.info("Buscando usuarios con q='{}' (limit={}).", query, max);
+        List<UserSearchResult> results = searchIndex.search(query, max);
+        logger.debug("Búsqueda '{}': {} resultados.", query, results.size());
+        return results;
+    }
+
+    /**
+     * Traduce la violación de UQ_USERS_USERNAME/UQ_USERS_EMAIL en {@link ConflictException}; cualquier otra
+     * violación de integridad se propaga sin cambios.
+     */
+    private static RuntimeException uniqueConflict(DataIntegrityViolationException e, String username, String email) {
+        String constraint = null;
+        for (Throwable t = e; t != null && constraint == null; t = t.getCause()) {
+            if (t instanceof ConstraintViolationException cve) constraint = cve.getConstraintName();
+        }
+        // Oracle la reporta como "ESQUEMA.UQ_USERS_USERNAME"; si el dialecto no la extrajo, se busca en el mensaje
+        String text = (constraint != null ? constraint : String.valueOf(e.getMostSpecificCause().getMessage()))
+                .toUpperCase(Locale.ROOT);
+        if (text.contains("UQ_USERS_USERNAME")) {
+            logger.warn("Conflicto: El username '{}' ya está en uso.", username);
+            return new ConflictException("USERNAME en uso");
+        }
+        if (text.contains("UQ_USERS_EMAIL")) {
+            logger.warn("Conflicto: El email '{}' ya está en uso.", email);
+            return new ConflictException("EMAIL en uso");
+        }
+        return e;
+    }
+
     private Set<Role> resolveRoles(List<String> names) {
         logger.debug("Resolviendo roles: {}", names);
         Set<Role> set = names.stream()
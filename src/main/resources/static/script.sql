@@ -13,11 +13,19 @@ CREATE TABLE USERS (
   ACTIVE         CHAR(1) DEFAULT 'Y' NOT NULL CHECK (ACTIVE IN ('Y','N')),
   CREATED_AT     TIMESTAMP(6) DEFAULT SYSTIMESTAMP NOT NULL,
   UPDATED_AT     TIMESTAMP(6) DEFAULT SYSTIMESTAMP NOT NULL,
+  VERSION        NUMBER(19) DEFAULT 0 NOT NULL, -- bloqueo optimista (@Version), ETag de /users/{id}
+  LAST_LOGIN_AT  TIMESTAMP(6),                  -- escrito en lotes por LastLoginTracker
+  LOCKED_UNTIL   TIMESTAMP(6),                  -- bloqueo por logins fallidos (LoginAttemptTracker)
   CONSTRAINT UQ_USERS_USERNAME UNIQUE (USERNAME),
   CONSTRAINT UQ_USERS_EMAIL    UNIQUE (EMAIL),
   CONSTRAINT UQ_USERS_EXTID    UNIQUE (EXTERNAL_ID)
 );
 
+-- Migración de un esquema existente:
+-- ALTER TABLE USERS ADD (VERSION NUMBER(19) DEFAULT 0 NOT NULL);
+-- ALTER TABLE USERS ADD (LAST_LOGIN_AT TIMESTAMP(6));
+-- ALTER TABLE USERS ADD (LOCKED_UNTIL TIMESTAMP(6));
+
 -- ROLES
 CREATE TABLE ROLES (
   ID           NUMBER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -43,15 +51,22 @@ CREATE TABLE USER_ROLES (
 -- MS1 AUTH - ÍNDICES
 ----------------------------------------------------------------
 CREATE INDEX IDX_USERS_ACTIVE    ON USERS (ACTIVE);
-CREATE INDEX IDX_USERS_LAB_CODE  ON USERS (LAB_CODE);
+-- Listado por laboratorio (GET /users/by-lab): filtro por LAB_CODE y ACTIVE con rango/orden por ID.
+-- Incluye las columnas que proyecta el listado (EXTERNAL_ID, USERNAME, EMAIL) para que la página se lea solo del
+-- índice, sin un acceso a la tabla por fila.
+-- Reemplaza a IDX_USERS_LAB_CODE (su prefijo); en bases existentes:
+--   DROP INDEX IDX_USERS_LAB_CODE;
+--   DROP INDEX IDX_USERS_LAB_ACTIVE_ID; -- versión anterior, sin las columnas proyectadas
+CREATE INDEX IDX_USERS_LAB_ACTIVE_ID ON USERS (LAB_CODE, ACTIVE, ID, EXTERNAL_ID, USERNAME, EMAIL);
 CREATE INDEX IDX_ROLES_NAME      ON ROLES (NAME);
 CREATE INDEX IDX_UR_ROLE_ID      ON USER_ROLES (ROLE_ID);
 
 ----------------------------------------------------------------
 -- MS1 AUTH - TRIGGERS UPDATED_AT
 ----------------------------------------------------------------
+-- Solo columnas de datos del usuario (VERSION cubre los cambios de roles): LAST_LOGIN_AT y LOCKED_UNTIL no cuentan
 CREATE OR REPLACE TRIGGER TRG_USERS_UPD
-BEFORE UPDATE ON USERS
+BEFORE UPDATE OF USERNAME, EMAIL, PASSWORD_HASH, LAB_CODE, ACTIVE, VERSION ON USERS
 FOR EACH ROW
 BEGIN
   :NEW.UPDATED_AT := SYSTIMESTAMP;
@@ -77,6 +92,14 @@ COMMIT;
 INSERT INTO ROLES (NAME, DESCRIPTION) VALUES ('LAB_TECH', 'Técnico de laboratorio');
 COMMIT;
 
+-- Cuentas de servicio: POST /auth/introspect exige este rol
+INSERT INTO ROLES (NAME, DESCRIPTION) VALUES ('SERVICE', 'Cliente de servicio (introspección de tokens, búsqueda de usuarios en lote)');
+COMMIT;
+
+-- Cuenta del gateway: POST /auth/token-exchange exige este rol
+INSERT INTO ROLES (NAME, DESCRIPTION) VALUES ('GATEWAY', 'API gateway (intercambio de tokens)');
+COMMIT;
+
 -- Usuarios (coloca hashes bcrypt válidos en PASSWORD_HASH)
 INSERT INTO USERS (USERNAME, EMAIL, PASSWORD_HASH, LAB_CODE, ACTIVE)
 VALUES ('admin@demo.cl', 'admin@demo.cl', '$2a$10$Im8YXm3k8adw84lPI9WPL.Rr1TxESNh94UwdbJ3LuZPfQRn4V1jiG', NULL, 'Y');
@@ -105,3 +128,35 @@ SELECT u.ID, r.ID FROM USERS u, ROLES r
 
 COMMIT;
 
+
+----------------------------------------------------------------
+-- MS1 AUTH - INVALIDACIÓN DE CACHÉS ENTRE RÉPLICAS
+----------------------------------------------------------------
+CREATE TABLE CACHE_INVALIDATIONS (
+  ID          NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+  REGION      VARCHAR2(30) NOT NULL,
+  CACHE_KEY   VARCHAR2(100),           -- NULL invalida la región completa
+  ORIGIN      VARCHAR2(64) NOT NULL,   -- nodo que publicó el evento
+  CREATED_AT  TIMESTAMP(6) DEFAULT SYSTIMESTAMP NOT NULL
+);
+
+CREATE INDEX IDX_CACHE_INV_CREATED ON CACHE_INVALIDATIONS (CREATED_AT);
+
+
+----------------------------------------------------------------
+-- MS1 AUTH - AUDITORÍA (logins y cambios de usuarios)
+----------------------------------------------------------------
+-- Escrita en lotes por AuditTrail; sin FK a USERS para conservar el historial de usuarios borrados
+CREATE TABLE AUTH_AUDIT (
+  ID          NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+  EVENT_TIME  TIMESTAMP(6) NOT NULL,
+  EVENT_TYPE  VARCHAR2(30) NOT NULL,   -- LOGIN_SUCCESS, LOGIN_FAILURE, USER_CREATED, USER_UPDATED, USER_DELETED
+  ACTOR       VARCHAR2(200),           -- username del login o administrador autenticado
+  SUBJECT     VARCHAR2(200),           -- EXTERNAL_ID (logins) o ID (cambios) del usuario afectado
+  DETAIL      VARCHAR2(400),
+  CLIENT_IP   VARCHAR2(45),
+  NODE_ID     VARCHAR2(64) NOT NULL    -- réplica que registró el evento
+);
+
+CREATE INDEX IDX_AUTH_AUDIT_TIME ON AUTH_AUDIT (EVENT_TIME);
+CREATE INDEX IDX_AUTH_AUDIT_ACTOR ON AUTH_AUDIT (ACTOR, EVENT_TIME);
@@ -3,7 +3,11 @@ package cl.duoc.ms_auth;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// Sin base de datos: ni calentamiento ni sondeo de la tabla de invalidaciones, que bloquean el cierre del contexto
+@SpringBootTest(properties = {
+		"auth.warmup.enabled=false",
+		"auth.cache.invalidation.transport=local"
+})
 class Semana1ApplicationTests {
 
 	@Test
@@ -0,0 +1,141 @@
+package cl.duoc.ms_auth.activity;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class LastLoginTrackerTest {
+
+    private static final long USER = 7L;
+    private static final long OTHER = 8L;
+    private static final Instant T0 = Instant.parse("2026-10-19T12:00:00Z");
+
+    private JdbcTemplate jdbc;
+    private LastLoginTracker tracker;
+    /** Lotes enviados a {@code batchUpdate}, en orden. */
+    private final List<Map<Long, Instant>> writes = new ArrayList<>();
+    /** Acción que se ejecuta dentro de {@code batchUpdate}; puede lanzar para simular un fallo. */
+    private Runnable duringWrite = () -> {};
+
+    @BeforeEach
+    void setUp() {
+        jdbc = mock(JdbcTemplate.class);
+        doAnswer(inv -> {
+            Map<Long, Instant> batch = new ConcurrentHashMap<>();
+            for (Object o : (Collection<?>) inv.getArgument(1)) {
+                @SuppressWarnings("unchecked") Map.Entry<Long, Instant> e = (Map.Entry<Long, Instant>) o;
+                assertThat(batch.put(e.getKey(), e.getValue())).isNull();
+            }
+            writes.add(batch);
+            duringWrite.run();
+            return new int[0][];
+        }).when(jdbc).batchUpdate(anyString(), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        tracker = new LastLoginTracker(jdbc, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void coalescesManyLoginsIntoOneWrite() {
+        for (int i = 0; i < 50; i++) tracker.record(USER, T0.plusSeconds(i % 10 == 3 ? 100 : i));
+        tracker.record(OTHER, T0);
+
+        tracker.flush();
+        tracker.flush();
+
+        assertThat(writes).containsExactly(Map.of(USER, T0.plusSeconds(100), OTHER, T0));
+    }
+
+    @Test
+    void emptyFlushDoesNotWrite() {
+        tracker.flush();
+
+        verify(jdbc, never()).batchUpdate(anyString(), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    void newerLoginRacingTheDrainIsKeptForNextCycle() {
+        // Simula un login que entra entre la lectura del entry y el remove(key, value)
+        ConcurrentHashMap<Long, Instant> pending = new ConcurrentHashMap<>() {
+            private boolean raced;
+
+            @Override
+            public boolean remove(Object key, Object value) {
+                if (!raced && key.equals(USER)) {
+                    raced = true;
+                    merge(USER, T0.plusSeconds(5), (a, b) -> a.isAfter(b) ? a : b);
+                }
+                return super.remove(key, value);
+            }
+        };
+        tracker = new LastLoginTracker(jdbc, new SimpleMeterRegistry(), pending);
+        tracker.record(USER, T0);
+        tracker.record(OTHER, T0);
+
+        tracker.flush();
+        assertThat(writes).containsExactly(Map.of(OTHER, T0));
+
+        tracker.flush();
+        assertThat(writes).last().isEqualTo(Map.of(USER, T0.plusSeconds(5)));
+    }
+
+    @Test
+    void loginDuringWriteIsFlushedNextCycle() {
+        tracker.record(USER, T0);
+        duringWrite = () -> tracker.record(USER, T0.plusSeconds(5));
+
+        tracker.flush();
+        duringWrite = () -> {};
+        tracker.flush();
+
+        assertThat(writes).containsExactly(Map.of(USER, T0), Map.of(USER, T0.plusSeconds(5)));
+    }
+
+    @Test
+    void failedBatchIsRetriedWithoutOverwritingNewerLogins() {
+        tracker.record(USER, T0);
+        tracker.record(OTHER, T0);
+        duringWrite = () -> {
+            // Llega un login más nuevo de USER mientras el lote falla
+            tracker.record(USER, T0.plusSeconds(5));
+            throw new DataAccessResourceFailureException("ORA-03113");
+        };
+
+        tracker.flush();
+        duringWrite = () -> {};
+        tracker.flush();
+
+        assertThat(writes).containsExactly(
+                Map.of(USER, T0, OTHER, T0),
+                Map.of(USER, T0.plusSeconds(5), OTHER, T0));
+    }
+
+    @Test
+    void failedBatchKeepsOlderValuesWhenNothingNewArrives() {
+        tracker.record(USER, T0);
+        duringWrite = () -> { throw new DataAccessResourceFailureException("ORA-03113"); };
+
+        tracker.flush();
+        duringWrite = () -> {};
+        tracker.flush();
+
+        assertThat(writes).containsExactly(Map.of(USER, T0), Map.of(USER, T0));
+    }
+}
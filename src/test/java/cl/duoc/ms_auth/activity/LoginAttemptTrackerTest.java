@@ -0,0 +1,125 @@
+package cl.duoc.ms_auth.activity;
+
+import cl.duoc.ms_auth.cache.CacheInvalidationBus;
+import cl.duoc.ms_auth.cache.CacheRegions;
+import cl.duoc.ms_auth.entidades.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class LoginAttemptTrackerTest {
+
+    private static final long USER = 7L;
+    private static final Duration WINDOW = Duration.ofMinutes(15);
+    private static final Duration LOCK = Duration.ofMinutes(10);
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private JdbcTemplate jdbc;
+    private EntityManagerFactory emf;
+    private CacheInvalidationBus bus;
+    private LoginAttemptTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = mock(JdbcTemplate.class);
+        emf = mock(EntityManagerFactory.class, RETURNS_DEEP_STUBS);
+        bus = mock(CacheInvalidationBus.class);
+        tracker = new LoginAttemptTracker(jdbc, mock(PlatformTransactionManager.class), emf, bus,
+                new SimpleMeterRegistry(), 3, WINDOW, LOCK, now::get);
+    }
+
+    @Test
+    void locksOnMaxFailuresWithinWindowAndPersistsOnce() {
+        assertThat(tracker.recordFailure(USER)).isNull();
+        assertThat(tracker.recordFailure(USER)).isNull();
+        Instant until = tracker.recordFailure(USER);
+
+        assertThat(until).isEqualTo(Instant.ofEpochMilli(now.get() + LOCK.toMillis()));
+        assertThat(tracker.lockedUntil(USER, null)).isEqualTo(until);
+        // Más fallos durante el bloqueo no lo extienden ni vuelven a escribir
+        assertThat(tracker.recordFailure(USER)).isNull();
+        assertThat(tracker.lockedUntil(USER, null)).isEqualTo(until);
+
+        verify(jdbc, times(1)).update(anyString(), any(Object[].class));
+        verify(bus).publish(CacheRegions.USERS, USER);
+        verify(emf.getCache()).evict(User.class, USER);
+    }
+
+    @Test
+    void failuresOutsideWindowStartANewCount() {
+        tracker.recordFailure(USER);
+        tracker.recordFailure(USER);
+        now.addAndGet(WINDOW.toMillis());
+
+        assertThat(tracker.recordFailure(USER)).isNull();
+        assertThat(tracker.lockedUntil(USER, null)).isNull();
+        verify(jdbc, never()).update(anyString(), any(Object[].class));
+    }
+
+    @Test
+    void lockExpiresAndCountRestarts() {
+        for (int i = 0; i < 3; i++) tracker.recordFailure(USER);
+        now.addAndGet(LOCK.toMillis());
+
+        assertThat(tracker.lockedUntil(USER, null)).isNull();
+        assertThat(tracker.recordFailure(USER)).isNull();
+        assertThat(tracker.recordFailure(USER)).isNull();
+        assertThat(tracker.recordFailure(USER)).isNotNull();
+    }
+
+    @Test
+    void successResetsCount() {
+        tracker.recordFailure(USER);
+        tracker.recordFailure(USER);
+        tracker.recordSuccess(USER);
+
+        assertThat(tracker.recordFailure(USER)).isNull();
+        assertThat(tracker.recordFailure(USER)).isNull();
+        assertThat(tracker.lockedUntil(USER, null)).isNull();
+    }
+
+    @Test
+    void storedLockFromAnotherReplicaIsHonoredUntilItExpires() {
+        LocalDateTime stored = LocalDateTime.ofInstant(Instant.ofEpochMilli(now.get() + 60_000), ZoneId.systemDefault());
+
+        assertThat(tracker.lockedUntil(USER, stored)).isNotNull();
+        now.addAndGet(60_000);
+        assertThat(tracker.lockedUntil(USER, stored)).isNull();
+    }
+
+    @Test
+    void purgeDropsExpiredEntriesOnly() {
+        tracker.recordFailure(USER);
+        tracker.recordFailure(8L);
+        now.addAndGet(WINDOW.toMillis());
+        tracker.recordFailure(8L);
+        tracker.purge();
+
+        // USER se descartó: dos fallos más no bastan para bloquear
+        tracker.recordFailure(USER);
+        assertThat(tracker.recordFailure(USER)).isNull();
+        // 8 conserva su ventana nueva
+        tracker.recordFailure(8L);
+        assertThat(tracker.recordFailure(8L)).isNotNull();
+        verify(jdbc).update(anyString(), any(), eq(8L));
+    }
+}
@@ -0,0 +1,98 @@
+package cl.duoc.ms_auth.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditRingBufferTest {
+
+    @Test
+    void capacityIsRoundedUpToPowerOfTwo() {
+        assertThat(new AuditRingBuffer(1).capacity()).isEqualTo(2);
+        assertThat(new AuditRingBuffer(4).capacity()).isEqualTo(4);
+        assertThat(new AuditRingBuffer(5).capacity()).isEqualTo(8);
+    }
+
+    @Test
+    void rejectsWhenFullAndAcceptsAgainAfterDrain() {
+        AuditRingBuffer buffer = new AuditRingBuffer(4);
+        for (int i = 1; i <= 4; i++) assertThat(buffer.offer(event(i))).isEqualTo(i);
+        assertThat(buffer.offer(event(5))).isEqualTo(-1);
+        assertThat(buffer.size()).isEqualTo(4);
+
+        List<AuditEvent> out = new ArrayList<>();
+        assertThat(buffer.drainTo(out, 1)).isEqualTo(1);
+        assertThat(out).extracting(AuditEvent::subject).containsExactly("1");
+        assertThat(buffer.offer(event(6))).isEqualTo(4);
+        assertThat(buffer.offer(event(7))).isEqualTo(-1);
+    }
+
+    @Test
+    void keepsFifoOrderAcrossWrapAround() {
+        AuditRingBuffer buffer = new AuditRingBuffer(4);
+        List<AuditEvent> out = new ArrayList<>();
+        int next = 0;
+        // Lotes de 3 en un arreglo de 4: cada vuelta empieza en otra celda
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 3; i++) assertThat(buffer.offer(event(next++))).isPositive();
+            assertThat(buffer.drainTo(out, 3)).isEqualTo(3);
+        }
+        buffer.drainTo(out, Integer.MAX_VALUE);
+
+        assertThat(out).hasSize(next);
+        for (int i = 0; i < next; i++) assertThat(out.get(i).subject()).isEqualTo(String.valueOf(i));
+        assertThat(buffer.size()).isZero();
+        assertThat(buffer.drainTo(out, 10)).isZero();
+    }
+
+    @Test
+    void concurrentProducersLoseNothingThatWasAccepted() throws Exception {
+        AuditRingBuffer buffer = new AuditRingBuffer(1024);
+        int producers = 4, perProducer = 10_000;
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        Set<String> accepted = ConcurrentHashMap.newKeySet();
+        for (int p = 0; p < producers; p++) {
+            int id = p;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    AuditEvent e = event(id * perProducer + i);
+                    if (buffer.offer(e) > 0) accepted.add(e.subject());
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+
+        List<AuditEvent> out = new ArrayList<>();
+        while (!pool.isTerminated()) {
+            buffer.drainTo(out, 256);
+            pool.awaitTermination(1, TimeUnit.MILLISECONDS);
+        }
+        buffer.drainTo(out, Integer.MAX_VALUE);
+
+        Set<String> drained = new HashSet<>();
+        for (AuditEvent e : out) drained.add(e.subject());
+        assertThat(drained).hasSize(out.size()).isEqualTo(accepted);
+    }
+
+    private static AuditEvent event(int n) {
+        return new AuditEvent(Instant.EPOCH, AuditEventType.LOGIN_SUCCESS, "actor", String.valueOf(n), null, null);
+    }
+}
@@ -0,0 +1,99 @@
+package cl.duoc.ms_auth.benchmarks;
+
+import cl.duoc.ms_auth.exceptions.ProblemTemplate;
+import cl.duoc.ms_auth.exceptions.UnauthorizedException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el camino de un 401 de login antes y después de pre-serializar los errores: excepción con stack trace,
+ * {@link ProblemDetail} y Jackson por petición contra excepción sin stack trace y {@link ProblemTemplate}.
+ * El setup falla si ambos cuerpos no son idénticos.
+ * <p>
+ * Ejecutar con:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main ErrorPathBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ErrorPathBenchmark {
+
+    private static final String TITLE = "Unauthorized credentials";
+    private static final String TYPE = "https://api.localhost:8080errors/business-rule";
+    private static final String DETAIL = "Credenciales inválidas";
+    private static final String PATH = "/auth/login";
+
+    // Como la excepción original: RuntimeException con stack trace
+    private static final class LegacyUnauthorizedException extends RuntimeException {
+        LegacyUnauthorizedException(String message) {
+            super(message);
+        }
+    }
+
+    private ObjectMapper objectMapper;
+    private ProblemTemplate template;
+
+    @Setup
+    public void setup() throws Exception {
+        // Mismo valor por defecto que JacksonAutoConfiguration de Spring Boot
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        template = new ProblemTemplate(objectMapper, HttpStatus.UNAUTHORIZED, TITLE, TYPE);
+
+        if (!Arrays.equals(legacy(), template())) {
+            throw new IllegalStateException("El cuerpo pre-serializado difiere de Jackson");
+        }
+        // Caracteres a escapar en el path, detalle nulo y propiedad reason (handler genérico de 500)
+        ProblemTemplate unhandled = new ProblemTemplate(objectMapper, HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error", null);
+        for (String path : List.of("/users/a\"b", "/usuários/\u0001", "/")) {
+            ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.INTERNAL_SERVER_ERROR, null);
+            pd.setTitle("Internal Server Error");
+            pd.setInstance(URI.create("/x"));
+            pd.setProperty("reason", "IllegalStateException");
+            String expected = objectMapper.writeValueAsString(pd).replace("\"/x\"", objectMapper.writeValueAsString(path));
+            String actual = new String(unhandled.body(null, "IllegalStateException", path), StandardCharsets.UTF_8);
+            if (!expected.equals(actual)) {
+                throw new IllegalStateException("El cuerpo pre-serializado difiere de Jackson para " + path + ": " + actual);
+            }
+        }
+    }
+
+    @Benchmark
+    public byte[] legacy() throws Exception {
+        try {
+            throw new LegacyUnauthorizedException(DETAIL);
+        } catch (LegacyUnauthorizedException ex) {
+            ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.UNAUTHORIZED, ex.getMessage());
+            pd.setTitle(TITLE);
+            pd.setType(URI.create(TYPE));
+            pd.setInstance(URI.create(PATH));
+            return objectMapper.writeValueAsBytes(pd);
+        }
+    }
+
+    @Benchmark
+    public byte[] template() {
+        try {
+            throw new UnauthorizedException(DETAIL);
+        } catch (UnauthorizedException ex) {
+            return template.body(ex.getMessage(), null, PATH);
+        }
+    }
+}
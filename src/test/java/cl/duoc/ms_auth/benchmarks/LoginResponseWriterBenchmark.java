@@ -0,0 +1,91 @@
+package cl.duoc.ms_auth.benchmarks;
+
+import cl.duoc.ms_auth.config.AuthLoginResponseConverter;
+import cl.duoc.ms_auth.dtos.AuthLoginResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara la serialización de {@link AuthLoginResponse} con el {@link ObjectMapper} de Spring Boot y con
+ * {@link AuthLoginResponseConverter}. El setup falla si ambas salidas no son idénticas.
+ * <p>
+ * Ejecutar con:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main LoginResponseWriterBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LoginResponseWriterBenchmark {
+
+    private ObjectMapper objectMapper;
+    private AuthLoginResponseConverter converter;
+    private AuthLoginResponse response;
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setup() throws Exception {
+        // Mismo valor por defecto que JacksonAutoConfiguration de Spring Boot
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        converter = new AuthLoginResponseConverter();
+        // Un RS256 de 2048 bits con el perfil legado ronda los 670 caracteres
+        char[] token = new char[670];
+        Arrays.fill(token, 'a');
+        response = new AuthLoginResponse(
+                new String(token),
+                Instant.now().truncatedTo(ChronoUnit.SECONDS),
+                UUID.randomUUID().toString(),
+                "tecnico.laboratorio",
+                List.of("LAB_TECH"),
+                "LAB-01");
+
+        out = new ByteArrayOutputStream(2048);
+        byte[] expected = objectMapper.writeValueAsBytes(response);
+        converter.writeTo(response, out);
+        if (!Arrays.equals(expected, out.toByteArray())) {
+            throw new IllegalStateException("La salida del conversor difiere de Jackson");
+        }
+        // Fechas límite del formateo manual de Instant
+        for (String iso : List.of("1970-01-01T00:00:00Z", "2000-02-29T23:59:59.5Z", "2100-03-01T00:00:00.000001Z",
+                "9999-12-31T23:59:59.999999999Z", "1969-12-31T23:59:59Z")) {
+            var r = new AuthLoginResponse("t\"\u00f1\u0001", Instant.parse(iso), "u", "n", List.of(), null);
+            out.reset();
+            converter.writeTo(r, out);
+            if (!Arrays.equals(objectMapper.writeValueAsBytes(r), out.toByteArray())) {
+                throw new IllegalStateException("La salida del conversor difiere de Jackson para " + iso);
+            }
+        }
+    }
+
+    // Ambos escriben a un stream reutilizado, como hacen los conversores HTTP sobre el body de la respuesta
+
+    @Benchmark
+    public int jackson() throws Exception {
+        out.reset();
+        objectMapper.writeValue(out, response);
+        return out.size();
+    }
+
+    @Benchmark
+    public int converter() throws Exception {
+        out.reset();
+        return converter.writeTo(response, out);
+    }
+}
@@ -0,0 +1,152 @@
+package cl.duoc.ms_auth.benchmarks;
+
+import cl.duoc.ms_auth.security.RouteTable;
+import cl.duoc.ms_auth.security.RouteTable.Access;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara la decisión de ruta anterior (cadena lineal de {@code requestMatchers} con {@link PathPatternRequestMatcher}
+ * más las comparaciones de {@code JwtAuthFilter.shouldNotFilter}) con {@link RouteTable}, sobre una mezcla de peticiones
+ * parecida al tráfico real: mayormente consultas de usuarios, login, JWKS y health. El setup falla si ambas decisiones
+ * difieren para alguna petición de la mezcla.
+ * <p>
+ * Ejecutar con:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main RouteTableBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RouteTableBenchmark {
+
+    private record Rule(RequestMatcher matcher, Access access) {}
+
+    private List<Rule> chain;
+    private RouteTable table;
+    private MockHttpServletRequest[] requests;
+    private int next;
+
+    @Setup
+    public void setup() {
+        var p = PathPatternRequestMatcher.withDefaults();
+        chain = List.of(
+                new Rule(p.matcher("/v3/api-docs/**"), Access.PERMIT_ALL),
+                new Rule(p.matcher("/swagger-ui.html"), Access.PERMIT_ALL),
+                new Rule(p.matcher("/swagger-ui/**"), Access.PERMIT_ALL),
+                new Rule(p.matcher(HttpMethod.POST, "/auth/login"), Access.PERMIT_ALL),
+                new Rule(p.matcher(HttpMethod.POST, "/auth/introspect"), Access.PERMIT_ALL),
+                new Rule(p.matcher(HttpMethod.GET, "/.well-known/jwks.json"), Access.PERMIT_ALL),
+                new Rule(p.matcher(HttpMethod.GET, "/actuator/health"), Access.PERMIT_ALL),
+                new Rule(p.matcher("/users/me"), Access.AUTHENTICATED),
+                new Rule(p.matcher("/users/**"), Access.HAS_ROLE),
+                new Rule(p.matcher("/roles/**"), Access.HAS_ROLE),
+                new Rule(request -> true, Access.AUTHENTICATED));
+
+        table = RouteTable.builder()
+                .permitAll(null, "/v3/api-docs/**")
+                .permitAll(null, "/swagger-ui.html")
+                .permitAll(null, "/swagger-ui/**")
+                .publicEndpoint(HttpMethod.POST, "/auth/login")
+                .publicEndpoint(HttpMethod.POST, "/auth/introspect")
+                .publicEndpoint(HttpMethod.GET, "/.well-known/jwks.json")
+                .publicEndpoint(HttpMethod.GET, "/actuator/health")
+                .denyAll(null, "/actuator/**")
+                .authenticated(null, "/users/me")
+                .hasRole(null, "/users/**", "ADMIN")
+                .hasRole(null, "/roles/**", "ADMIN")
+                .otherwise(Access.AUTHENTICATED)
+                .build();
+
+        // Mezcla: 35% GET /users/{id}, 20% GET /users/me, 15% POST /auth/login, 10% JWKS, 10% health,
+        // 5% GET /roles, 5% POST /auth/introspect
+        List<MockHttpServletRequest> mix = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 35; i++) mix.add(request("GET", "/users/" + (1 + random.nextInt(5000))));
+        for (int i = 0; i < 20; i++) mix.add(request("GET", "/users/me"));
+        for (int i = 0; i < 15; i++) mix.add(request("POST", "/auth/login"));
+        for (int i = 0; i < 10; i++) mix.add(request("GET", "/.well-known/jwks.json"));
+        for (int i = 0; i < 10; i++) mix.add(request("GET", "/actuator/health"));
+        for (int i = 0; i < 5; i++) mix.add(request("GET", "/roles"));
+        for (int i = 0; i < 5; i++) mix.add(request("POST", "/auth/introspect"));
+        Collections.shuffle(mix, random);
+        requests = mix.toArray(MockHttpServletRequest[]::new);
+
+        // Además de la mezcla, casos límite de patrones (fuera de /actuator, ahora cerrado explícitamente)
+        List<MockHttpServletRequest> checks = new ArrayList<>(mix);
+        for (String path : List.of("/", "/users", "/users/", "/users/me/", "/roles/1", "/swagger-ui/index.html",
+                "/v3/api-docs", "/auth/login/x", "/otro")) {
+            checks.add(request("GET", path));
+            checks.add(request("POST", path));
+        }
+        checks.add(request("GET", "/auth/login"));
+        checks.add(request("DELETE", "/.well-known/jwks.json"));
+        for (MockHttpServletRequest r : checks) {
+            Access expected = linear(r);
+            Access actual = table.match(r).access();
+            if (expected != actual) {
+                throw new IllegalStateException("Decisión distinta para " + r.getMethod() + " " + r.getServletPath()
+                        + ": " + expected + " vs " + actual);
+            }
+        }
+    }
+
+    private static MockHttpServletRequest request(String method, String path) {
+        MockHttpServletRequest r = new MockHttpServletRequest(method, path);
+        r.setServletPath(path);
+        return r;
+    }
+
+    private Access linear(MockHttpServletRequest request) {
+        for (Rule rule : chain) {
+            if (rule.matcher().matches(request)) return rule.access();
+        }
+        throw new IllegalStateException();
+    }
+
+    private static boolean legacyShouldNotFilter(MockHttpServletRequest request) {
+        String path = request.getRequestURI();
+        return path.equals("/auth/login")
+                || path.equals("/auth/refresh")
+                || path.equals("/auth/introspect")
+                || path.equals("/.well-known/jwks.json")
+                || path.startsWith("/actuator");
+    }
+
+    private MockHttpServletRequest nextRequest() {
+        MockHttpServletRequest r = requests[next];
+        next = next + 1 == requests.length ? 0 : next + 1;
+        return r;
+    }
+
+    // Por petición corren ambas decisiones: el bypass del filtro JWT y la autorización
+
+    @Benchmark
+    public void linearChain(Blackhole bh) {
+        MockHttpServletRequest r = nextRequest();
+        bh.consume(legacyShouldNotFilter(r));
+        bh.consume(linear(r));
+    }
+
+    @Benchmark
+    public void routeTable(Blackhole bh) {
+        MockHttpServletRequest r = nextRequest();
+        bh.consume(table.bypassesJwt(r));
+        bh.consume(table.match(r).access());
+    }
+}
@@ -0,0 +1,80 @@
+package cl.duoc.ms_auth.benchmarks;
+
+import cl.duoc.ms_auth.converter.UuidV7;
+import cl.duoc.ms_auth.entidades.Role;
+import cl.duoc.ms_auth.entidades.User;
+import cl.duoc.ms_auth.security.JwtUtils;
+import cl.duoc.ms_auth.security.KeyProvider;
+import cl.duoc.ms_auth.servicios.IssuedToken;
+import cl.duoc.ms_auth.servicios.impl.TokenServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el perfil de claims legado con el compacto ({@code auth.jwt.claims-profile}): emisión del token y
+ * validación + parseo en {@link JwtUtils}. Imprime en el setup el tamaño del header {@code Authorization} de cada perfil.
+ * <p>
+ * Ejecutar con:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main TokenFormatBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenFormatBenchmark {
+
+    private static final List<String> COMPACT_ROLES = List.of("ADMIN", "LAB_TECH");
+
+    @Param({"legacy", "compact"})
+    public String profile;
+
+    private TokenServiceImpl tokenService;
+    private JwtUtils jwtUtils;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setup() throws Exception {
+        Properties props = new Properties();
+        try (InputStream in = TokenFormatBenchmark.class.getResourceAsStream("/application.properties")) {
+            props.load(in);
+        }
+        String publicPem = props.getProperty("auth.jwt.rsa.public");
+        String privatePem = props.getProperty("auth.jwt.rsa.private");
+        KeyProvider keyProvider = new KeyProvider(publicPem, privatePem, props.getProperty("auth.jwt.exchange.hmac-secret"));
+        tokenService = new TokenServiceImpl(keyProvider, "auth-ms", 20, profile, COMPACT_ROLES);
+        jwtUtils = new JwtUtils(keyProvider.rsaKey().toRSAPublicKey(), "auth-ms", COMPACT_ROLES);
+
+        Role role = new Role();
+        role.setName("LAB_TECH");
+        user = new User();
+        user.setExternalId(UuidV7.generate());
+        user.setUsername("tecnico.laboratorio");
+        user.setLabCode("LAB-01");
+        user.setRoles(Set.of(role));
+
+        token = tokenService.issue(user).token();
+        System.out.printf("%n[%s] Authorization: Bearer <token> = %d bytes%n", profile, "Bearer ".length() + token.length());
+    }
+
+    @Benchmark
+    public IssuedToken issue() {
+        return tokenService.issue(user);
+    }
+
+    @Benchmark
+    public Optional<JwtUtils.JwtPayload> validateAndParse() {
+        return jwtUtils.validateAndParse(token);
+    }
+}
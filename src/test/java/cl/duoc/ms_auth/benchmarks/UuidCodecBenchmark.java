@@ -0,0 +1,71 @@
+package cl.duoc.ms_auth.benchmarks;
+
+import cl.duoc.ms_auth.converter.UuidCodec;
+import cl.duoc.ms_auth.converter.UuidV7;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara la conversión RAW(16) basada en {@link ByteBuffer} (implementación anterior de
+ * {@code UuidRaw16Converter}) con {@link UuidCodec}, y la generación de UUIDv4 con UUIDv7.
+ * <p>
+ * Ejecutar con:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main UuidCodecBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UuidCodecBenchmark {
+
+    private UUID uuid;
+    private byte[] raw;
+
+    @Setup
+    public void setup() {
+        uuid = UUID.randomUUID();
+        raw = UuidCodec.toBytes(uuid);
+    }
+
+    @Benchmark
+    public byte[] toBytesByteBuffer() {
+        ByteBuffer bb = ByteBuffer.allocate(16);
+        bb.putLong(uuid.getMostSignificantBits());
+        bb.putLong(uuid.getLeastSignificantBits());
+        return bb.array();
+    }
+
+    @Benchmark
+    public byte[] toBytesCodec() {
+        return UuidCodec.toBytes(uuid);
+    }
+
+    @Benchmark
+    public UUID fromBytesByteBuffer() {
+        ByteBuffer bb = ByteBuffer.wrap(raw);
+        return new UUID(bb.getLong(), bb.getLong());
+    }
+
+    @Benchmark
+    public UUID fromBytesCodec() {
+        return UuidCodec.fromBytes(raw);
+    }
+
+    @Benchmark
+    public UUID generateRandomV4() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    public UUID generateV7() {
+        return UuidV7.generate();
+    }
+}
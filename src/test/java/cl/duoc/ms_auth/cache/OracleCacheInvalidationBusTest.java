@@ -0,0 +1,134 @@
+package cl.duoc.ms_auth.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OracleCacheInvalidationBusTest {
+
+    private static final long LOOKBACK_SECONDS = 30;
+
+    private final AtomicLong nanos = new AtomicLong(1_000_000_000L);
+    private final List<InvalidationEvent> delivered = new ArrayList<>();
+    private JdbcTemplate jdbc;
+    private OracleCacheInvalidationBus bus;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = mock(JdbcTemplate.class);
+        bus = new OracleCacheInvalidationBus(jdbc, "node-a", LOOKBACK_SECONDS, 60, nanos::get);
+        for (String region : CacheRegions.ALL) bus.subscribe(region, delivered::add);
+    }
+
+    @Test
+    void deliversEachPolledRowOnce() throws Exception {
+        returnRows(row(1, CacheRegions.USERS, "7", "node-b"), row(2, CacheRegions.TOKENS, "abc", "node-b"));
+
+        bus.poll();
+        advance(1);
+        bus.poll();
+
+        assertThat(delivered).containsExactly(
+                new InvalidationEvent(CacheRegions.USERS, "7", "node-b"),
+                new InvalidationEvent(CacheRegions.TOKENS, "abc", "node-b"));
+    }
+
+    @Test
+    void shortOutageWithinLookbackDoesNotFlush() throws Exception {
+        returnRows();
+        bus.poll();
+        failPolls();
+        for (int i = 0; i < 20; i++) {
+            advance(1);
+            bus.poll();
+        }
+        returnRows();
+        advance(1);
+        bus.poll();
+
+        assertThat(delivered).isEmpty();
+    }
+
+    @Test
+    void outageLongerThanLookbackFlushesEveryRegion() throws Exception {
+        returnRows();
+        bus.poll();
+        failPolls();
+        for (int i = 0; i < 40; i++) {
+            advance(1);
+            bus.poll();
+        }
+        assertThat(delivered).isEmpty();
+
+        returnRows(row(5, CacheRegions.USERS, "7", "node-b"));
+        advance(1);
+        bus.poll();
+
+        assertThat(delivered).startsWith(new InvalidationEvent(CacheRegions.USERS, "7", "node-b"));
+        assertThat(delivered.subList(1, delivered.size())).extracting(InvalidationEvent::region)
+                .containsExactlyElementsOf(CacheRegions.ALL);
+        assertThat(delivered.subList(1, delivered.size())).allSatisfy(e -> {
+            assertThat(e.isRegionWide()).isTrue();
+            // Con otro origen, para que los listeners que ignoran los eventos propios también lo apliquen
+            assertThat(e.origin()).isNotEqualTo(bus.nodeId());
+        });
+
+        // Una vez recuperada, la siguiente consulta a tiempo no vuelve a invalidar todo
+        delivered.clear();
+        advance(1);
+        bus.poll();
+        assertThat(delivered).isEmpty();
+    }
+
+    @Test
+    void slowSchedulerAloneAlsoFlushes() throws Exception {
+        returnRows();
+        bus.poll();
+        advance(LOOKBACK_SECONDS + 1);
+        bus.poll();
+
+        assertThat(delivered).extracting(InvalidationEvent::region).containsExactlyElementsOf(CacheRegions.ALL);
+    }
+
+    private void advance(long seconds) {
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    private void failPolls() {
+        doThrow(new DataAccessResourceFailureException("ORA-12541"))
+                .when(jdbc).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    private void returnRows(ResultSet... rows) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (ResultSet rs : rows) handler.processRow(rs);
+            return null;
+        }).when(jdbc).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    private static ResultSet row(long id, String region, String key, String origin) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("ID")).thenReturn(id);
+        when(rs.getString("REGION")).thenReturn(region);
+        when(rs.getString("CACHE_KEY")).thenReturn(key);
+        when(rs.getString("ORIGIN")).thenReturn(origin);
+        return rs;
+    }
+}
@@ -0,0 +1,56 @@
+package cl.duoc.ms_auth.controladores;
+
+import cl.duoc.ms_auth.exceptions.PreconditionFailedException;
+import org.junit.jupiter.api.Test;
+
+import static cl.duoc.ms_auth.controladores.UsersController.acceptedVersions;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UsersControllerTest {
+
+    @Test
+    void absentOrWildcardImposesNoVersion() {
+        assertThat(acceptedVersions(null)).isNull();
+        assertThat(acceptedVersions("*")).isNull();
+        assertThat(acceptedVersions(" * ")).isNull();
+    }
+
+    @Test
+    void singleStrongTag() {
+        assertThat(acceptedVersions("\"3\"")).containsExactly(3L);
+    }
+
+    @Test
+    void everyStrongTagOfTheListIsAccepted() {
+        assertThat(acceptedVersions("\"1\", \"4\",\"9\"")).containsExactly(1L, 4L, 9L);
+        assertThat(acceptedVersions("\"1\" ,\t\"2\"")).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void weakTagsNeverMatch() {
+        assertThat(acceptedVersions("W/\"1\", \"2\"")).containsExactly(2L);
+        assertThat(acceptedVersions("\"2\", W/\"3\"")).containsExactly(2L);
+        assertThatThrownBy(() -> acceptedVersions("W/\"1\"")).isInstanceOf(PreconditionFailedException.class);
+    }
+
+    @Test
+    void foreignTagsAreIgnored() {
+        assertThat(acceptedVersions("\"abc\", \"5\", \"x,y\"")).containsExactly(5L);
+        assertThat(acceptedVersions("\"99999999999999999999\", \"6\"")).containsExactly(6L);
+    }
+
+    @Test
+    void nothingThatCanMatchIsPreconditionFailed() {
+        assertThatThrownBy(() -> acceptedVersions("\"abc\"")).isInstanceOf(PreconditionFailedException.class);
+        assertThatThrownBy(() -> acceptedVersions("\"\"")).isInstanceOf(PreconditionFailedException.class);
+        // Sin comillas no es un entity-tag
+        assertThatThrownBy(() -> acceptedVersions("3")).isInstanceOf(PreconditionFailedException.class);
+        assertThatThrownBy(() -> acceptedVersions("\"3")).isInstanceOf(PreconditionFailedException.class);
+    }
+
+    @Test
+    void malformedTailKeepsTheTagsBeforeIt() {
+        assertThat(acceptedVersions("\"7\", garbage, \"8\"")).containsExactly(7L);
+    }
+}
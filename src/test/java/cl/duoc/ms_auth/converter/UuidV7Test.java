@@ -0,0 +1,74 @@
+package cl.duoc.ms_auth.converter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidV7Test {
+
+    // Orden de RAW(16): bytes sin signo, igual que comparar msb y lsb como unsigned
+    private static final Comparator<UUID> RAW_ORDER = Comparator
+            .<UUID>comparingLong(u -> u.getMostSignificantBits() ^ Long.MIN_VALUE)
+            .thenComparingLong(u -> u.getLeastSignificantBits() ^ Long.MIN_VALUE);
+
+    // El estado del generador es estático: cada test usa un milisegundo posterior a todos los anteriores
+    private static final AtomicLong MILLIS = new AtomicLong(System.currentTimeMillis() + 86_400_000L);
+
+    @Test
+    void setsVersionVariantAndTimestamp() {
+        long millis = MILLIS.addAndGet(10_000);
+        UUID id = UuidV7.generate(millis);
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        assertThat(id.getMostSignificantBits() >>> 16).isEqualTo(millis);
+    }
+
+    @Test
+    void idsWithinTheSameMillisecondAreStrictlyOrdered() {
+        long millis = MILLIS.addAndGet(10_000);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) ids.add(UuidV7.generate(millis));
+
+        assertThat(ids).isSortedAccordingTo(RAW_ORDER).doesNotHaveDuplicates();
+        assertThat(ids.get(0).getMostSignificantBits() & 0xFFFL).isLessThan(0x800L);
+    }
+
+    @Test
+    void counterIsReseededOnEachNewMillisecond() {
+        long millis = MILLIS.addAndGet(10_000);
+        for (int i = 0; i < 100; i++) UuidV7.generate(millis);
+        UUID next = UuidV7.generate(millis + 1);
+
+        assertThat(next.getMostSignificantBits() >>> 16).isEqualTo(millis + 1);
+        assertThat(next.getMostSignificantBits() & 0xFFFL).isLessThan(0x800L);
+    }
+
+    @Test
+    void counterOverflowCarriesIntoTheTimestamp() {
+        long millis = MILLIS.addAndGet(10_000);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) ids.add(UuidV7.generate(millis));
+
+        assertThat(ids).isSortedAccordingTo(RAW_ORDER).doesNotHaveDuplicates();
+        assertThat(ids.get(ids.size() - 1).getMostSignificantBits() >>> 16).isGreaterThan(millis);
+    }
+
+    @Test
+    void smallClockRegressionKeepsOrderButDistantPastIsHonored() {
+        long millis = MILLIS.addAndGet(10_000);
+        UUID first = UuidV7.generate(millis);
+        UUID behind = UuidV7.generate(millis - 5);
+        UUID past = UuidV7.generate(millis - UuidV7.MAX_LAG_MILLIS - 1);
+
+        assertThat(RAW_ORDER.compare(first, behind)).isNegative();
+        assertThat(behind.getMostSignificantBits() >>> 16).isEqualTo(millis);
+        assertThat(past.getMostSignificantBits() >>> 16).isEqualTo(millis - UuidV7.MAX_LAG_MILLIS - 1);
+    }
+}
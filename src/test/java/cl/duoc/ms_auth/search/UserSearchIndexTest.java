@@ -0,0 +1,146 @@
+package cl.duoc.ms_auth.search;
+
+import cl.duoc.ms_auth.cache.CacheInvalidationBus;
+import cl.duoc.ms_auth.cache.CacheRegions;
+import cl.duoc.ms_auth.cache.LocalCacheInvalidationBus;
+import cl.duoc.ms_auth.dtos.UserSearchResult;
+import cl.duoc.ms_auth.repositorio.UserRepository;
+import cl.duoc.ms_auth.repositorio.UserSummaryView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserSearchIndexTest {
+
+    private record Row(Long getId, UUID getExternalId, String getUsername, String getEmail, String getActive)
+            implements UserSummaryView {}
+
+    private static final List<UserSummaryView> USERS = List.of(
+            row(1L, "ana", "a1@duoc.cl"),
+            row(2L, "anabel", "a2@duoc.cl"),
+            row(3L, "zed", "ana.z@duoc.cl"),
+            row(4L, "mariana", "m4@duoc.cl"),
+            row(5L, "bob", "bob.ana@duoc.cl"),
+            row(6L, "carl", "carl@duoc.cl"));
+
+    private UserRepository userRepo;
+    private CacheInvalidationBus bus;
+    private UserSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        userRepo = mock(UserRepository.class);
+        when(userRepo.findAllSummaries()).thenReturn(USERS);
+        bus = new LocalCacheInvalidationBus("node-a");
+        index = new UserSearchIndex(userRepo, bus);
+    }
+
+    @Test
+    void ranksExactThenPrefixThenInfixWithUsernameBeforeEmail() {
+        List<UserSearchResult> results = index.search("ana", 10);
+
+        assertThat(results).extracting(UserSearchResult::id).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(results).extracting(UserSearchResult::match)
+                .containsExactly("EXACT", "PREFIX", "PREFIX", "INFIX", "INFIX");
+    }
+
+    @Test
+    void shortQueriesMatchOnlyPrefixes() {
+        // "an" está dentro de "mariana" y de "bob.ana", pero con 1-2 caracteres solo cuenta el prefijo
+        assertThat(index.search("an", 10)).extracting(UserSearchResult::id).containsExactly(1L, 2L, 3L);
+        assertThat(index.search("c", 10)).extracting(UserSearchResult::id).containsExactly(6L);
+        assertThat(index.search("ri", 10)).isEmpty();
+    }
+
+    @Test
+    void longerQueriesMatchAnySubstring() {
+        assertThat(index.search("RIA", 10)).extracting(UserSearchResult::id).containsExactly(4L);
+        assertThat(index.search("duoc.cl", 10)).hasSize(USERS.size());
+        assertThat(index.search("xyz", 10)).isEmpty();
+    }
+
+    @Test
+    void honorsLimit() {
+        assertThat(index.search("ana", 2)).extracting(UserSearchResult::id).containsExactly(1L, 2L);
+        assertThat(index.search("duoc", 0)).isEmpty();
+    }
+
+    @Test
+    void buildsOnceOnFirstSearch() {
+        verify(userRepo, never()).findAllSummaries();
+        index.search("ana", 10);
+        index.search("bob", 10);
+        verify(userRepo, times(1)).findAllSummaries();
+        assertThat(index.size()).isEqualTo(USERS.size());
+    }
+
+    @Test
+    void userEventReloadsOnlyThatId() {
+        index.search("ana", 10);
+        when(userRepo.findSummariesByIdIn(List.of(2L))).thenReturn(List.of(row(2L, "beatriz", "b2@duoc.cl")));
+
+        bus.publish(CacheRegions.USERS, 2L);
+
+        assertThat(index.search("ana", 10)).extracting(UserSearchResult::id).containsExactly(1L, 3L, 4L, 5L);
+        assertThat(index.search("beatriz", 10)).extracting(UserSearchResult::id).containsExactly(2L);
+        verify(userRepo).findSummariesByIdIn(List.of(2L));
+        verify(userRepo, times(1)).findAllSummaries();
+    }
+
+    @Test
+    void deletedUserDisappearsOnReload() {
+        index.search("ana", 10);
+        when(userRepo.findSummariesByIdIn(List.of(1L))).thenReturn(List.of());
+
+        bus.publish(CacheRegions.USERS, 1L);
+
+        assertThat(index.search("ana", 10)).extracting(UserSearchResult::id).doesNotContain(1L);
+        assertThat(index.size()).isEqualTo(USERS.size() - 1);
+    }
+
+    @Test
+    void regionWideEventForcesRebuild() {
+        index.search("ana", 10);
+        bus.publish(CacheRegions.USERS, null);
+        index.search("ana", 10);
+
+        verify(userRepo, times(2)).findAllSummaries();
+        verify(userRepo, never()).findSummariesByIdIn(any());
+    }
+
+    @Test
+    void nonNumericKeyForcesRebuild() {
+        index.search("ana", 10);
+        bus.publish(CacheRegions.USERS, "not-an-id");
+        index.search("ana", 10);
+
+        verify(userRepo, times(2)).findAllSummaries();
+        verify(userRepo, never()).findSummariesByIdIn(any());
+    }
+
+    @Test
+    void failedBuildIsRetriedOnNextSearch() {
+        when(userRepo.findAllSummaries())
+                .thenThrow(new DataAccessResourceFailureException("ORA-12541"))
+                .thenReturn(USERS);
+
+        assertThatThrownBy(() -> index.search("ana", 10)).isInstanceOf(DataAccessResourceFailureException.class);
+        assertThat(index.search("ana", 10)).hasSize(5);
+    }
+
+    private static UserSummaryView row(Long id, String username, String email) {
+        return new Row(id, UUID.randomUUID(), username, email, "Y");
+    }
+}
@@ -0,0 +1,90 @@
+package cl.duoc.ms_auth.security;
+
+import cl.duoc.ms_auth.entidades.Role;
+import cl.duoc.ms_auth.entidades.User;
+import cl.duoc.ms_auth.servicios.IssuedToken;
+import cl.duoc.ms_auth.servicios.impl.TokenServiceImpl;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactClaimsTest {
+
+    private static final List<String> KNOWN = List.of("ADMIN", "LAB_TECH");
+
+    @Test
+    void uuidRoundTripsIn22Characters() {
+        for (UUID uuid : List.of(UUID.randomUUID(), new UUID(0, 0), new UUID(-1, -1))) {
+            String encoded = CompactClaims.encodeUuid(uuid);
+            assertThat(encoded).hasSize(22).doesNotContain("=", "+", "/");
+            assertThat(CompactClaims.decodeUuid(encoded)).isEqualTo(uuid);
+        }
+    }
+
+    @Test
+    void malformedSubjectIsNotAUuid() {
+        assertThat(CompactClaims.decodeUuid(null)).isNull();
+        assertThat(CompactClaims.decodeUuid("short")).isNull();
+        assertThat(CompactClaims.decodeUuid("!!!!!!!!!!!!!!!!!!!!!!")).isNull();
+    }
+
+    @Test
+    void rolesRoundTripThroughMaskAndNames() {
+        List<String> roles = List.of("LAB_TECH", "AUDITOR", "ADMIN");
+
+        long mask = CompactClaims.roleMask(roles, KNOWN);
+        List<String> extra = CompactClaims.unknownRoles(roles, KNOWN);
+
+        assertThat(mask).isEqualTo(0b11);
+        assertThat(extra).containsExactly("AUDITOR");
+        assertThat(CompactClaims.decodeRoles(mask, extra, KNOWN)).containsExactly("ADMIN", "AUDITOR", "LAB_TECH");
+        assertThat(CompactClaims.decodeRoles(0, null, KNOWN)).isEmpty();
+    }
+
+    @Test
+    void compactTokenRoundTripsThroughJwtUtils() throws Exception {
+        KeyProvider keys = keyProvider();
+        var tokens = new TokenServiceImpl(keys, "ms-auth", 15, "compact", KNOWN);
+        var jwtUtils = new JwtUtils(keys.rsaKey().toRSAPublicKey(), "ms-auth", KNOWN);
+
+        UUID externalId = UUID.randomUUID();
+        User user = new User();
+        user.setUsername("tecnico");
+        user.setExternalId(externalId);
+        user.setLabCode("LAB-01");
+        user.setRoles(Set.of(role("LAB_TECH"), role("AUDITOR")));
+
+        IssuedToken issued = tokens.issue(user);
+        var claims = SignedJWT.parse(issued.token()).getJWTClaimsSet();
+        assertThat(claims.getClaims()).doesNotContainKeys("userId", "roles", "labCode");
+
+        var payload = jwtUtils.validateAndParse(issued.token()).orElseThrow();
+        assertThat(payload.username()).isNull();
+        assertThat(payload.userId()).isEqualTo(externalId.toString());
+        assertThat(payload.roles()).isEqualTo(issued.roles()).containsExactly("AUDITOR", "LAB_TECH");
+        assertThat(payload.labCode()).isEqualTo("LAB-01");
+        assertThat(payload.expiresAt()).isEqualTo(issued.expiresAt());
+    }
+
+    private static Role role(String name) {
+        Role role = new Role();
+        role.setName(name);
+        return role;
+    }
+
+    private static KeyProvider keyProvider() throws Exception {
+        Properties props = new Properties();
+        try (InputStream in = CompactClaimsTest.class.getResourceAsStream("/application.properties")) {
+            props.load(in);
+        }
+        return new KeyProvider(props.getProperty("auth.jwt.rsa.public"), props.getProperty("auth.jwt.rsa.private"),
+                "+To8gLCitdqa4iqQq/G2dudVYdvgx4GFVKgmT4iN7G0=");
+    }
+}
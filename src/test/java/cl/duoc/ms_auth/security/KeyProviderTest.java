@@ -0,0 +1,63 @@
+package cl.duoc.ms_auth.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.util.HexFormat;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeyProviderTest {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    // RFC 5869, apéndice A.1
+    @Test
+    void hkdfMatchesRfc5869WithSaltAndInfo() {
+        byte[] okm = KeyProvider.hkdfSha256(
+                HEX.parseHex("000102030405060708090a0b0c"),
+                HEX.parseHex("0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b"),
+                HEX.parseHex("f0f1f2f3f4f5f6f7f8f9"),
+                42);
+        assertThat(HEX.formatHex(okm))
+                .isEqualTo("3cb25f25faacd57a90434f64d0362f2a2d2d0a90cf1a5a4c5db02d56ecc4c5bf34007208d5b887185865");
+    }
+
+    // RFC 5869, apéndice A.3: salt e info vacíos, como en las claves de intercambio
+    @Test
+    void hkdfMatchesRfc5869WithoutSalt() {
+        byte[] okm = KeyProvider.hkdfSha256(
+                new byte[0],
+                HEX.parseHex("0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b"),
+                new byte[0],
+                42);
+        assertThat(HEX.formatHex(okm))
+                .isEqualTo("8da4e775a563c18f715f802a063c5a31b8a11f5c5ee1879ec3454e5f3c738d2d9d201395faa4b61a96c8");
+    }
+
+    @Test
+    void exchangeKeysAreStableAndDifferPerAudience() throws Exception {
+        KeyProvider keys = keyProvider("+To8gLCitdqa4iqQq/G2dudVYdvgx4GFVKgmT4iN7G0=");
+
+        byte[] labs = keys.exchangeKey("ms-labs").toByteArray();
+        assertThat(labs).hasSize(32);
+        assertThat(keys.exchangeKey("ms-labs").toByteArray()).isEqualTo(labs);
+        assertThat(keys.exchangeKey("ms-other").toByteArray()).isNotEqualTo(labs);
+    }
+
+    @Test
+    void rejectsShortExchangeSecret() {
+        assertThatThrownBy(() -> keyProvider("c2hvcnQ=")).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> keyProvider("")).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static KeyProvider keyProvider(String exchangeSecret) throws Exception {
+        Properties props = new Properties();
+        try (InputStream in = KeyProviderTest.class.getResourceAsStream("/application.properties")) {
+            props.load(in);
+        }
+        return new KeyProvider(props.getProperty("auth.jwt.rsa.public"), props.getProperty("auth.jwt.rsa.private"), exchangeSecret);
+    }
+}
@@ -0,0 +1,138 @@
+package cl.duoc.ms_auth.security;
+
+import cl.duoc.ms_auth.security.RouteTable.Access;
+import cl.duoc.ms_auth.security.RouteTable.Route;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RouteTableTest {
+
+    private final RouteTable table = RouteTable.builder()
+            .publicEndpoint(HttpMethod.GET, "/actuator/health/**")
+            .hasRole(null, "/actuator/**", "ADMIN")
+            .publicEndpoint(HttpMethod.POST, "/auth/login")
+            .authenticated(HttpMethod.GET, "/users/me")
+            .hasRole(HttpMethod.GET, "/users/**", "LAB_TECH")
+            .hasRole(null, "/users/**", "ADMIN")
+            .hasAnyRole(HttpMethod.POST, "/users/batch", "ADMIN", "SERVICE")
+            .denyAll(null, "/internal/**")
+            .build();
+
+    @Test
+    void longerPrefixWins() {
+        assertThat(table.match("GET", "/actuator/health").pattern()).isEqualTo("/actuator/health/**");
+        assertThat(table.match("GET", "/actuator/health/liveness").pattern()).isEqualTo("/actuator/health/**");
+        assertThat(table.match("GET", "/actuator/metrics").pattern()).isEqualTo("/actuator/**");
+        assertThat(table.match("GET", "/actuator").pattern()).isEqualTo("/actuator/**");
+    }
+
+    @Test
+    void exactPatternBeatsPrefix() {
+        assertThat(table.match("GET", "/users/me").access()).isEqualTo(Access.AUTHENTICATED);
+        assertThat(table.match("GET", "/users/me/roles").pattern()).isEqualTo("/users/**");
+        // Barra final: no es el path exacto
+        assertThat(table.match("GET", "/users/me/").pattern()).isEqualTo("/users/**");
+    }
+
+    @Test
+    void specificMethodBeatsAnyMethod() {
+        Route get = table.match("GET", "/users/42");
+        assertThat(get.method()).isEqualTo(HttpMethod.GET);
+        assertThat(get.authorities()).containsExactly("ROLE_LAB_TECH");
+
+        Route put = table.match("PUT", "/users/42");
+        assertThat(put.method()).isNull();
+        assertThat(put.authorities()).containsExactly("ROLE_ADMIN");
+    }
+
+    @Test
+    void methodSpecificPrefixDoesNotApplyToOtherMethods() {
+        // POST /actuator/health/x solo coincide con la regla de cualquier método del prefijo más corto
+        assertThat(table.match("POST", "/actuator/health/x").pattern()).isEqualTo("/actuator/**");
+        // POST /users/me no tiene regla exacta para POST: cae en el prefijo
+        assertThat(table.match("POST", "/users/me").authorities()).containsExactly("ROLE_ADMIN");
+    }
+
+    @Test
+    void unmatchedPathsUseFallback() {
+        assertThat(table.match("GET", "/other").access()).isEqualTo(Access.AUTHENTICATED);
+        assertThat(table.match("GET", "/").access()).isEqualTo(Access.AUTHENTICATED);
+        assertThat(table.match("GET", "/auth/login").access()).isEqualTo(Access.AUTHENTICATED);
+        assertThat(table.match("GET", "").access()).isEqualTo(Access.AUTHENTICATED);
+
+        RouteTable closed = RouteTable.builder().otherwise(Access.DENY_ALL).build();
+        assertThat(closed.match("GET", "/anything").access()).isEqualTo(Access.DENY_ALL);
+    }
+
+    @Test
+    void firstRuleForSamePatternAndMethodWins() {
+        RouteTable dup = RouteTable.builder()
+                .permitAll(HttpMethod.GET, "/a")
+                .denyAll(HttpMethod.GET, "/a")
+                .build();
+        assertThat(dup.match("GET", "/a").access()).isEqualTo(Access.PERMIT_ALL);
+    }
+
+    @Test
+    void bypassesJwtOnlyForPublicAndDeniedEndpoints() {
+        assertThat(table.bypassesJwt(request("POST", "/auth/login"))).isTrue();
+        assertThat(table.bypassesJwt(request("GET", "/internal/x"))).isTrue();
+        assertThat(table.bypassesJwt(request("GET", "/users/me"))).isFalse();
+        assertThat(table.bypassesJwt(request("GET", "/other"))).isFalse();
+    }
+
+    @Test
+    void authorizationManagerAppliesTheMatchedRule() {
+        Authentication anonymous = new AnonymousAuthenticationToken("key", "anonymous",
+                AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+        Authentication tech = authenticated("ROLE_LAB_TECH");
+        Authentication admin = authenticated("ROLE_ADMIN");
+
+        assertThat(granted("POST", "/auth/login", anonymous)).isTrue();
+        assertThat(granted("GET", "/users/me", anonymous)).isFalse();
+        assertThat(granted("GET", "/users/me", tech)).isTrue();
+        assertThat(granted("GET", "/users/1", tech)).isTrue();
+        assertThat(granted("DELETE", "/users/1", tech)).isFalse();
+        assertThat(granted("DELETE", "/users/1", admin)).isTrue();
+        assertThat(granted("GET", "/internal/x", admin)).isFalse();
+        // Cualquiera de los roles de hasAnyRole basta; la regla exacta no abre el resto de /users/**
+        Authentication service = authenticated("ROLE_SERVICE");
+        assertThat(granted("POST", "/users/batch", service)).isTrue();
+        assertThat(granted("POST", "/users/batch", admin)).isTrue();
+        assertThat(granted("POST", "/users/batch", tech)).isFalse();
+        assertThat(granted("POST", "/users", service)).isFalse();
+    }
+
+    @Test
+    void rejectsUnsupportedPatterns() {
+        assertThatThrownBy(() -> RouteTable.builder().permitAll(null, "users")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RouteTable.builder().permitAll(null, "/users/*")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RouteTable.builder().permitAll(null, "/users/{id}")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private boolean granted(String method, String path, Authentication authentication) {
+        var context = new RequestAuthorizationContext(request(method, path));
+        return table.authorizationManager().authorize(() -> authentication, context).isGranted();
+    }
+
+    private static Authentication authenticated(String authority) {
+        var auth = new TestingAuthenticationToken("user", null, authority);
+        auth.setAuthenticated(true);
+        return auth;
+    }
+
+    private static MockHttpServletRequest request(String method, String path) {
+        var request = new MockHttpServletRequest(method, path);
+        request.setServletPath(path);
+        return request;
+    }
+}
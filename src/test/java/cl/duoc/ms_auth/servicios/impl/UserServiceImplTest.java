@@ -0,0 +1,157 @@
+package cl.duoc.ms_auth.servicios.impl;
+
+import cl.duoc.ms_auth.cache.CacheInvalidationBus;
+import cl.duoc.ms_auth.dtos.UserBatchRequest;
+import cl.duoc.ms_auth.dtos.UserCreateRequest;
+import cl.duoc.ms_auth.entidades.Role;
+import cl.duoc.ms_auth.entidades.User;
+import cl.duoc.ms_auth.exceptions.BadRequestException;
+import cl.duoc.ms_auth.exceptions.ConflictException;
+import cl.duoc.ms_auth.repositorio.RoleRepository;
+import cl.duoc.ms_auth.repositorio.UserRepository;
+import cl.duoc.ms_auth.search.UserSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class UserServiceImplTest {
+
+    private UserRepository userRepo;
+    private RoleRepository roleRepo;
+    private CacheInvalidationBus bus;
+    private UserServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        userRepo = mock(UserRepository.class);
+        roleRepo = mock(RoleRepository.class);
+        bus = mock(CacheInvalidationBus.class);
+        service = new UserServiceImpl(userRepo, roleRepo, mock(PasswordEncoder.class),
+                bus, mock(UserSearchIndex.class), 3, 50, 200, 20, 50);
+    }
+
+    @Test
+    void batchIndexesByRequestedIdentifierAndReportsMissing() {
+        UUID ext = UUID.randomUUID();
+        User u1 = user(1L, UUID.randomUUID());
+        User u2 = user(2L, ext);
+        when(userRepo.findByIdInOrExternalIdIn(any(), any())).thenReturn(List.of(u1, u2));
+
+        var response = service.getBatch(new UserBatchRequest(List.of(1L, 9L), List.of(ext)));
+
+        assertThat(response.users()).containsOnlyKeys("1", ext.toString());
+        assertThat(response.users().get(ext.toString()).id()).isEqualTo(2L);
+        assertThat(response.notFound()).containsExactly("9");
+    }
+
+    @Test
+    void batchRejectsNullElementsWithoutQuerying() {
+        List<Long> ids = new ArrayList<>(Arrays.asList(1L, null));
+        List<UUID> externalIds = new ArrayList<>(Arrays.asList(UUID.randomUUID(), null));
+
+        assertThatThrownBy(() -> service.getBatch(new UserBatchRequest(ids, null)))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> service.getBatch(new UserBatchRequest(null, externalIds)))
+                .isInstanceOf(BadRequestException.class);
+        verifyNoInteractions(userRepo);
+    }
+
+    @Test
+    void batchRejectsEmptyAndOversizedRequests() {
+        assertThatThrownBy(() -> service.getBatch(new UserBatchRequest(null, null)))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> service.getBatch(new UserBatchRequest(List.of(1L, 2L), List.of(UUID.randomUUID(), UUID.randomUUID()))))
+                .isInstanceOf(BadRequestException.class);
+        verifyNoInteractions(userRepo);
+    }
+
+    @Test
+    void createMapsUsernameConstraintToConflict() {
+        failInsertWith(violation("AUTH.UQ_USERS_USERNAME"));
+
+        assertThatThrownBy(() -> service.create(createRequest()))
+                .isInstanceOf(ConflictException.class)
+                .hasMessage("USERNAME en uso");
+        verify(bus, never()).publish(any(), any());
+    }
+
+    @Test
+    void createMapsEmailConstraintToConflict() {
+        failInsertWith(violation("AUTH.UQ_USERS_EMAIL"));
+
+        assertThatThrownBy(() -> service.create(createRequest()))
+                .isInstanceOf(ConflictException.class)
+                .hasMessage("EMAIL en uso");
+    }
+
+    @Test
+    void createFallsBackToMessageWhenConstraintNameIsMissing() {
+        failInsertWith(violation(null));
+
+        assertThatThrownBy(() -> service.create(createRequest()))
+                .isInstanceOf(ConflictException.class)
+                .hasMessage("EMAIL en uso");
+    }
+
+    @Test
+    void createRethrowsOtherIntegrityViolationsUnchanged() {
+        DataIntegrityViolationException other = new DataIntegrityViolationException("FK violada",
+                new ConstraintViolationException("FK violada",
+                        new SQLIntegrityConstraintViolationException("ORA-02291: integrity constraint (AUTH.FK_USER_ROLES_ROLE) violated"),
+                        "AUTH.FK_USER_ROLES_ROLE"));
+        failInsertWith(other);
+
+        assertThatThrownBy(() -> service.create(createRequest())).isSameAs(other);
+    }
+
+    /**
+     * Arma la cadena que produce Spring al traducir un ORA-00001 de Hibernate. Con {@code constraintName} null el
+     * dialecto no extrajo el nombre y solo queda el mensaje de Oracle (que nombra UQ_USERS_EMAIL).
+     */
+    private static DataIntegrityViolationException violation(String constraintName) {
+        String named = constraintName != null ? constraintName : "AUTH.UQ_USERS_EMAIL";
+        SQLIntegrityConstraintViolationException sql = new SQLIntegrityConstraintViolationException(
+                "ORA-00001: unique constraint (" + named + ") violated", "23000", 1);
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", sql, constraintName));
+    }
+
+    private void failInsertWith(DataIntegrityViolationException e) {
+        when(roleRepo.findByName("ADMIN")).thenReturn(Optional.of(new Role(1L, "ADMIN", "Administrador", null, null)));
+        when(userRepo.saveAndFlush(any())).thenThrow(e);
+    }
+
+    private static UserCreateRequest createRequest() {
+        return new UserCreateRequest("ana", "ana@duoc.cl", "secreto123", null, List.of("ADMIN"), true);
+    }
+
+    private static User user(Long id, UUID externalId) {
+        User u = new User();
+        u.setId(id);
+        u.setExternalId(externalId);
+        u.setUsername("user" + id);
+        u.setEmail("user" + id + "@duoc.cl");
+        u.setActive("Y");
+        u.setRoles(Set.of());
+        return u;
+    }
+}